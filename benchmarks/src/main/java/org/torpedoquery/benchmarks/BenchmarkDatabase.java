@@ -0,0 +1,161 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.torpedoquery.benchmarks.model.City;
+import org.torpedoquery.benchmarks.model.Country;
+import org.torpedoquery.benchmarks.model.District;
+import org.torpedoquery.benchmarks.model.User;
+
+/**
+ *
+ * An embedded H2 database seeded once by trial with the users, cities,
+ * districts, states and countries of the examples model. Each level has a
+ * fifth of the rows of the level below, with a hundred users by city.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+@State(Scope.Benchmark)
+public class BenchmarkDatabase {
+
+	private static final int USERS_BY_CITY = 100;
+	private static final int CHILDREN = 5;
+	private static final int FLUSH_SIZE = 1000;
+
+	@Param({ "10000" })
+	public int users;
+
+	private EntityManagerFactory entityManagerFactory;
+	private int cities;
+	private int countries;
+
+	/**
+	 * <p>
+	 * setUp.
+	 * </p>
+	 */
+	@Setup(Level.Trial)
+	public void setUp() {
+		entityManagerFactory = Persistence.createEntityManagerFactory("benchmarks");
+		cities = Math.max(1, users / USERS_BY_CITY);
+		int districts = Math.max(1, cities / CHILDREN);
+		int states = Math.max(1, districts / CHILDREN);
+		countries = Math.max(1, states / CHILDREN);
+
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			entityManager.getTransaction().begin();
+			for (long id = 0; id < countries; id++) {
+				persist(entityManager, new Country(id, "country" + id, "Country " + id), id);
+			}
+			for (long id = 0; id < states; id++) {
+				persist(entityManager, new org.torpedoquery.benchmarks.model.State(id, "state" + id,
+						entityManager.getReference(Country.class, id % countries)), id);
+			}
+			for (long id = 0; id < districts; id++) {
+				persist(entityManager, new District(id, "district" + id, entityManager.getReference(
+						org.torpedoquery.benchmarks.model.State.class, id % states)), id);
+			}
+			for (long id = 0; id < cities; id++) {
+				persist(entityManager, new City(id, "city" + id, (int) (id * 7919 % 1000000),
+						entityManager.getReference(District.class, id % districts)), id);
+			}
+			for (long id = 0; id < users; id++) {
+				persist(entityManager, new User(id, "user" + id, 18 + (int) (id % 60), id % 3 != 0,
+						entityManager.getReference(City.class, id % cities)), id);
+			}
+			entityManager.getTransaction().commit();
+		} finally {
+			entityManager.close();
+		}
+	}
+
+	private static void persist(EntityManager entityManager, Object entity, long index) {
+		entityManager.persist(entity);
+		if (index % FLUSH_SIZE == FLUSH_SIZE - 1) {
+			entityManager.flush();
+			entityManager.clear();
+		}
+	}
+
+	/**
+	 * <p>
+	 * tearDown.
+	 * </p>
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		entityManagerFactory.close();
+	}
+
+	/**
+	 * <p>
+	 * createEntityManager.
+	 * </p>
+	 *
+	 * @return a {@link javax.persistence.EntityManager} object.
+	 */
+	public EntityManager createEntityManager() {
+		return entityManagerFactory.createEntityManager();
+	}
+
+	/**
+	 * <p>
+	 * randomUserId.
+	 * </p>
+	 *
+	 * @return the id of an existing user
+	 */
+	public long randomUserId() {
+		return ThreadLocalRandom.current().nextLong(users);
+	}
+
+	/**
+	 * <p>
+	 * randomCountryCode.
+	 * </p>
+	 *
+	 * @return the code of an existing country
+	 */
+	public String randomCountryCode() {
+		return "country" + ThreadLocalRandom.current().nextInt(countries);
+	}
+
+	/**
+	 * <p>
+	 * randomPopulation.
+	 * </p>
+	 *
+	 * @return a population, about the half of the cities are larger
+	 */
+	public int randomPopulation() {
+		return ThreadLocalRandom.current().nextInt(1000000);
+	}
+
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.benchmarks;
+
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.groupBy;
+import static org.torpedoquery.jpa.Torpedo.innerJoin;
+import static org.torpedoquery.jpa.Torpedo.orderBy;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+import static org.torpedoquery.jpa.TorpedoFunction.count;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.torpedoquery.benchmarks.model.City;
+import org.torpedoquery.benchmarks.model.Country;
+import org.torpedoquery.benchmarks.model.District;
+import org.torpedoquery.benchmarks.model.User;
+
+/**
+ *
+ * The full build and execute cycle of five scenarios, each written with
+ * Torpedo, with hand written JPQL and with the Criteria API. The benchmark
+ * methods are named scenario followed by Torpedo, Jpql or Criteria.
+ *
+ * The persistence context is cleared after each operation so every execution
+ * load its rows from the database.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+	private static final int PAGE_SIZE = 20;
+	private static final int MIN_AGE = 20;
+	private static final int MAX_AGE = 40;
+
+	private EntityManager entityManager;
+
+	/**
+	 * <p>
+	 * setUp.
+	 * </p>
+	 *
+	 * @param database
+	 *            a {@link org.torpedoquery.benchmarks.BenchmarkDatabase} object.
+	 */
+	@Setup(Level.Iteration)
+	public void setUp(BenchmarkDatabase database) {
+		entityManager = database.createEntityManager();
+	}
+
+	/**
+	 * <p>
+	 * tearDown.
+	 * </p>
+	 */
+	@TearDown(Level.Iteration)
+	public void tearDown() {
+		entityManager.close();
+	}
+
+	private <T> T cleared(T result) {
+		entityManager.clear();
+		return result;
+	}
+
+	@Benchmark
+	public Optional<User> pkLookupTorpedo(BenchmarkDatabase database) {
+		User from = from(User.class);
+		where(from.getId()).eq(database.randomUserId());
+		return cleared(select(from).get(entityManager));
+	}
+
+	@Benchmark
+	public User pkLookupJpql(BenchmarkDatabase database) {
+		return cleared(entityManager.createQuery("select user from User user where user.id = :id", User.class)
+				.setParameter("id", database.randomUserId()).getSingleResult());
+	}
+
+	@Benchmark
+	public User pkLookupCriteria(BenchmarkDatabase database) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<User> query = builder.createQuery(User.class);
+		Root<User> user = query.from(User.class);
+		query.where(builder.equal(user.get("id"), database.randomUserId()));
+		return cleared(entityManager.createQuery(query).getSingleResult());
+	}
+
+	@Benchmark
+	public List<User> filteredPageTorpedo() {
+		User from = from(User.class);
+		where(from.isActive()).eq(true).and(from.getAge()).between(MIN_AGE, MAX_AGE);
+		orderBy(from.getName());
+		return cleared(select(from).setFirstResult(PAGE_SIZE).setMaxResults(PAGE_SIZE).list(entityManager));
+	}
+
+	@Benchmark
+	public List<User> filteredPageJpql() {
+		return cleared(entityManager
+				.createQuery("select user from User user where user.active = :active"
+						+ " and user.age between :minAge and :maxAge order by user.name", User.class)
+				.setParameter("active", true).setParameter("minAge", MIN_AGE).setParameter("maxAge", MAX_AGE)
+				.setFirstResult(PAGE_SIZE).setMaxResults(PAGE_SIZE).getResultList());
+	}
+
+	@Benchmark
+	public List<User> filteredPageCriteria() {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<User> query = builder.createQuery(User.class);
+		Root<User> user = query.from(User.class);
+		query.where(builder.equal(user.get("active"), true),
+				builder.between(user.<Integer> get("age"), MIN_AGE, MAX_AGE));
+		query.orderBy(builder.asc(user.get("name")));
+		return cleared(entityManager.createQuery(query).setFirstResult(PAGE_SIZE).setMaxResults(PAGE_SIZE)
+				.getResultList());
+	}
+
+	@Benchmark
+	public List<User> deepJoinTorpedo(BenchmarkDatabase database) {
+		User from = from(User.class);
+		City city = innerJoin(from.getCity());
+		District district = innerJoin(city.getDistrict());
+		org.torpedoquery.benchmarks.model.State state = innerJoin(district.getState());
+		Country country = innerJoin(state.getCountry());
+		where(country.getCode()).eq(database.randomCountryCode());
+		return cleared(select(from).setMaxResults(PAGE_SIZE).list(entityManager));
+	}
+
+	@Benchmark
+	public List<User> deepJoinJpql(BenchmarkDatabase database) {
+		return cleared(entityManager
+				.createQuery("select user from User user inner join user.city city"
+						+ " inner join city.district district inner join district.state state"
+						+ " inner join state.country country where country.code = :code", User.class)
+				.setParameter("code", database.randomCountryCode()).setMaxResults(PAGE_SIZE).getResultList());
+	}
+
+	@Benchmark
+	public List<User> deepJoinCriteria(BenchmarkDatabase database) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<User> query = builder.createQuery(User.class);
+		Root<User> user = query.from(User.class);
+		Join<?, ?> country = user.join("city").join("district").join("state").join("country");
+		query.where(builder.equal(country.get("code"), database.randomCountryCode()));
+		return cleared(entityManager.createQuery(query).setMaxResults(PAGE_SIZE).getResultList());
+	}
+
+	@Benchmark
+	public List<Object[]> groupByTorpedo() {
+		User from = from(User.class);
+		City city = innerJoin(from.getCity());
+		where(from.isActive()).eq(true);
+		groupBy(city.getCode());
+		return cleared(select(city.getCode(), count(from)).list(entityManager));
+	}
+
+	@Benchmark
+	public List<Object[]> groupByJpql() {
+		return cleared(entityManager
+				.createQuery("select city.code, count(user) from User user inner join user.city city"
+						+ " where user.active = :active group by city.code", Object[].class)
+				.setParameter("active", true).getResultList());
+	}
+
+	@Benchmark
+	public List<Object[]> groupByCriteria() {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+		Root<User> user = query.from(User.class);
+		Join<User, City> city = user.join("city");
+		query.multiselect(city.get("code"), builder.count(user));
+		query.where(builder.equal(user.get("active"), true));
+		query.groupBy(city.get("code"));
+		return cleared(entityManager.createQuery(query).getResultList());
+	}
+
+	@Benchmark
+	public List<User> subqueryTorpedo(BenchmarkDatabase database) {
+		City city = from(City.class);
+		where(city.getPopulation()).gt(database.randomPopulation());
+		User from = from(User.class);
+		where(from.getCity()).in(select(city));
+		return cleared(select(from).setMaxResults(PAGE_SIZE).list(entityManager));
+	}
+
+	@Benchmark
+	public List<User> subqueryJpql(BenchmarkDatabase database) {
+		return cleared(entityManager
+				.createQuery("select user from User user where user.city in"
+						+ " (select city from City city where city.population > :population)", User.class)
+				.setParameter("population", database.randomPopulation()).setMaxResults(PAGE_SIZE)
+				.getResultList());
+	}
+
+	@Benchmark
+	public List<User> subqueryCriteria(BenchmarkDatabase database) {
+		CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+		CriteriaQuery<User> query = builder.createQuery(User.class);
+		Root<User> user = query.from(User.class);
+		Subquery<City> cities = query.subquery(City.class);
+		Root<City> city = cities.from(City.class);
+		cities.select(city).where(builder.gt(city.<Integer> get("population"), database.randomPopulation()));
+		query.where(user.get("city").in(cities));
+		return cleared(entityManager.createQuery(query).setMaxResults(PAGE_SIZE).getResultList());
+	}
+
+}
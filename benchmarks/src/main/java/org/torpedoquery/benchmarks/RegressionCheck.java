@@ -0,0 +1,183 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+/**
+ *
+ * Run the query benchmarks and compare each Torpedo scenario with the hand
+ * written JPQL of the same run. The process exit with 1 when the time or the
+ * allocation overhead of a scenario is over its threshold in
+ * thresholds.properties.
+ *
+ * The iterations can be reduced with the benchmarks.warmups,
+ * benchmarks.iterations, benchmarks.time and benchmarks.users system
+ * properties. A short run is too noisy to be compared with the thresholds,
+ * run it with -Dbenchmarks.reportOnly=true to print the overheads without
+ * failing. A run without result always fails.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public class RegressionCheck {
+
+	private static final String TORPEDO = "Torpedo";
+	private static final String JPQL = "Jpql";
+	private static final String ALLOCATION = "gc.alloc.rate.norm";
+
+	private static class Measure {
+		private double throughput = Double.NaN;
+		private double p50 = Double.NaN;
+		private double p99 = Double.NaN;
+		private double bytesByOperation = Double.NaN;
+	}
+
+	/**
+	 * <p>
+	 * main.
+	 * </p>
+	 *
+	 * @param args
+	 *            an optional include pattern of the benchmarks to run
+	 * @throws org.openjdk.jmh.runner.RunnerException
+	 *             if any.
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public static void main(String[] args) throws RunnerException, IOException {
+		ChainedOptionsBuilder options = new OptionsBuilder()
+				.include(args.length > 0 ? args[0] : QueryBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.warmupIterations(Integer.getInteger("benchmarks.warmups", 3))
+				.measurementIterations(Integer.getInteger("benchmarks.iterations", 5))
+				.warmupTime(TimeValue.seconds(Integer.getInteger("benchmarks.time", 2)))
+				.measurementTime(TimeValue.seconds(Integer.getInteger("benchmarks.time", 2)))
+				.param("users", System.getProperty("benchmarks.users", "10000"));
+		if (!System.getProperty("java.version").startsWith("1.")) {
+			options.jvmArgsAppend("--add-opens", "java.base/java.lang=ALL-UNNAMED");
+		}
+
+		Map<String, Measure> measures = measures(new Runner(options.build()).run());
+		if (measures.isEmpty()) {
+			System.out.println("no benchmark result");
+			System.exit(1);
+		}
+		print(measures);
+
+		int regressions = check(measures, thresholds());
+		if (regressions > 0) {
+			System.out.println(regressions + " regression(s) over the thresholds");
+			if (!Boolean.getBoolean("benchmarks.reportOnly")) {
+				System.exit(1);
+			}
+		}
+	}
+
+	private static Map<String, Measure> measures(Collection<RunResult> results) {
+		Map<String, Measure> measures = new HashMap<>();
+		for (RunResult result : results) {
+			String label = result.getParams().getBenchmark();
+			Measure measure = measures.computeIfAbsent(label.substring(label.lastIndexOf('.') + 1),
+					k -> new Measure());
+			Result<?> primary = result.getPrimaryResult();
+
+			if (result.getParams().getMode() == Mode.Throughput) {
+				measure.throughput = primary.getScore();
+				for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+					if (secondary.getKey().endsWith(ALLOCATION)) {
+						measure.bytesByOperation = secondary.getValue().getScore();
+					}
+				}
+			} else if (result.getParams().getMode() == Mode.SampleTime) {
+				measure.p50 = primary.getStatistics().getPercentile(50);
+				measure.p99 = primary.getStatistics().getPercentile(99);
+			}
+		}
+		return measures;
+	}
+
+	private static void print(Map<String, Measure> measures) {
+		System.out.println(String.format("%-24s %14s %10s %10s %14s", "benchmark", "ops/ms", "p50 ms", "p99 ms",
+				"B/op"));
+		for (String name : new TreeSet<>(measures.keySet())) {
+			Measure measure = measures.get(name);
+			System.out.println(String.format("%-24s %14.3f %10.4f %10.4f %14.1f", name, measure.throughput,
+					measure.p50, measure.p99, measure.bytesByOperation));
+		}
+	}
+
+	private static int check(Map<String, Measure> measures, Properties thresholds) {
+		int regressions = 0;
+		for (String name : new TreeSet<>(measures.keySet())) {
+			if (!name.endsWith(TORPEDO)) {
+				continue;
+			}
+			String scenario = name.substring(0, name.length() - TORPEDO.length());
+			Measure torpedo = measures.get(name);
+			Measure jpql = measures.get(scenario + JPQL);
+			if (jpql == null) {
+				System.out.println(String.format("%-12s no jpql result to compare with", scenario));
+				regressions++;
+				continue;
+			}
+
+			regressions += check(scenario, "time", jpql.throughput / torpedo.throughput,
+					thresholds.getProperty(scenario + ".maxTimeOverhead"));
+			regressions += check(scenario, "allocation", torpedo.bytesByOperation / jpql.bytesByOperation,
+					thresholds.getProperty(scenario + ".maxAllocationOverhead"));
+		}
+		return regressions;
+	}
+
+	private static int check(String scenario, String kind, double overhead, String threshold) {
+		if (threshold == null || Double.isNaN(overhead)) {
+			return 0;
+		}
+		double max = Double.parseDouble(threshold);
+		boolean regression = overhead > max;
+		System.out.println(String.format("%-12s %-10s overhead %.3f (max %.3f)%s", scenario, kind, overhead, max,
+				regression ? " REGRESSION" : ""));
+		return regression ? 1 : 0;
+	}
+
+	private static Properties thresholds() throws IOException {
+		Properties thresholds = new Properties();
+		try (InputStream input = RegressionCheck.class.getResourceAsStream("/thresholds.properties")) {
+			if (input != null) {
+				thresholds.load(input);
+			}
+		}
+		return thresholds;
+	}
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.benchmarks.model;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+
+/**
+ *
+ * A city of a district.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+@Entity
+public class City {
+
+	@Id
+	private Long id;
+	private String code;
+	private int population;
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	private District district;
+
+	/**
+	 * <p>
+	 * Constructor for City.
+	 * </p>
+	 */
+	protected City() {
+	}
+
+	/**
+	 * <p>
+	 * Constructor for City.
+	 * </p>
+	 *
+	 * @param id
+	 *            a {@link java.lang.Long} object.
+	 * @param code
+	 *            a {@link java.lang.String} object.
+	 * @param population
+	 *            a int.
+	 * @param district
+	 *            a {@link org.torpedoquery.benchmarks.model.District} object.
+	 */
+	public City(Long id, String code, int population, District district) {
+		this.id = id;
+		this.code = code;
+		this.population = population;
+		this.district = district;
+	}
+
+	/**
+	 * <p>
+	 * getId.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.Long} object.
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * <p>
+	 * getCode.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getCode() {
+		return code;
+	}
+
+	/**
+	 * <p>
+	 * getPopulation.
+	 * </p>
+	 *
+	 * @return a int.
+	 */
+	public int getPopulation() {
+		return population;
+	}
+
+	/**
+	 * <p>
+	 * getDistrict.
+	 * </p>
+	 *
+	 * @return a {@link org.torpedoquery.benchmarks.model.District} object.
+	 */
+	public District getDistrict() {
+		return district;
+	}
+
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.benchmarks.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ *
+ * A country.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+@Entity
+public class Country {
+
+	@Id
+	private Long id;
+	private String code;
+	private String name;
+
+	/**
+	 * <p>
+	 * Constructor for Country.
+	 * </p>
+	 */
+	protected Country() {
+	}
+
+	/**
+	 * <p>
+	 * Constructor for Country.
+	 * </p>
+	 *
+	 * @param id
+	 *            a {@link java.lang.Long} object.
+	 * @param code
+	 *            a {@link java.lang.String} object.
+	 * @param name
+	 *            a {@link java.lang.String} object.
+	 */
+	public Country(Long id, String code, String name) {
+		this.id = id;
+		this.code = code;
+		this.name = name;
+	}
+
+	/**
+	 * <p>
+	 * getId.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.Long} object.
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * <p>
+	 * getCode.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getCode() {
+		return code;
+	}
+
+	/**
+	 * <p>
+	 * getName.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getName() {
+		return name;
+	}
+
+}
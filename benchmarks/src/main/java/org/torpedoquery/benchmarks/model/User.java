@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.benchmarks.model;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+/**
+ *
+ * A user living in a city, the table is renamed because user is reserved by h2.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+@Entity
+@Table(name = "users")
+public class User {
+
+	@Id
+	private Long id;
+	private String name;
+	private int age;
+	private boolean active;
+	@ManyToOne(fetch = FetchType.LAZY, optional = false)
+	private City city;
+
+	/**
+	 * <p>
+	 * Constructor for User.
+	 * </p>
+	 */
+	protected User() {
+	}
+
+	/**
+	 * <p>
+	 * Constructor for User.
+	 * </p>
+	 *
+	 * @param id
+	 *            a {@link java.lang.Long} object.
+	 * @param name
+	 *            a {@link java.lang.String} object.
+	 * @param age
+	 *            a int.
+	 * @param active
+	 *            a boolean.
+	 * @param city
+	 *            a {@link org.torpedoquery.benchmarks.model.City} object.
+	 */
+	public User(Long id, String name, int age, boolean active, City city) {
+		this.id = id;
+		this.name = name;
+		this.age = age;
+		this.active = active;
+		this.city = city;
+	}
+
+	/**
+	 * <p>
+	 * getId.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.Long} object.
+	 */
+	public Long getId() {
+		return id;
+	}
+
+	/**
+	 * <p>
+	 * getName.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * <p>
+	 * getAge.
+	 * </p>
+	 *
+	 * @return a int.
+	 */
+	public int getAge() {
+		return age;
+	}
+
+	/**
+	 * <p>
+	 * isActive.
+	 * </p>
+	 *
+	 * @return a boolean.
+	 */
+	public boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * <p>
+	 * getCity.
+	 * </p>
+	 *
+	 * @return a {@link org.torpedoquery.benchmarks.model.City} object.
+	 */
+	public City getCity() {
+		return city;
+	}
+
+}
@@ -0,0 +1,33 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.core;
+
+import org.torpedoquery.jpa.internal.Condition;
+public interface ConditionOptimizer {
+	/**
+	 * <p>optimize.</p>
+	 *
+	 * Rewrite a where or with clause before its first rendering, the result
+	 * must be equivalent to the rendered condition
+	 *
+	 * @param condition a {@link org.torpedoquery.jpa.internal.Condition} object.
+	 * @return the condition to render
+	 */
+	public Condition optimize(Condition condition);
+}
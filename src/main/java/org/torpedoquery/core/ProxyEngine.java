@@ -0,0 +1,34 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.core;
+
+public interface ProxyEngine {
+	/**
+	 * <p>createProxy.</p>
+	 *
+	 * Create a proxy whose getters are recorded by the handler, the
+	 * proxy must be serializable when its classes are
+	 *
+	 * @param handler a {@link org.torpedoquery.core.ProxyHandler} object.
+	 * @param classes one super class and interfaces.
+	 * @param <T> a T object.
+	 * @return a T object.
+	 */
+	public <T> T createProxy(ProxyHandler handler, Class<?>... classes);
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.core;
+
+import java.lang.reflect.Method;
+public interface ProxyHandler {
+	/**
+	 * <p>invoke.</p>
+	 *
+	 * Called by the proxies created by a {@link org.torpedoquery.core.ProxyEngine}
+	 * for each of their methods except the ones of java.lang.Object
+	 *
+	 * @param self the proxy.
+	 * @param method the called method.
+	 * @param args the call arguments.
+	 * @return the value returned by the proxy.
+	 * @throws java.lang.Throwable if any.
+	 */
+	Object invoke(Object self, Method method, Object[] args) throws Throwable;
+}
@@ -21,7 +21,6 @@ package org.torpedoquery.core;
 
 import java.io.Serializable;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.Query;
 import org.torpedoquery.jpa.internal.Join;
@@ -29,6 +28,7 @@ import org.torpedoquery.jpa.internal.Selector;
 import org.torpedoquery.jpa.internal.conditions.ConditionBuilder;
 import org.torpedoquery.jpa.internal.query.GroupBy;
 import org.torpedoquery.jpa.internal.query.OrderBy;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 import org.torpedoquery.jpa.internal.query.ValueParameter;
 public interface QueryBuilder<T> extends Query<T>, Cloneable, Serializable {
 
@@ -38,10 +38,10 @@ public interface QueryBuilder<T> extends Query<T>, Cloneable, Serializable {
 	 * </p>
 	 *
 	 * @param incrementor
-	 *            a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	public String getQuery(AtomicInteger incrementor);
+	public String getQuery(RenderContext incrementor);
 
 	/**
 	 * <p>
@@ -51,10 +51,10 @@ public interface QueryBuilder<T> extends Query<T>, Cloneable, Serializable {
 	 * @param builder
 	 *            a {@link java.lang.StringBuilder} object.
 	 * @param incrementor
-	 *            a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	public String appendOrderBy(StringBuilder builder, AtomicInteger incrementor);
+	public String appendOrderBy(StringBuilder builder, RenderContext incrementor);
 
 	/**
 	 * <p>
@@ -64,10 +64,10 @@ public interface QueryBuilder<T> extends Query<T>, Cloneable, Serializable {
 	 * @param builder
 	 *            a {@link java.lang.StringBuilder} object.
 	 * @param incrementor
-	 *            a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	public String appendGroupBy(StringBuilder builder, AtomicInteger incrementor);
+	public String appendGroupBy(StringBuilder builder, RenderContext incrementor);
 
 	/**
 	 * <p>
@@ -77,10 +77,10 @@ public interface QueryBuilder<T> extends Query<T>, Cloneable, Serializable {
 	 * @param builder
 	 *            a {@link java.lang.StringBuilder} object.
 	 * @param incrementor
-	 *            a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.StringBuilder} object.
 	 */
-	public StringBuilder appendWhereClause(StringBuilder builder, AtomicInteger incrementor);
+	public StringBuilder appendWhereClause(StringBuilder builder, RenderContext incrementor);
 
 	/**
 	 * <p>
@@ -90,9 +90,9 @@ public interface QueryBuilder<T> extends Query<T>, Cloneable, Serializable {
 	 * @param builder
 	 *            a {@link java.lang.StringBuilder} object.
 	 * @param incrementor
-	 *            a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 */
-	public void appendSelect(StringBuilder builder, AtomicInteger incrementor);
+	public void appendSelect(StringBuilder builder, RenderContext incrementor);
 
 	/**
 	 * <p>
@@ -100,10 +100,10 @@ public interface QueryBuilder<T> extends Query<T>, Cloneable, Serializable {
 	 * </p>
 	 *
 	 * @param incrementor
-	 *            a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	public String getAlias(AtomicInteger incrementor);
+	public String getAlias(RenderContext incrementor);
 
 	/**
 	 * <p>
@@ -140,10 +140,10 @@ public interface QueryBuilder<T> extends Query<T>, Cloneable, Serializable {
 	 * </p>
 	 *
 	 * @param incrementor
-	 *            a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	public String getJoins(AtomicInteger incrementor);
+	public String getJoins(RenderContext incrementor);
 
 	/**
 	 * <p>
@@ -203,10 +203,10 @@ public interface QueryBuilder<T> extends Query<T>, Cloneable, Serializable {
 	 * </p>
 	 *
 	 * @param incrementor
-	 *            a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	public String getWithClause(AtomicInteger incrementor);
+	public String getWithClause(RenderContext incrementor);
 
 	/**
 	 * <p>clearSelectors.</p>
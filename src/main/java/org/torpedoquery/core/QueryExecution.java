@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.core;
+
+import java.util.Map;
+
+import javax.persistence.LockModeType;
+
+public final class QueryExecution {
+
+	private final String fingerprint;
+	private final String query;
+	private final Map<String, Object> parameters;
+	private final long recordingNanos;
+	private final long renderingNanos;
+	private final long bindingNanos;
+	private final long executionNanos;
+	private final int rowCount;
+	private final int firstResult;
+	private final int maxResults;
+	private final LockModeType lockMode;
+
+	/**
+	 * <p>Constructor for QueryExecution.</p>
+	 *
+	 * @param fingerprint the shape of the query.
+	 * @param query the rendered query.
+	 * @param parameters the bound parameters by name or by position.
+	 * @param recordingNanos time spent recording the query with the proxies.
+	 * @param renderingNanos time spent rendering the query, 0 when it was already rendered.
+	 * @param bindingNanos time spent collecting and binding the parameters.
+	 * @param executionNanos time spent by the jpa provider and the database.
+	 * @param rowCount the returned or updated rows, -1 when unknown.
+	 */
+	public QueryExecution(String fingerprint, String query, Map<String, Object> parameters, long recordingNanos,
+			long renderingNanos, long bindingNanos, long executionNanos, int rowCount) {
+		this(fingerprint, query, parameters, recordingNanos, renderingNanos, bindingNanos, executionNanos, rowCount, 0,
+				0, null);
+	}
+
+	/**
+	 * <p>Constructor for QueryExecution.</p>
+	 *
+	 * @param fingerprint the shape of the query.
+	 * @param query the rendered query.
+	 * @param parameters the bound parameters by name or by position.
+	 * @param recordingNanos time spent recording the query with the proxies.
+	 * @param renderingNanos time spent rendering the query, 0 when it was already rendered.
+	 * @param bindingNanos time spent collecting and binding the parameters.
+	 * @param executionNanos time spent by the jpa provider and the database.
+	 * @param rowCount the returned or updated rows, -1 when unknown.
+	 * @param firstResult the first result position.
+	 * @param maxResults the max results, 0 when unlimited.
+	 * @param lockMode the lock mode, null when not set.
+	 */
+	public QueryExecution(String fingerprint, String query, Map<String, Object> parameters, long recordingNanos,
+			long renderingNanos, long bindingNanos, long executionNanos, int rowCount, int firstResult, int maxResults,
+			LockModeType lockMode) {
+		this.fingerprint = fingerprint;
+		this.query = query;
+		this.parameters = parameters;
+		this.recordingNanos = recordingNanos;
+		this.renderingNanos = renderingNanos;
+		this.bindingNanos = bindingNanos;
+		this.executionNanos = executionNanos;
+		this.rowCount = rowCount;
+		this.firstResult = firstResult;
+		this.maxResults = maxResults;
+		this.lockMode = lockMode;
+	}
+
+	/**
+	 * <p>Getter for the field <code>fingerprint</code>.</p>
+	 *
+	 * The same query built with different values has the same fingerprint
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * <p>Getter for the field <code>query</code>.</p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * <p>Getter for the field <code>parameters</code>.</p>
+	 *
+	 * @return a {@link java.util.Map} object.
+	 */
+	public Map<String, Object> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * <p>Getter for the field <code>recordingNanos</code>.</p>
+	 *
+	 * @return a long.
+	 */
+	public long getRecordingNanos() {
+		return recordingNanos;
+	}
+
+	/**
+	 * <p>Getter for the field <code>renderingNanos</code>.</p>
+	 *
+	 * @return a long.
+	 */
+	public long getRenderingNanos() {
+		return renderingNanos;
+	}
+
+	/**
+	 * <p>Getter for the field <code>bindingNanos</code>.</p>
+	 *
+	 * @return a long.
+	 */
+	public long getBindingNanos() {
+		return bindingNanos;
+	}
+
+	/**
+	 * <p>Getter for the field <code>executionNanos</code>.</p>
+	 *
+	 * @return a long.
+	 */
+	public long getExecutionNanos() {
+		return executionNanos;
+	}
+
+	/**
+	 * <p>Getter for the field <code>rowCount</code>.</p>
+	 *
+	 * @return a int.
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * <p>Getter for the field <code>firstResult</code>.</p>
+	 *
+	 * @return a int.
+	 */
+	public int getFirstResult() {
+		return firstResult;
+	}
+
+	/**
+	 * <p>Getter for the field <code>maxResults</code>.</p>
+	 *
+	 * @return 0 when unlimited
+	 */
+	public int getMaxResults() {
+		return maxResults;
+	}
+
+	/**
+	 * <p>Getter for the field <code>lockMode</code>.</p>
+	 *
+	 * @return null when not set
+	 */
+	public LockModeType getLockMode() {
+		return lockMode;
+	}
+
+	/**
+	 * <p>getTotalNanos.</p>
+	 *
+	 * @return the rendering, binding and execution time, the recording time is excluded because it contains the caller code
+	 */
+	public long getTotalNanos() {
+		return renderingNanos + bindingNanos + executionNanos;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return fingerprint + " " + query + " " + parameters;
+	}
+
+}
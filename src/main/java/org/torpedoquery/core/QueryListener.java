@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.core;
+
+public interface QueryListener {
+
+	/**
+	 * <p>executed.</p>
+	 *
+	 * Called after each execution of a query or of a bulk statement, in the
+	 * executing thread
+	 *
+	 * @param execution a {@link org.torpedoquery.core.QueryExecution} object.
+	 */
+	default void executed(QueryExecution execution) {
+	}
+
+	/**
+	 * <p>skipped.</p>
+	 *
+	 * Called when a query is answered without the database because its where
+	 * clause can not match
+	 *
+	 * @param execution a {@link org.torpedoquery.core.QueryExecution} object.
+	 */
+	default void skipped(QueryExecution execution) {
+	}
+
+	/**
+	 * <p>failed.</p>
+	 *
+	 * @param execution a {@link org.torpedoquery.core.QueryExecution} object without row count.
+	 * @param exception the exception thrown by the jpa provider.
+	 */
+	default void failed(QueryExecution execution, RuntimeException exception) {
+	}
+
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ *
+ * BatchResult is the result of Torpedo.batchGet() The rows are available by
+ * key with asMap or aligned to the requested keys order with asList, the keys
+ * without row are reported by getMissingKeys
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public interface BatchResult<K, T> {
+
+	/**
+	 * <p>
+	 * asMap.
+	 * </p>
+	 *
+	 * @return the loaded rows by key in the requested keys order
+	 */
+	Map<K, T> asMap();
+
+	/**
+	 * <p>
+	 * asList.
+	 * </p>
+	 *
+	 * @return one element by requested key in the same order, null when the
+	 *         key has no row
+	 */
+	List<T> asList();
+
+	/**
+	 * <p>
+	 * getMissingKeys.
+	 * </p>
+	 *
+	 * @return the requested keys without row
+	 */
+	Set<K> getMissingKeys();
+
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+/**
+ *
+ * BulkQuery is the result of Torpedo.update(), Torpedo.delete() and
+ * Torpedo.insertInto() The statement is applied directly in the database with
+ * execute, the entities are not loaded into the persistence context
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public interface BulkQuery {
+
+	/**
+	 * <p>
+	 * getQuery.
+	 * </p>
+	 *
+	 * @return the generated query string
+	 */
+	String getQuery();
+
+	/**
+	 * <p>
+	 * getParameters.
+	 * </p>
+	 *
+	 * @return query parameters
+	 */
+	Map<String, Object> getParameters();
+
+	/**
+	 * Execute the statement with executeUpdate
+	 *
+	 * @param entityManager
+	 *            a {@link javax.persistence.EntityManager} object.
+	 * @return the number of entities updated or deleted
+	 */
+	int execute(EntityManager entityManager);
+
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+/**
+ *
+ * ChunkProgress is the state of a chunked bulk update or delete after a
+ * committed chunk
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public interface ChunkProgress<K> {
+
+	/**
+	 * <p>
+	 * getChunks.
+	 * </p>
+	 *
+	 * @return the number of committed chunks
+	 */
+	int getChunks();
+
+	/**
+	 * <p>
+	 * getRows.
+	 * </p>
+	 *
+	 * @return the number of updated or deleted rows
+	 */
+	long getRows();
+
+	/**
+	 * <p>
+	 * getLastKey.
+	 * </p>
+	 *
+	 * @return the last processed key, use it to resume the run
+	 */
+	K getLastKey();
+
+	/**
+	 * <p>
+	 * getElapsedMillis.
+	 * </p>
+	 *
+	 * @return the time spent since the start of the run
+	 */
+	long getElapsedMillis();
+
+	/**
+	 * <p>
+	 * getRowsPerSecond.
+	 * </p>
+	 *
+	 * @return the throughput of the run
+	 */
+	double getRowsPerSecond();
+
+}
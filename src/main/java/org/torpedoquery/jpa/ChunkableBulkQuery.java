@@ -0,0 +1,45 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+/**
+ *
+ * ChunkableBulkQuery is a bulk update or delete of a single entity which can
+ * be applied by chunks of keys
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public interface ChunkableBulkQuery extends BulkQuery {
+
+	/**
+	 * Apply the statement by chunks of keys, each chunk in its own short
+	 * transaction
+	 *
+	 * delete(entity).inChunks(entity.getId(),
+	 * 1000).execute(entityManagerFactory);
+	 *
+	 * @param key
+	 *            the unique and ordered key property, ex: entity.getId()
+	 * @param chunkSize
+	 *            maximum number of rows by transaction
+	 * @param <K>
+	 *            a K object.
+	 * @return a {@link org.torpedoquery.jpa.ChunkedBulkQuery} object.
+	 */
+	<K> ChunkedBulkQuery<K> inChunks(K key, int chunkSize);
+
+}
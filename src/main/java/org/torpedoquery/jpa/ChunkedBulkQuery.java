@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ *
+ * ChunkedBulkQuery apply a bulk update or delete by chunks of keys. Each chunk
+ * select the next keys in key order with setMaxResults and mutate them with
+ * an in restriction in its own transaction, so locks and undo logs stay
+ * small. An interrupted run can be resumed from the last processed key.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public interface ChunkedBulkQuery<K> {
+
+	/**
+	 * Wait between two chunks
+	 *
+	 * @param pause
+	 *            a long.
+	 * @param unit
+	 *            a {@link java.util.concurrent.TimeUnit} object.
+	 * @return a {@link org.torpedoquery.jpa.ChunkedBulkQuery} object.
+	 */
+	ChunkedBulkQuery<K> pause(long pause, TimeUnit unit);
+
+	/**
+	 * Skip the keys lower or equal to the last processed key of a previous run
+	 *
+	 * @param lastKey
+	 *            a K object.
+	 * @return a {@link org.torpedoquery.jpa.ChunkedBulkQuery} object.
+	 */
+	ChunkedBulkQuery<K> resumeFrom(K lastKey);
+
+	/**
+	 * Called after each committed chunk
+	 *
+	 * @param listener
+	 *            a {@link java.util.function.Consumer} object.
+	 * @return a {@link org.torpedoquery.jpa.ChunkedBulkQuery} object.
+	 */
+	ChunkedBulkQuery<K> onProgress(Consumer<ChunkProgress<K>> listener);
+
+	/**
+	 * Execute the chunks until no key is left or the current thread is
+	 * interrupted
+	 *
+	 * @param entityManagerFactory
+	 *            used to create an entity manager and a resource local
+	 *            transaction by chunk
+	 * @return the progress of the last committed chunk
+	 */
+	ChunkProgress<K> execute(EntityManagerFactory entityManagerFactory);
+
+}
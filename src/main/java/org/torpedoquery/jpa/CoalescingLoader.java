@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
+
+/**
+ *
+ * Coalesce concurrent single entity lookups into one in query. Keys requested
+ * by different threads during the same window are loaded together and each
+ * caller receive only its own row.
+ *
+ * The rows are loaded with a dedicated entity manager created from the factory
+ * of the first caller of the window and closed before being returned, every
+ * caller receive a detached entity and the persistence context of the callers
+ * is never touched. Lazy associations not fetched by the query can not be
+ * loaded from it, merge it in your own entity manager to modify it.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public interface CoalescingLoader<K, T> {
+
+	/**
+	 * <p>
+	 * get.
+	 * </p>
+	 *
+	 * @param key
+	 *            the key to load
+	 * @param entityManager
+	 *            a {@link javax.persistence.EntityManager} object.
+	 * @return a {@link java.util.Optional} object.
+	 */
+	Optional<T> get(K key, EntityManager entityManager);
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ * Execute an in subquery before its outer query and bind the selected values
+ * as an in list. When the subquery select more than the maximum size, the
+ * subquery is kept in the outer query.
+ *
+ * Only uncorrelated subqueries can be materialized, the values are selected
+ * once by outer query instance.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public final class Materialization implements Serializable {
+
+	private final int maxSize;
+	private final long timeToLiveMillis;
+
+	private Materialization(int maxSize, long timeToLiveMillis) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("maxSize must be greater than 0");
+		}
+		if (timeToLiveMillis < 0) {
+			throw new IllegalArgumentException("timeToLive must not be negative");
+		}
+		this.maxSize = maxSize;
+		this.timeToLiveMillis = timeToLiveMillis;
+	}
+
+	/**
+	 * <p>
+	 * upTo.
+	 * </p>
+	 *
+	 * @param maxSize
+	 *            the maximum number of values bound in place of the subquery
+	 * @return a {@link org.torpedoquery.jpa.Materialization} object, the
+	 *         subquery is executed each time
+	 */
+	public static Materialization upTo(int maxSize) {
+		return new Materialization(maxSize, 0);
+	}
+
+	/**
+	 * <p>
+	 * cachedFor.
+	 * </p>
+	 *
+	 * @param duration
+	 *            how long the selected values are reused by the subqueries
+	 *            with the same query and parameters
+	 * @param unit
+	 *            a {@link java.util.concurrent.TimeUnit} object.
+	 * @return a {@link org.torpedoquery.jpa.Materialization} object.
+	 */
+	public Materialization cachedFor(long duration, TimeUnit unit) {
+		return new Materialization(maxSize, unit.toMillis(duration));
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>maxSize</code>.
+	 * </p>
+	 *
+	 * @return a int.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>timeToLiveMillis</code>.
+	 * </p>
+	 *
+	 * @return 0 when the values are not cached
+	 */
+	public long getTimeToLiveMillis() {
+		return timeToLiveMillis;
+	}
+
+}
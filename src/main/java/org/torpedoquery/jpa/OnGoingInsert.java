@@ -0,0 +1,37 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+/**
+ *
+ * OnGoingInsert wait for the select query feeding the inserted rows
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public interface OnGoingInsert<T> {
+
+	/**
+	 * Insert the rows of the query, the selected values must follow the
+	 * order of the target properties
+	 *
+	 * @param query
+	 *            a {@link org.torpedoquery.jpa.Query} object.
+	 * @return a {@link org.torpedoquery.jpa.BulkQuery} object.
+	 */
+	BulkQuery select(Query<?> query);
+
+}
@@ -0,0 +1,42 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+/**
+ *
+ * OnGoingUpdate collect the assignments of an update statement
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public interface OnGoingUpdate<T> extends ChunkableBulkQuery {
+
+	/**
+	 * Assign a value to a property of the updated entity
+	 *
+	 * update(entity).set(entity.getName(), "newName");
+	 *
+	 * @param property
+	 *            the property to update
+	 * @param value
+	 *            a value, another property or a subquery
+	 * @param <V>
+	 *            a V object.
+	 * @return a {@link org.torpedoquery.jpa.OnGoingUpdate} object.
+	 */
+	<V> OnGoingUpdate<T> set(V property, V value);
+
+}
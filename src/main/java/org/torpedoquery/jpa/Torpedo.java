@@ -18,16 +18,30 @@ package org.torpedoquery.jpa;
 import static org.torpedoquery.jpa.internal.TorpedoMagic.getTorpedoMethodHandler;
 import static org.torpedoquery.jpa.internal.TorpedoMagic.setQuery;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.internal.Condition;
+import org.torpedoquery.jpa.internal.MethodCall;
 import org.torpedoquery.jpa.internal.Selector;
 import org.torpedoquery.jpa.internal.TorpedoMagic;
 import org.torpedoquery.jpa.internal.TorpedoProxy;
+import org.torpedoquery.jpa.internal.batch.DefaultBatchResult;
+import org.torpedoquery.jpa.internal.batch.DefaultCoalescingLoader;
+import org.torpedoquery.jpa.internal.batch.KeyedLoader;
 import org.torpedoquery.jpa.internal.conditions.EmptyLogicalCondition;
+import org.torpedoquery.jpa.internal.conditions.ExistsCondition;
+import org.torpedoquery.jpa.internal.conditions.LogicalCondition;
+import org.torpedoquery.jpa.internal.conditions.NotExistsCondition;
 import org.torpedoquery.jpa.internal.handlers.ArrayCallHandler;
 import org.torpedoquery.jpa.internal.handlers.GroupingConditionHandler;
 import org.torpedoquery.jpa.internal.handlers.InnerJoinHandler;
@@ -39,8 +53,11 @@ import org.torpedoquery.jpa.internal.joins.InnerJoinBuilder;
 import org.torpedoquery.jpa.internal.joins.LeftJoinBuilder;
 import org.torpedoquery.jpa.internal.joins.RightJoinBuilder;
 import org.torpedoquery.jpa.internal.query.DefaultQueryBuilder;
+import org.torpedoquery.jpa.internal.query.DeleteQueryBuilder;
 import org.torpedoquery.jpa.internal.query.GroupBy;
+import org.torpedoquery.jpa.internal.query.InsertQueryBuilder;
 import org.torpedoquery.jpa.internal.query.OrderBy;
+import org.torpedoquery.jpa.internal.query.UpdateQueryBuilder;
 import org.torpedoquery.jpa.internal.utils.DoNothingQueryConfigurator;
 import org.torpedoquery.jpa.internal.utils.TorpedoMethodHandler;
 import org.torpedoquery.jpa.internal.utils.WhereQueryConfigurator;
@@ -96,6 +113,8 @@ import com.google.common.base.Throwables;
  */
 public class Torpedo extends TorpedoFunction {
 
+	private static final int DEFAULT_BATCH_SIZE = 500;
+
 	/**
 	 *
 	 * MyObject queryBuilder = from(MyObject.class);
@@ -112,7 +131,7 @@ public class Torpedo extends TorpedoFunction {
 			DefaultQueryBuilder queryBuilder = new DefaultQueryBuilder(toQuery);
 			TorpedoMethodHandler fjpaMethodHandler = new TorpedoMethodHandler(queryBuilder);
 
-			T from = TorpedoMagic.getProxyfactoryfactory().createProxy(fjpaMethodHandler, TorpedoProxy.class, toQuery);
+			T from = TorpedoMagic.getProxyEngine().createProxy(fjpaMethodHandler, TorpedoProxy.class, toQuery);
 
 			fjpaMethodHandler.addQueryBuilder(from, queryBuilder);
 
@@ -144,7 +163,7 @@ public class Torpedo extends TorpedoFunction {
 		try {
 
 			TorpedoMethodHandler fjpaMethodHandler = getTorpedoMethodHandler();
-			E proxy = TorpedoMagic.getProxyfactoryfactory().createProxy(fjpaMethodHandler, TorpedoProxy.class, subclass);
+			E proxy = TorpedoMagic.getProxyEngine().createProxy(fjpaMethodHandler, TorpedoProxy.class, subclass);
 
 			QueryBuilder queryBuilder = fjpaMethodHandler.getQueryBuilder(toExtend);
 			fjpaMethodHandler.addQueryBuilder(proxy, queryBuilder);
@@ -230,6 +249,89 @@ public class Torpedo extends TorpedoFunction {
 
 	}
 
+	/**
+	 * Create a bulk update of the entity, the restrictions are the where
+	 * clause of the entity query
+	 *
+	 * Entity entity = from(Entity.class); where(entity.getCode()).eq("old");
+	 * int updated = update(entity).set(entity.getName(),
+	 * "new").execute(entityManager);
+	 *
+	 * @param proxy
+	 *            the entity created by from
+	 * @param <T>
+	 *            a T object.
+	 * @return a {@link org.torpedoquery.jpa.OnGoingUpdate} object.
+	 */
+	public static <T> OnGoingUpdate<T> update(T proxy) {
+		return new UpdateQueryBuilder<>(getBulkMethodHandler(proxy));
+	}
+
+	/**
+	 * Create a bulk delete of the entity, the restrictions are the where
+	 * clause of the entity query
+	 *
+	 * Entity entity = from(Entity.class); where(entity.getCode()).eq("old");
+	 * int deleted = delete(entity).execute(entityManager);
+	 *
+	 * @param proxy
+	 *            the entity created by from
+	 * @param <T>
+	 *            a T object.
+	 * @return a {@link org.torpedoquery.jpa.ChunkableBulkQuery} object.
+	 */
+	public static <T> ChunkableBulkQuery delete(T proxy) {
+		return new DeleteQueryBuilder<>(getBulkMethodHandler(proxy));
+	}
+
+	/**
+	 * Create an insert of the rows selected by a query, the rows never leave
+	 * the database
+	 *
+	 * Entity entity = from(Entity.class); where(entity.isActive()).eq(false);
+	 * int inserted = insertInto(Archive.class, Archive::getCode,
+	 * Archive::getName).select(select(entity.getCode(),
+	 * entity.getName())).execute(entityManager);
+	 *
+	 * @param target
+	 *            the inserted entity
+	 * @param properties
+	 *            the target properties in the order of the selected values
+	 * @param <T>
+	 *            a T object.
+	 * @return a {@link org.torpedoquery.jpa.OnGoingInsert} object.
+	 */
+	@SafeVarargs
+	public static <T> OnGoingInsert<T> insertInto(Class<T> target,
+			java.util.function.Function<T, ?>... properties) {
+		DefaultQueryBuilder<T> queryBuilder = new DefaultQueryBuilder<>(target);
+		TorpedoMethodHandler methodHandler = new TorpedoMethodHandler(queryBuilder);
+		T proxy = TorpedoMagic.getProxyEngine().createProxy(methodHandler, TorpedoProxy.class, target);
+
+		List<String> paths = new ArrayList<>();
+		for (int i = 0; i < properties.length; i++) {
+			properties[i].apply(proxy);
+			MethodCall methodCall = methodHandler.getMethods().pollFirst();
+			if (methodCall == null) {
+				throw new IllegalArgumentException("The insert property at index " + i + " does not call a getter");
+			}
+			paths.add(methodCall.getFullPath());
+		}
+
+		return new InsertQueryBuilder<>(queryBuilder.getEntityName(), paths);
+	}
+
+	private static TorpedoMethodHandler getBulkMethodHandler(Object proxy) {
+		if (!(proxy instanceof TorpedoProxy)) {
+			throw new IllegalArgumentException("Bulk update and delete need the entity created by from()");
+		}
+		TorpedoMethodHandler methodHandler = ((TorpedoProxy) proxy).getTorpedoMethodHandler();
+		if (methodHandler.getQueryBuilder(proxy) != methodHandler.getRoot()) {
+			throw new IllegalArgumentException("Bulk update and delete need the entity created by from()");
+		}
+		return methodHandler;
+	}
+
 	/**
 	 * Create HQL inner join
 	 *
@@ -951,6 +1053,46 @@ public class Torpedo extends TorpedoFunction {
 		return orCondition;
 	}
 
+	/**
+	 * Create an exists condition on a subquery, the subquery can reference
+	 * the outer query properties for correlation. The condition belongs to the
+	 * current query, create the subquery before the outer query or use a
+	 * property of the outer query last
+	 *
+	 * SubEntity subEntity = from(SubEntity.class); Entity entity =
+	 * from(Entity.class);
+	 * where(subEntity.getCode()).eq(entity.getCode());
+	 * where(exists(select(subEntity)));
+	 *
+	 * @param subquery
+	 *            a {@link org.torpedoquery.jpa.Query} object.
+	 * @return a {@link org.torpedoquery.jpa.OnGoingLogicalCondition} object.
+	 */
+	public static OnGoingLogicalCondition exists(Query<?> subquery) {
+		return subqueryCondition(subquery, new ExistsCondition<>(subquery));
+	}
+
+	/**
+	 * Create a not exists condition on a subquery
+	 *
+	 * @see #exists(Query)
+	 * @param subquery
+	 *            a {@link org.torpedoquery.jpa.Query} object.
+	 * @return a {@link org.torpedoquery.jpa.OnGoingLogicalCondition} object.
+	 */
+	public static OnGoingLogicalCondition notExists(Query<?> subquery) {
+		return subqueryCondition(subquery, new NotExistsCondition<>(subquery));
+	}
+
+	private static OnGoingLogicalCondition subqueryCondition(Query<?> subquery, Condition condition) {
+		QueryBuilder<?> root = getTorpedoMethodHandler().getRoot();
+		if (root == subquery) {
+			throw new IllegalArgumentException(
+					"The subquery is the current query, create the subquery before the outer query or use an outer query property last");
+		}
+		return new LogicalCondition<>(root, condition);
+	}
+
 	/**
 	 * Add group by to the relative query builder
 	 *
@@ -1013,6 +1155,91 @@ public class Torpedo extends TorpedoFunction {
 		getTorpedoMethodHandler().addParam(param);
 		return param;
 	}
-	
+
+	/**
+	 * Create a loader merging the concurrent lookups of the same entity into
+	 * a single in query, the returned entities are detached
+	 *
+	 * CoalescingLoader&lt;String, User&gt; loader = coalescing(User.class,
+	 * User::getId, 5, TimeUnit.MILLISECONDS, 100); Optional&lt;User&gt; user =
+	 * loader.get(id, entityManager);
+	 *
+	 * @param toQuery
+	 *            a {@link java.lang.Class} object.
+	 * @param keySelector
+	 *            the key property, ex: User::getId
+	 * @param window
+	 *            how long the first lookup wait for other keys
+	 * @param unit
+	 *            a {@link java.util.concurrent.TimeUnit} object.
+	 * @param maxBatchSize
+	 *            maximum number of keys by query
+	 * @param <K>
+	 *            a K object.
+	 * @param <T>
+	 *            a T object.
+	 * @return a {@link org.torpedoquery.jpa.CoalescingLoader} object.
+	 */
+	public static <K, T> CoalescingLoader<K, T> coalescing(Class<T> toQuery, java.util.function.Function<T, K> keySelector,
+			long window, TimeUnit unit, int maxBatchSize) {
+		return new DefaultCoalescingLoader<>(new KeyedLoader<>(toQuery, keySelector, maxBatchSize), window, unit,
+				maxBatchSize);
+	}
+
+	/**
+	 * Load the rows matching the keys with chunked in queries
+	 *
+	 * BatchResult&lt;String, User&gt; users = batchGet(User.class,
+	 * User::getId, ids, entityManager); List&lt;User&gt; ordered =
+	 * users.asList();
+	 *
+	 * @param toQuery
+	 *            a {@link java.lang.Class} object.
+	 * @param keySelector
+	 *            the key property, ex: User::getId
+	 * @param keys
+	 *            the keys to load, duplicated and null keys are queried once
+	 *            or not at all
+	 * @param entityManager
+	 *            a {@link javax.persistence.EntityManager} object.
+	 * @param <K>
+	 *            a K object.
+	 * @param <T>
+	 *            a T object.
+	 * @return a {@link org.torpedoquery.jpa.BatchResult} object.
+	 */
+	public static <K, T> BatchResult<K, T> batchGet(Class<T> toQuery, java.util.function.Function<T, K> keySelector,
+			Collection<K> keys, EntityManager entityManager) {
+		return batchGet(toQuery, keySelector, keys, entityManager, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Load the rows matching the keys with in queries of at most chunkSize
+	 * keys
+	 *
+	 * @param toQuery
+	 *            a {@link java.lang.Class} object.
+	 * @param keySelector
+	 *            the key property, ex: User::getId
+	 * @param keys
+	 *            the keys to load
+	 * @param entityManager
+	 *            a {@link javax.persistence.EntityManager} object.
+	 * @param chunkSize
+	 *            maximum number of keys by query
+	 * @param <K>
+	 *            a K object.
+	 * @param <T>
+	 *            a T object.
+	 * @return a {@link org.torpedoquery.jpa.BatchResult} object.
+	 */
+	public static <K, T> BatchResult<K, T> batchGet(Class<T> toQuery, java.util.function.Function<T, K> keySelector,
+			Collection<K> keys, EntityManager entityManager, int chunkSize) {
+		Set<K> distinctKeys = new LinkedHashSet<>(keys);
+		distinctKeys.remove(null);
+		Map<K, T> rows = new KeyedLoader<>(toQuery, keySelector, chunkSize).load(distinctKeys, entityManager);
+		return new DefaultBatchResult<>(keys, rows);
+	}
+
 
 }
@@ -110,6 +110,15 @@ public interface ValueOnGoingCondition<T> extends OnGoingCondition<T> {
 	 */
 	OnGoingLogicalCondition in(Query<T> subQuery);
 
+	/**
+	 * <p>in.</p>
+	 *
+	 * @param subQuery an uncorrelated {@link org.torpedoquery.jpa.Query}.
+	 * @param materialization how the subquery is executed before the query.
+	 * @return a {@link org.torpedoquery.jpa.OnGoingLogicalCondition} object.
+	 */
+	OnGoingLogicalCondition in(Query<T> subQuery, Materialization materialization);
+
 	/**
 	 * <p>notIn.</p>
 	 *
@@ -19,9 +19,9 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.core.QueryBuilder;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 import org.torpedoquery.jpa.internal.query.SubqueryValueParameters;
 import org.torpedoquery.jpa.internal.query.ValueParameter;
 
@@ -33,10 +33,10 @@ public interface Condition extends Serializable {
 	 * </p>
 	 *
 	 * @param incrementor
-	 *            a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	String createQueryFragment(AtomicInteger incrementor);
+	String createQueryFragment(RenderContext incrementor);
 
 	/**
 	 * <p>
@@ -59,6 +59,18 @@ public interface Condition extends Serializable {
 		return valueParameters;
 	}
 
+	/**
+	 * <p>
+	 * isAlwaysFalse.
+	 * </p>
+	 *
+	 * @return true when the condition can not match any row whatever the
+	 *         database content
+	 */
+	default boolean isAlwaysFalse() {
+		return false;
+	}
+
 	default <T> QueryBuilder<T> getBuilder(){
 		return null;
 	}
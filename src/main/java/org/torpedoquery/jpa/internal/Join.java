@@ -21,8 +21,10 @@ package org.torpedoquery.jpa.internal;
 
 import java.io.Serializable;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.persistence.EntityManager;
+
+import org.torpedoquery.jpa.internal.query.RenderContext;
 import org.torpedoquery.jpa.internal.query.ValueParameter;
 public interface Join extends Serializable {
 
@@ -30,18 +32,18 @@ public interface Join extends Serializable {
 	 * <p>appendWhereClause.</p>
 	 *
 	 * @param builder a {@link java.lang.StringBuilder} object.
-	 * @param incrementor a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 * @param incrementor a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 */
-	void appendWhereClause(StringBuilder builder, AtomicInteger incrementor);
+	void appendWhereClause(StringBuilder builder, RenderContext incrementor);
 
 	/**
 	 * <p>getJoin.</p>
 	 *
 	 * @param alias a {@link java.lang.String} object.
-	 * @param incrementor a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 * @param incrementor a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	String getJoin(String alias, AtomicInteger incrementor);
+	String getJoin(String alias, RenderContext incrementor);
 
 	/**
 	 * <p>getParams.</p>
@@ -54,8 +56,40 @@ public interface Join extends Serializable {
 	 * <p>appendGroupBy.</p>
 	 *
 	 * @param builder a {@link java.lang.StringBuilder} object.
-	 * @param incrementor a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 * @param incrementor a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
+	 */
+	void appendGroupBy(StringBuilder builder, RenderContext incrementor);
+
+	/**
+	 * <p>mergeInto.</p>
+	 *
+	 * An identical join share the alias and the sub joins of the first one and
+	 * is not rendered anymore
+	 *
+	 * @param join a join rendered before this one on the same parent.
+	 * @return true when this join has been merged into the given one
+	 */
+	boolean mergeInto(Join join);
+
+	/**
+	 * <p>mergeDuplicateJoins.</p>
+	 */
+	void mergeDuplicateJoins();
+
+	/**
+	 * <p>eliminateUnusedJoins.</p>
+	 *
+	 * @param query the query rendered with this join.
+	 * @param incrementor a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
+	 * @return true when this join or one of its sub joins has been removed
+	 */
+	boolean eliminateUnusedJoins(String query, RenderContext incrementor);
+
+	/**
+	 * <p>materializeSubqueries.</p>
+	 *
+	 * @param entityManager a {@link javax.persistence.EntityManager} object.
 	 */
-	void appendGroupBy(StringBuilder builder, AtomicInteger incrementor);
+	void materializeSubqueries(EntityManager entityManager);
 
 }
@@ -20,15 +20,16 @@
 package org.torpedoquery.jpa.internal;
 
 import java.io.Serializable;
-import java.util.concurrent.atomic.AtomicInteger;
+
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public interface Parameter<T> extends Serializable {
 
 	/**
 	 * <p>generate.</p>
 	 *
-	 * @param incrementor a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 * @param incrementor a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	public String generate(AtomicInteger incrementor);
+	public String generate(RenderContext incrementor);
 
 }
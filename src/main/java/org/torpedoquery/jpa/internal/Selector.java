@@ -20,16 +20,17 @@
 package org.torpedoquery.jpa.internal;
 
 import java.io.Serializable;
-import java.util.concurrent.atomic.AtomicInteger;
+
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public interface Selector<T> extends Serializable {
 
 	/**
 	 * <p>createQueryFragment.</p>
 	 *
-	 * @param incrementor a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 * @param incrementor a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	String createQueryFragment(AtomicInteger incrementor);
+	String createQueryFragment(RenderContext incrementor);
 
 	/**
 	 * <p>generateParameter.</p>
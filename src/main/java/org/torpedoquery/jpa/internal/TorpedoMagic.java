@@ -19,10 +19,20 @@
  */
 package org.torpedoquery.jpa.internal;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.torpedoquery.core.ConditionOptimizer;
+import org.torpedoquery.core.ParameterBinding;
+import org.torpedoquery.core.ProxyEngine;
 import org.torpedoquery.core.QueryBuilderFactory;
+import org.torpedoquery.core.QueryListener;
+import org.torpedoquery.jpa.internal.query.AdaptiveFetchSize;
 import org.torpedoquery.jpa.internal.utils.MultiClassLoaderProvider;
+import org.torpedoquery.jpa.internal.utils.PregeneratedProxyEngine;
 import org.torpedoquery.jpa.internal.utils.ProxyFactoryFactory;
 import org.torpedoquery.jpa.internal.utils.TorpedoMethodHandler;
 public final class TorpedoMagic {
@@ -30,9 +40,19 @@ public final class TorpedoMagic {
 	private static final ThreadLocal<TorpedoProxy> query = new ThreadLocal<>();
 	private static AtomicReference<QueryBuilderFactory> factory = new AtomicReference<>(
 			new DefaultQueryBuilderFactory());
+	private static AtomicReference<ConditionOptimizer> conditionOptimizer = new AtomicReference<>(
+			condition -> condition);
+	private static AtomicReference<ParameterBinding> parameterBinding = new AtomicReference<>(
+			ParameterBinding.NAMED);
+	private static final AtomicBoolean unusedJoinElimination = new AtomicBoolean();
+	private static final AtomicReference<AdaptiveFetchSize> adaptiveFetchSize = new AtomicReference<>();
+	private static final List<QueryListener> queryListeners = new CopyOnWriteArrayList<>();
+	private static final List<QueryListener> readOnlyQueryListeners = Collections.unmodifiableList(queryListeners);
 	
 	private static final ProxyFactoryFactory proxyFactoryFactory = new ProxyFactoryFactory(
 			new MultiClassLoaderProvider());
+	private static AtomicReference<ProxyEngine> proxyEngine = new AtomicReference<>(
+			new PregeneratedProxyEngine(proxyFactoryFactory));
 
 	private TorpedoMagic() {
 	}
@@ -74,6 +94,91 @@ public final class TorpedoMagic {
 		factory.set(queryBuilderFactory);
 	}
 
+	/**
+	 * <p>getConditionOptimizer.</p>
+	 *
+	 * @return a {@link org.torpedoquery.core.ConditionOptimizer} object.
+	 */
+	public static ConditionOptimizer getConditionOptimizer() {
+		return conditionOptimizer.get();
+	}
+
+	/**
+	 * <p>setup.</p>
+	 *
+	 * The optimizer rewrite the where and with clauses before their first
+	 * rendering, by default the conditions are rendered as written
+	 *
+	 * @param optimizer a {@link org.torpedoquery.core.ConditionOptimizer} object.
+	 */
+	public static void setup(ConditionOptimizer optimizer) {
+		conditionOptimizer.set(optimizer);
+	}
+
+	/**
+	 * <p>getParameterBinding.</p>
+	 *
+	 * @return a {@link org.torpedoquery.core.ParameterBinding} object.
+	 */
+	public static ParameterBinding getParameterBinding() {
+		return parameterBinding.get();
+	}
+
+	/**
+	 * <p>setup.</p>
+	 *
+	 * The binding is chosen at the first rendering of each query, named by
+	 * default
+	 *
+	 * @param binding a {@link org.torpedoquery.core.ParameterBinding} object.
+	 */
+	public static void setup(ParameterBinding binding) {
+		parameterBinding.set(binding);
+	}
+
+	/**
+	 * <p>isUnusedJoinElimination.</p>
+	 *
+	 * @return true when the unused inner joins are removed from the queries
+	 */
+	public static boolean isUnusedJoinElimination() {
+		return unusedJoinElimination.get();
+	}
+
+	/**
+	 * <p>setUnusedJoinElimination.</p>
+	 *
+	 * An inner join whose alias is never referenced only filter the rows
+	 * without a joined entity and repeat the rows of a collection, disabled by
+	 * default
+	 *
+	 * @param enabled a boolean.
+	 */
+	public static void setUnusedJoinElimination(boolean enabled) {
+		unusedJoinElimination.set(enabled);
+	}
+
+	/**
+	 * <p>getAdaptiveFetchSize.</p>
+	 *
+	 * @return null when disabled
+	 */
+	public static AdaptiveFetchSize getAdaptiveFetchSize() {
+		return adaptiveFetchSize.get();
+	}
+
+	/**
+	 * <p>setAdaptiveFetchSize.</p>
+	 *
+	 * The fetch size hint of the listed queries follow the row count of their
+	 * previous executions, disabled by default
+	 *
+	 * @param fetchSize null to disable
+	 */
+	public static void setAdaptiveFetchSize(AdaptiveFetchSize fetchSize) {
+		adaptiveFetchSize.set(fetchSize);
+	}
+
 	/**
 	 * <p>getProxyfactoryfactory.</p>
 	 *
@@ -83,4 +188,58 @@ public final class TorpedoMagic {
 		return proxyFactoryFactory;
 	}
 
+	/**
+	 * <p>getProxyEngine.</p>
+	 *
+	 * @return a {@link org.torpedoquery.core.ProxyEngine} object.
+	 */
+	public static ProxyEngine getProxyEngine() {
+		return proxyEngine.get();
+	}
+
+	/**
+	 * <p>setup.</p>
+	 *
+	 * By default the proxy classes written at build time are used first, then
+	 * the javassist engine returned by getProxyfactoryfactory. The hidden
+	 * class engine is enabled with
+	 * setup(new HiddenClassProxyEngine(getProxyEngine())), it allocates its
+	 * proxies with sun.misc.Unsafe
+	 *
+	 * @param engine a {@link org.torpedoquery.core.ProxyEngine} object.
+	 */
+	public static void setup(ProxyEngine engine) {
+		proxyEngine.set(engine);
+	}
+
+	/**
+	 * <p>addQueryListener.</p>
+	 *
+	 * The listeners are called in the executing thread, in their order of
+	 * registration
+	 *
+	 * @param listener a {@link org.torpedoquery.core.QueryListener} object.
+	 */
+	public static void addQueryListener(QueryListener listener) {
+		queryListeners.add(listener);
+	}
+
+	/**
+	 * <p>removeQueryListener.</p>
+	 *
+	 * @param listener a {@link org.torpedoquery.core.QueryListener} object.
+	 */
+	public static void removeQueryListener(QueryListener listener) {
+		queryListeners.remove(listener);
+	}
+
+	/**
+	 * <p>getQueryListeners.</p>
+	 *
+	 * @return the registered listeners, read only
+	 */
+	public static List<QueryListener> getQueryListeners() {
+		return readOnlyQueryListeners;
+	}
+
 }
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.batch;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.torpedoquery.jpa.BatchResult;
+
+public class DefaultBatchResult<K, T> implements BatchResult<K, T> {
+
+	private final Map<K, T> rows;
+	private final List<T> ordered;
+	private final Set<K> missingKeys;
+
+	/**
+	 * <p>
+	 * Constructor for DefaultBatchResult.
+	 * </p>
+	 *
+	 * @param keys
+	 *            the requested keys
+	 * @param loaded
+	 *            the loaded rows by key
+	 */
+	public DefaultBatchResult(Collection<K> keys, Map<K, T> loaded) {
+		Map<K, T> rows = new LinkedHashMap<>();
+		List<T> ordered = new ArrayList<>(keys.size());
+		Set<K> missingKeys = new LinkedHashSet<>();
+
+		for (K key : keys) {
+			T row = loaded.get(key);
+			ordered.add(row);
+			if (row != null) {
+				rows.put(key, row);
+			} else {
+				missingKeys.add(key);
+			}
+		}
+
+		this.rows = Collections.unmodifiableMap(rows);
+		this.ordered = Collections.unmodifiableList(ordered);
+		this.missingKeys = Collections.unmodifiableSet(missingKeys);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Map<K, T> asMap() {
+		return rows;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<T> asList() {
+		return ordered;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Set<K> getMissingKeys() {
+		return missingKeys;
+	}
+
+}
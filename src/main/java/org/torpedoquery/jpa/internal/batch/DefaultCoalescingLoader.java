@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.batch;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.torpedoquery.jpa.CoalescingLoader;
+
+import com.google.common.base.Throwables;
+
+public class DefaultCoalescingLoader<K, T> implements CoalescingLoader<K, T> {
+
+	private static class Batch<K, T> {
+		private final Set<K> keys = new LinkedHashSet<>();
+		private final CompletableFuture<Map<K, T>> rows = new CompletableFuture<>();
+	}
+
+	private final KeyedLoader<K, T> loader;
+	private final long windowNanos;
+	private final int maxBatchSize;
+
+	// guarded by this
+	private Batch<K, T> pending;
+
+	/**
+	 * <p>
+	 * Constructor for DefaultCoalescingLoader.
+	 * </p>
+	 *
+	 * @param loader
+	 *            a {@link org.torpedoquery.jpa.internal.batch.KeyedLoader}
+	 *            object.
+	 * @param window
+	 *            how long the first caller wait for other keys
+	 * @param unit
+	 *            a {@link java.util.concurrent.TimeUnit} object.
+	 * @param maxBatchSize
+	 *            the batch is executed as soon as it contains this number of
+	 *            keys
+	 */
+	public DefaultCoalescingLoader(KeyedLoader<K, T> loader, long window, TimeUnit unit, int maxBatchSize) {
+		if (maxBatchSize <= 0) {
+			throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+		}
+		this.loader = loader;
+		this.windowNanos = unit.toNanos(window);
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Optional<T> get(K key, EntityManager entityManager) {
+		Batch<K, T> batch;
+		boolean leader;
+
+		synchronized (this) {
+			leader = pending == null;
+			if (leader) {
+				pending = new Batch<>();
+			}
+			batch = pending;
+			batch.keys.add(key);
+
+			if (batch.keys.size() >= maxBatchSize) {
+				pending = null;
+				notifyAll();
+			}
+		}
+
+		if (leader) {
+			awaitWindow(batch);
+			try {
+				batch.rows.complete(load(batch.keys, entityManager));
+			} catch (Throwable e) {
+				batch.rows.completeExceptionally(e);
+			}
+		}
+
+		return Optional.ofNullable(join(batch).get(key));
+	}
+
+	// the rows are handed to other threads, they are loaded in a dedicated
+	// entity manager so the persistence context of the leader is never
+	// touched, closing it detach them
+	private Map<K, T> load(Set<K> keys, EntityManager entityManager) {
+		EntityManager batchManager = entityManager.getEntityManagerFactory().createEntityManager();
+		try {
+			return loader.load(keys, batchManager);
+		} finally {
+			batchManager.close();
+		}
+	}
+
+	private synchronized void awaitWindow(Batch<K, T> batch) {
+		long deadline = System.nanoTime() + windowNanos;
+		long remaining = windowNanos;
+
+		while (pending == batch && remaining > 0) {
+			try {
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			remaining = deadline - System.nanoTime();
+		}
+
+		if (pending == batch) {
+			pending = null;
+		}
+	}
+
+	private Map<K, T> join(Batch<K, T> batch) {
+		try {
+			return batch.rows.join();
+		} catch (CompletionException e) {
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.batch;
+
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+
+public class KeyedLoader<K, T> {
+
+	private final Class<T> toQuery;
+	private final Function<T, K> keySelector;
+	private final int chunkSize;
+
+	/**
+	 * <p>
+	 * Constructor for KeyedLoader.
+	 * </p>
+	 *
+	 * @param toQuery
+	 *            a {@link java.lang.Class} object.
+	 * @param keySelector
+	 *            called on the query proxy to select the key property and on
+	 *            each loaded row to read its key
+	 * @param chunkSize
+	 *            maximum number of keys by in query
+	 */
+	public KeyedLoader(Class<T> toQuery, Function<T, K> keySelector, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be greater than 0");
+		}
+		this.toQuery = toQuery;
+		this.keySelector = keySelector;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * <p>
+	 * load.
+	 * </p>
+	 *
+	 * @param keys
+	 *            a {@link java.util.Collection} object.
+	 * @param entityManager
+	 *            a {@link javax.persistence.EntityManager} object.
+	 * @return the loaded rows by key, missing keys are absent
+	 */
+	public Map<K, T> load(Collection<K> keys, EntityManager entityManager) {
+		Map<K, T> rows = new HashMap<>();
+		List<K> chunk = new ArrayList<>(Math.min(chunkSize, keys.size()));
+
+		for (K key : keys) {
+			chunk.add(key);
+			if (chunk.size() == chunkSize) {
+				loadChunk(chunk, entityManager, rows);
+				chunk.clear();
+			}
+		}
+
+		if (!chunk.isEmpty()) {
+			loadChunk(chunk, entityManager, rows);
+		}
+
+		return rows;
+	}
+
+	private void loadChunk(List<K> chunk, EntityManager entityManager, Map<K, T> rows) {
+		T from = from(toQuery);
+		where(keySelector.apply(from)).in(new ArrayList<>(chunk));
+
+		for (T row : select(from).list(entityManager)) {
+			rows.put(keySelector.apply(row), row);
+		}
+	}
+
+}
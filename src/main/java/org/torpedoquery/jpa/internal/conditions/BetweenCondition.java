@@ -20,10 +20,10 @@
 package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public class BetweenCondition<T> extends AbstractCondition<T> {
 
 	/**
@@ -38,7 +38,7 @@ public class BetweenCondition<T> extends AbstractCondition<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return getSelector().createQueryFragment(incrementor) + " between " + getParameters().get(0).generate(incrementor) + " and "
 				+ getParameters().get(1).generate(incrementor);
 	}
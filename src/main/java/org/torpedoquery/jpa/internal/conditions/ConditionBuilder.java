@@ -24,11 +24,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.ComparableFunction;
 import org.torpedoquery.jpa.Function;
+import org.torpedoquery.jpa.Materialization;
 import org.torpedoquery.jpa.OnGoingCollectionCondition;
 import org.torpedoquery.jpa.OnGoingComparableCondition;
 import org.torpedoquery.jpa.OnGoingLikeCondition;
@@ -39,6 +39,8 @@ import org.torpedoquery.jpa.internal.Condition;
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
 import org.torpedoquery.jpa.internal.conditions.LikeCondition.Type;
+import org.torpedoquery.jpa.internal.query.RenderContext;
+import org.torpedoquery.jpa.internal.query.ValueParameter;
 import org.torpedoquery.jpa.internal.selectors.NotSelector;
 import org.torpedoquery.jpa.internal.selectors.SizeSelector;
 public class ConditionBuilder<T> implements OnGoingComparableCondition<T>, OnGoingStringCondition<T>,
@@ -93,6 +95,23 @@ public class ConditionBuilder<T> implements OnGoingComparableCondition<T>, OnGoi
 		return logicalCondition;
 	}
 
+	/**
+	 * <p>
+	 * Getter for the field <code>condition</code>.
+	 * </p>
+	 *
+	 * @return the condition, null while the builder is not completed
+	 */
+	public Condition getCondition() {
+		return condition;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isAlwaysFalse() {
+		return ConditionHelper.isAlwaysFalse(this);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public OnGoingLogicalCondition eq(T value) {
@@ -183,6 +202,17 @@ public class ConditionBuilder<T> implements OnGoingComparableCondition<T>, OnGoi
 		return getOnGoingLogicalCondition(conditionLocal);
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public OnGoingLogicalCondition in(Query<T> query, Materialization materialization) {
+		Parameter<T> parameter = selector.generateParameter(null);
+		String parameterName = parameter instanceof ValueParameter ? ((ValueParameter<T>) parameter).getFieldName()
+				: "values";
+		Condition conditionLocal = new InSubQueryCondition<T>(selector, (QueryBuilder) query, materialization,
+				parameterName);
+		return getOnGoingLogicalCondition(conditionLocal);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public OnGoingLogicalCondition notIn(T... values) {
@@ -203,7 +233,7 @@ public class ConditionBuilder<T> implements OnGoingComparableCondition<T>, OnGoi
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		if (condition != null) {
 			return condition.createQueryFragment(incrementor);
 		} else {
@@ -19,6 +19,9 @@
  */
 package org.torpedoquery.jpa.internal.conditions;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.torpedoquery.jpa.Function;
 import org.torpedoquery.jpa.OnGoingCondition;
 import org.torpedoquery.jpa.internal.Condition;
@@ -28,6 +31,9 @@ import org.torpedoquery.jpa.internal.utils.DoNothingQueryConfigurator;
 import org.torpedoquery.jpa.internal.utils.TorpedoMethodHandler;
 public final class ConditionHelper {
 
+	private static final Object AND = new Object();
+	private static final Object OR = new Object();
+
 	private ConditionHelper() {
 	}
 
@@ -70,4 +76,108 @@ public final class ConditionHelper {
 		return null;
 	}
 
+	/**
+	 * <p>isAlwaysFalse.</p>
+	 *
+	 * The condition is evaluated as rendered: and binds tighter than or and
+	 * only the grouping conditions add parentheses
+	 *
+	 * @param condition a {@link org.torpedoquery.jpa.internal.Condition} object.
+	 * @return true when every or term contains a condition which can not match
+	 *         or two comparisons with literals which contradict each other
+	 */
+	public static boolean isAlwaysFalse(Condition condition) {
+		return isAlwaysFalse(tokens(condition));
+	}
+
+	private static boolean isAlwaysFalse(List<Object> tokens) {
+		if (tokens.isEmpty()) {
+			return false;
+		}
+
+		boolean termFalse = false;
+		List<Condition> conjuncts = new ArrayList<>();
+		for (Object token : tokens) {
+			if (token == OR) {
+				if (!termFalse && !Contradictions.found(conjuncts)) {
+					return false;
+				}
+				termFalse = false;
+				conjuncts.clear();
+			} else if (token instanceof Condition) {
+				termFalse |= ((Condition) token).isAlwaysFalse();
+				conjuncts.add((Condition) token);
+			} else if (token != AND) {
+				termFalse |= (Boolean) token;
+			}
+		}
+		return termFalse || Contradictions.found(conjuncts);
+	}
+
+	/**
+	 * <p>findConditions.</p>
+	 *
+	 * @param condition a {@link org.torpedoquery.jpa.internal.Condition} object.
+	 * @param type the type of the wanted conditions.
+	 * @param <C> a C object.
+	 * @return the conditions of the given type combined by and, or and groups
+	 */
+	public static <C extends Condition> List<C> findConditions(Condition condition, Class<C> type) {
+		List<C> found = new ArrayList<>();
+		findConditions(condition, type, found);
+		return found;
+	}
+
+	private static <C extends Condition> void findConditions(Condition condition, Class<C> type, List<C> found) {
+		if (condition instanceof LogicalCondition) {
+			findConditions(((LogicalCondition<?>) condition).getCondition(), type, found);
+		} else if (condition instanceof ConditionBuilder) {
+			findConditions(((ConditionBuilder<?>) condition).getCondition(), type, found);
+		} else if (condition instanceof EmptyLogicalCondition) {
+			findConditions(((EmptyLogicalCondition) condition).getDelegate(), type, found);
+		} else if (condition instanceof LogicalElement) {
+			findConditions(((LogicalElement) condition).getLeft(), type, found);
+			findConditions(((LogicalElement) condition).getRight(), type, found);
+		} else if (condition instanceof GroupingCondition) {
+			findConditions(((GroupingCondition) condition).getCondition(), type, found);
+		} else if (type.isInstance(condition)) {
+			found.add(type.cast(condition));
+		}
+	}
+
+	private static List<Object> tokens(Condition condition) {
+		List<Object> tokens = new ArrayList<>();
+
+		if (condition instanceof LogicalCondition) {
+			tokens.addAll(tokens(((LogicalCondition<?>) condition).getCondition()));
+		} else if (condition instanceof ConditionBuilder) {
+			Condition built = ((ConditionBuilder<?>) condition).getCondition();
+			if (built != null) {
+				tokens.addAll(tokens(built));
+			}
+		} else if (condition instanceof EmptyLogicalCondition) {
+			Condition delegate = ((EmptyLogicalCondition) condition).getDelegate();
+			if (delegate != null) {
+				tokens.addAll(tokens(delegate));
+			}
+		} else if (condition instanceof LogicalElement) {
+			LogicalElement element = (LogicalElement) condition;
+			List<Object> left = tokens(element.getLeft());
+			List<Object> right = tokens(element.getRight());
+			tokens.addAll(left);
+			if (!left.isEmpty() && !right.isEmpty()) {
+				tokens.add(element instanceof OrCondition ? OR : AND);
+			}
+			tokens.addAll(right);
+		} else if (condition instanceof GroupingCondition) {
+			List<Object> grouped = tokens(((GroupingCondition) condition).getCondition());
+			if (!grouped.isEmpty()) {
+				tokens.add(isAlwaysFalse(grouped));
+			}
+		} else if (condition != null) {
+			tokens.add(condition);
+		}
+		return tokens;
+	}
+
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.conditions;
+
+import java.time.temporal.Temporal;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import org.torpedoquery.jpa.internal.Condition;
+import org.torpedoquery.jpa.internal.Parameter;
+import org.torpedoquery.jpa.internal.query.ValueParameter;
+import org.torpedoquery.jpa.internal.selectors.SimpleMethodCallSelector;
+
+final class Contradictions {
+
+	// the values matched by a comparison with a literal, null bound when
+	// unbounded
+	private static final class Interval {
+		private final Object lower;
+		private final boolean lowerInclusive;
+		private final Object upper;
+		private final boolean upperInclusive;
+
+		private Interval(Object lower, boolean lowerInclusive, Object upper, boolean upperInclusive) {
+			this.lower = lower;
+			this.lowerInclusive = lowerInclusive;
+			this.upper = upper;
+			this.upperInclusive = upperInclusive;
+		}
+	}
+
+	private Contradictions() {
+	}
+
+	/**
+	 * Two comparisons of the same property with literals contradict each
+	 * other when the values they match do not intersect, ex: x &gt; 5 and x
+	 * &lt; 3, x = 1 and x = 2 or x = 1 and x &lt;&gt; 1. In one dimension an
+	 * empty intersection always comes from a pair, the pairs are enough. Only
+	 * numbers and dates are compared, strings depend on the collation of the
+	 * database ('a' = 'A' or 'a' = 'a ' may match).
+	 *
+	 * @param conjuncts
+	 *            the conditions combined by and
+	 * @return true when two of the conditions can not match together
+	 */
+	static boolean found(List<Condition> conjuncts) {
+		for (int i = 0; i < conjuncts.size(); i++) {
+			for (int j = i + 1; j < conjuncts.size(); j++) {
+				if (contradict(conjuncts.get(i), conjuncts.get(j))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static boolean contradict(Condition left, Condition right) {
+		if (!(left instanceof AbstractCondition) || !(right instanceof AbstractCondition)) {
+			return false;
+		}
+		AbstractCondition<?> leftCondition = (AbstractCondition<?>) left;
+		AbstractCondition<?> rightCondition = (AbstractCondition<?>) right;
+		if (!(leftCondition.getSelector() instanceof SimpleMethodCallSelector)
+				|| !leftCondition.getSelector().equals(rightCondition.getSelector())) {
+			return false;
+		}
+
+		if (left.getClass() == NotEqualCondition.class) {
+			return excluded(left, right);
+		} else if (right.getClass() == NotEqualCondition.class) {
+			return excluded(right, left);
+		}
+
+		Interval leftInterval = interval(left);
+		Interval rightInterval = interval(right);
+		return leftInterval != null && rightInterval != null
+				&& (before(leftInterval.upper, leftInterval.upperInclusive, rightInterval.lower,
+						rightInterval.lowerInclusive)
+						|| before(rightInterval.upper, rightInterval.upperInclusive, leftInterval.lower,
+								leftInterval.lowerInclusive));
+	}
+
+	private static boolean excluded(Condition notEqual, Condition other) {
+		if (other.getClass() != EqualCondition.class) {
+			return false;
+		}
+		Integer compare = compare(value(notEqual, 0), value(other, 0));
+		return compare != null && compare == 0;
+	}
+
+	private static Interval interval(Condition condition) {
+		if (condition.getClass() == EqualCondition.class) {
+			Object value = value(condition, 0);
+			return value != null ? new Interval(value, true, value, true) : null;
+		} else if (condition instanceof BetweenCondition) {
+			Object lower = value(condition, 0);
+			Object upper = value(condition, 1);
+			return lower != null && upper != null ? new Interval(lower, true, upper, true) : null;
+		}
+
+		Object value = value(condition, 0);
+		if (value == null) {
+			return null;
+		} else if (condition instanceof GtCondition) {
+			return new Interval(value, false, null, false);
+		} else if (condition instanceof GteCondition) {
+			return new Interval(value, true, null, false);
+		} else if (condition instanceof LtCondition) {
+			return new Interval(null, false, value, false);
+		} else if (condition instanceof LteCondition) {
+			return new Interval(null, false, value, true);
+		}
+		return null;
+	}
+
+	// true when every value up to the upper bound is lower than every value
+	// from the lower bound
+	private static boolean before(Object upper, boolean upperInclusive, Object lower, boolean lowerInclusive) {
+		if (upper == null || lower == null) {
+			return false;
+		}
+		Integer compare = compare(upper, lower);
+		return compare != null && (compare < 0 || compare == 0 && !(upperInclusive && lowerInclusive));
+	}
+
+	private static Object value(Condition condition, int index) {
+		List<Parameter> parameters = ((AbstractCondition<?>) condition).getParameters();
+		if (parameters.size() > index && parameters.get(index) instanceof ValueParameter) {
+			return ((ValueParameter<?>) parameters.get(index)).getValue();
+		}
+		return null;
+	}
+
+	// only numbers and dates of the same class are compared, the database
+	// may convert the others and orders strings by its collation
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Integer compare(Object left, Object right) {
+		if (ordered(left) && right != null && left.getClass() == right.getClass()) {
+			return ((Comparable) left).compareTo(right);
+		}
+		return null;
+	}
+
+	private static boolean ordered(Object value) {
+		return value instanceof Comparable && (value instanceof Number || value instanceof Date
+				|| value instanceof Calendar || value instanceof Temporal);
+	}
+
+}
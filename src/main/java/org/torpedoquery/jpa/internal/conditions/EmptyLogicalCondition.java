@@ -3,7 +3,6 @@ package org.torpedoquery.jpa.internal.conditions;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.ComparableFunction;
@@ -16,6 +15,7 @@ import org.torpedoquery.jpa.Torpedo;
 import org.torpedoquery.jpa.ValueOnGoingCondition;
 import org.torpedoquery.jpa.internal.Condition;
 import org.torpedoquery.jpa.internal.Parameter;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 
 /**
  * <p>EmptyLogicalCondition class.</p>
@@ -141,7 +141,7 @@ public class EmptyLogicalCondition implements OnGoingLogicalCondition, Condition
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		if(delegate != null) {
 			return delegate.createQueryFragment(incrementor);
 		}else {
@@ -162,6 +162,21 @@ public class EmptyLogicalCondition implements OnGoingLogicalCondition, Condition
 		
 	}
 	
+	/**
+	 * <p>Getter for the field <code>delegate</code>.</p>
+	 *
+	 * @return the condition, null while no condition was added
+	 */
+	public Condition getDelegate() {
+		return delegate;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isAlwaysFalse() {
+		return ConditionHelper.isAlwaysFalse(this);
+	}
+
 	/** {@inheritDoc} */
 	@Override
 	public <T> QueryBuilder<T> getBuilder() {
@@ -0,0 +1,65 @@
+
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.conditions;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.torpedoquery.jpa.Query;
+import org.torpedoquery.jpa.internal.Condition;
+import org.torpedoquery.jpa.internal.Parameter;
+import org.torpedoquery.jpa.internal.query.RenderContext;
+import org.torpedoquery.jpa.internal.query.SubqueryValueParameters;
+
+public class ExistsCondition<T> implements Condition {
+
+	private final SubqueryValueParameters<T> subQuery;
+
+	/**
+	 * <p>Constructor for ExistsCondition.</p>
+	 *
+	 * @param query a {@link org.torpedoquery.jpa.Query} object.
+	 */
+	public ExistsCondition(Query<T> query) {
+		this.subQuery = new SubqueryValueParameters<>(query);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String createQueryFragment(RenderContext incrementor) {
+		return getFragment() + " " + subQuery.generate(incrementor);
+	}
+
+	/**
+	 * <p>getFragment.</p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	protected String getFragment() {
+		return "exists";
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<Parameter> getParameters() {
+		return Arrays.<Parameter> asList(subQuery);
+	}
+
+}
@@ -20,10 +20,10 @@
 package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.internal.Condition;
 import org.torpedoquery.jpa.internal.Parameter;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public class GroupingCondition implements Condition {
 
 	private final Condition condition;
@@ -42,7 +42,7 @@ public class GroupingCondition implements Condition {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		String queryFragment = condition.createQueryFragment(incrementor);
 		if (queryFragment != null && !queryFragment.isEmpty()) {
 			return "( " + queryFragment + " )";
@@ -57,4 +57,21 @@ public class GroupingCondition implements Condition {
 		return condition.getParameters();
 	}
 
+	/**
+	 * <p>
+	 * Getter for the field <code>condition</code>.
+	 * </p>
+	 *
+	 * @return the grouped condition
+	 */
+	public Condition getCondition() {
+		return condition;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isAlwaysFalse() {
+		return ConditionHelper.isAlwaysFalse(this);
+	}
+
 }
@@ -20,11 +20,14 @@
 package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
+import org.torpedoquery.jpa.internal.query.ValueParameter;
 public class InCondition<T> extends AbstractCondition<List<T>> {
 
 	private final Selector selector;
@@ -44,7 +47,10 @@ public class InCondition<T> extends AbstractCondition<List<T>> {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
+		if (isEmpty()) {
+			return getEmptyFragment();
+		}
 		return selector.createQueryFragment(incrementor) + " " + getFragment() + " ( " + parameter.generate(incrementor) + " ) ";
 	}
 
@@ -57,4 +63,42 @@ public class InCondition<T> extends AbstractCondition<List<T>> {
 		return "in";
 	}
 
+	/**
+	 * <p>getEmptyFragment.</p>
+	 *
+	 * @return the condition rendered when there is no value, nothing is in
+	 *         an empty list
+	 */
+	protected String getEmptyFragment() {
+		return "1 = 0";
+	}
+
+	/**
+	 * <p>isEmpty.</p>
+	 *
+	 * @return true when the values is an empty collection
+	 */
+	public boolean isEmpty() {
+		if (parameter instanceof ValueParameter) {
+			Object value = ((ValueParameter<?>) parameter).getValue();
+			return value instanceof Collection && ((Collection<?>) value).isEmpty();
+		}
+		return false;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<Parameter> getParameters() {
+		if (isEmpty()) {
+			return Collections.emptyList();
+		}
+		return super.getParameters();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isAlwaysFalse() {
+		return isEmpty();
+	}
+
 }
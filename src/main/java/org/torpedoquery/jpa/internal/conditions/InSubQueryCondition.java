@@ -20,16 +20,25 @@
 package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Optional;
+
+import javax.persistence.EntityManager;
 
 import org.torpedoquery.core.QueryBuilder;
+import org.torpedoquery.jpa.Materialization;
 import org.torpedoquery.jpa.internal.Condition;
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
+import org.torpedoquery.jpa.internal.query.ValueParameter;
 public class InSubQueryCondition<T> implements Condition {
 
 	private final Selector selector;
 	private final QueryBuilder subQuery;
+	private final Materialization materialization;
+	private final String parameterName;
+	private Condition materialized;
+	private boolean rendered;
 
 	/**
 	 * <p>Constructor for InSubQueryCondition.</p>
@@ -38,13 +47,52 @@ public class InSubQueryCondition<T> implements Condition {
 	 * @param query a {@link org.torpedoquery.core.QueryBuilder} object.
 	 */
 	public InSubQueryCondition(Selector selector, QueryBuilder query) {
+		this(selector, query, null, null);
+	}
+
+	/**
+	 * <p>Constructor for InSubQueryCondition.</p>
+	 *
+	 * @param selector a {@link org.torpedoquery.jpa.internal.Selector} object.
+	 * @param query a {@link org.torpedoquery.core.QueryBuilder} object.
+	 * @param materialization null to always render the subquery
+	 * @param parameterName the name of the materialized values parameter
+	 */
+	public InSubQueryCondition(Selector selector, QueryBuilder query, Materialization materialization,
+			String parameterName) {
 		this.selector = selector;
 		this.subQuery = query;
+		this.materialization = materialization;
+		this.parameterName = parameterName;
+	}
+
+	/**
+	 * <p>materialize.</p>
+	 *
+	 * Select the subquery values before the first rendering, a too large
+	 * subquery stay in the query
+	 *
+	 * @param entityManager a {@link javax.persistence.EntityManager} object.
+	 */
+	public void materialize(EntityManager entityManager) {
+		if (materialization == null || rendered || materialized != null) {
+			return;
+		}
+
+		Optional<List<Object>> values = MaterializedSubqueries.select(subQuery, materialization, entityManager);
+		if (values.isPresent()) {
+			materialized = new InCondition<>(selector, new ValueParameter<>(parameterName, values.get()));
+		}
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
+		rendered |= !incrementor.isTrial();
+		if (materialized != null) {
+			return materialized.createQueryFragment(incrementor);
+		}
+
 		String queryFragment = selector.createQueryFragment(incrementor);
 
 		String subQueryString = subQuery.getQuery(incrementor);
@@ -63,7 +111,16 @@ public class InSubQueryCondition<T> implements Condition {
 	/** {@inheritDoc} */
 	@Override
 	public List<Parameter> getParameters() {
+		if (materialized != null) {
+			return materialized.getParameters();
+		}
 		return subQuery.getValueParameters();
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public boolean isAlwaysFalse() {
+		return materialized != null && materialized.isAlwaysFalse();
+	}
+
 }
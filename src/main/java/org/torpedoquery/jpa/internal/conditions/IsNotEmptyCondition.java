@@ -21,11 +21,11 @@ package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.internal.Condition;
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public class IsNotEmptyCondition implements Condition {
 
 	private final Selector selector;
@@ -41,7 +41,7 @@ public class IsNotEmptyCondition implements Condition {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return selector.createQueryFragment(incrementor) + " is not empty ";
 	}
 
@@ -21,10 +21,10 @@ package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.internal.Condition;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public class IsNullCondition implements Condition {
 
 	private final Selector selector;
@@ -40,7 +40,7 @@ public class IsNullCondition implements Condition {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return selector.createQueryFragment(incrementor) + " is null";
 	}
 
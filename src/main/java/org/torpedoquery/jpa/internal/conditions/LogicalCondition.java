@@ -21,7 +21,6 @@ package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.Collection;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.ComparableFunction;
@@ -33,6 +32,7 @@ import org.torpedoquery.jpa.OnGoingStringCondition;
 import org.torpedoquery.jpa.ValueOnGoingCondition;
 import org.torpedoquery.jpa.internal.Condition;
 import org.torpedoquery.jpa.internal.Parameter;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public class LogicalCondition<E> implements OnGoingLogicalCondition, Condition {
 
 	private Condition condition;
@@ -91,7 +91,7 @@ public class LogicalCondition<E> implements OnGoingLogicalCondition, Condition {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return condition.createQueryFragment(incrementor);
 	}
 
@@ -186,4 +186,19 @@ public class LogicalCondition<E> implements OnGoingLogicalCondition, Condition {
 		return builder;
 	}
 
+	/**
+	 * <p>Getter for the field <code>condition</code>.</p>
+	 *
+	 * @return a {@link org.torpedoquery.jpa.internal.Condition} object.
+	 */
+	public Condition getCondition() {
+		return condition;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isAlwaysFalse() {
+		return ConditionHelper.isAlwaysFalse(this);
+	}
+
 }
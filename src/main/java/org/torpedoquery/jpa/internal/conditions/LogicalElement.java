@@ -21,10 +21,10 @@ package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.internal.Condition;
 import org.torpedoquery.jpa.internal.Parameter;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public abstract class LogicalElement implements Condition {
 
 	private final Condition left;
@@ -56,7 +56,7 @@ public abstract class LogicalElement implements Condition {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 
 		String leftFragment = left.createQueryFragment(incrementor);
 		String rightFragment = right.createQueryFragment(incrementor);
@@ -81,4 +81,32 @@ public abstract class LogicalElement implements Condition {
 	 */
 	protected abstract String getCondition();
 
+	/**
+	 * <p>
+	 * Getter for the field <code>left</code>.
+	 * </p>
+	 *
+	 * @return a {@link org.torpedoquery.jpa.internal.Condition} object.
+	 */
+	public Condition getLeft() {
+		return left;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>right</code>.
+	 * </p>
+	 *
+	 * @return a {@link org.torpedoquery.jpa.internal.Condition} object.
+	 */
+	public Condition getRight() {
+		return right;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isAlwaysFalse() {
+		return ConditionHelper.isAlwaysFalse(this);
+	}
+
 }
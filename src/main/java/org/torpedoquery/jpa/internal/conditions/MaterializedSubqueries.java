@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.conditions;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import javax.persistence.EntityManager;
+
+import org.torpedoquery.core.QueryBuilder;
+import org.torpedoquery.jpa.Materialization;
+import org.torpedoquery.jpa.Query;
+import org.torpedoquery.jpa.internal.query.RenderContext;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+public final class MaterializedSubqueries {
+
+	private static final int MAXIMUM_CACHED_SUBQUERIES = 1000;
+
+	private static class Values {
+		private final Optional<List<Object>> values;
+		private final long expiresAt;
+
+		private Values(Optional<List<Object>> values, long expiresAt) {
+			this.values = values;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+	private static final Cache<List<Object>, Values> cache = CacheBuilder.newBuilder()
+			.maximumSize(MAXIMUM_CACHED_SUBQUERIES).build();
+
+	private MaterializedSubqueries() {
+	}
+
+	/**
+	 * <p>
+	 * select.
+	 * </p>
+	 *
+	 * @param subQuery
+	 *            a {@link org.torpedoquery.jpa.Query}, it is executed on a
+	 *            copy and can still be rendered in its outer query.
+	 * @param materialization
+	 *            a {@link org.torpedoquery.jpa.Materialization} object.
+	 * @param entityManager
+	 *            a {@link javax.persistence.EntityManager} object.
+	 * @return the selected values or empty when the subquery select more than
+	 *         the maximum size or use an alias of its outer query
+	 */
+	public static Optional<List<Object>> select(Query<?> subQuery, Materialization materialization,
+			EntityManager entityManager) {
+		if (isCorrelated(subQuery)) {
+			return Optional.empty();
+		}
+		Query<?> copy = subQuery.freeze();
+
+		if (materialization.getTimeToLiveMillis() == 0) {
+			return execute(copy, materialization, entityManager);
+		}
+
+		// the factory is part of the key, the values of a database or
+		// persistence unit are not reused for another
+		List<Object> key = Arrays.asList(entityManager.getEntityManagerFactory(), copy.getQuery(),
+				copy.getParameters(), materialization.getMaxSize());
+
+		Values cached = cache.getIfPresent(key);
+		if (cached != null && cached.expiresAt <= System.currentTimeMillis()) {
+			cache.asMap().remove(key, cached);
+		}
+		try {
+			// only one caller execute the subquery of a missing key
+			return cache.get(key, () -> new Values(execute(copy, materialization, entityManager),
+					System.currentTimeMillis() + materialization.getTimeToLiveMillis())).values;
+		} catch (ExecutionException | UncheckedExecutionException e) {
+			throw Throwables.propagate(e.getCause());
+		}
+	}
+
+	// rendered alone, a correlated subquery reference an alias it does not
+	// declare
+	private static boolean isCorrelated(Query<?> subQuery) {
+		if (!(subQuery instanceof QueryBuilder)) {
+			return false;
+		}
+		RenderContext context = RenderContext.trial();
+		((QueryBuilder<?>) subQuery).getQuery(context);
+		return context.hasUndeclaredAlias();
+	}
+
+	private static Optional<List<Object>> execute(Query<?> copy, Materialization materialization,
+			EntityManager entityManager) {
+		List<Object> values = (List<Object>) copy.setMaxResults(materialization.getMaxSize() + 1).list(entityManager);
+
+		if (values.size() > materialization.getMaxSize()) {
+			return Optional.empty();
+		}
+		return Optional.of(values);
+	}
+
+	/**
+	 * <p>
+	 * invalidateAll.
+	 * </p>
+	 */
+	public static void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+}
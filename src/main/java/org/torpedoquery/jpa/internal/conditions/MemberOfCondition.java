@@ -20,10 +20,10 @@
 package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.Collections;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public class MemberOfCondition<T> extends AbstractCondition<T> {
     /**
      * <p>Constructor for MemberOfCondition.</p>
@@ -37,7 +37,7 @@ public class MemberOfCondition<T> extends AbstractCondition<T> {
 
     /** {@inheritDoc} */
     @Override
-    public String createQueryFragment(AtomicInteger increment) {
+    public String createQueryFragment(RenderContext increment) {
         return getParameters().get(0).generate(increment) + " member of " + getSelector().createQueryFragment(increment);
     }
 }
@@ -39,4 +39,16 @@ public class NotInCondition<T> extends InCondition<T> {
 		return "not " + super.getFragment();
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	protected String getEmptyFragment() {
+		return "1 = 1";
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean isAlwaysFalse() {
+		return false;
+	}
+
 }
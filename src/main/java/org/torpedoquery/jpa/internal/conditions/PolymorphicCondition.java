@@ -20,10 +20,10 @@
 package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.Collections;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public abstract class PolymorphicCondition<T> extends AbstractCondition<T> {
 
 	private final Class<? extends T> condition;
@@ -41,7 +41,7 @@ public abstract class PolymorphicCondition<T> extends AbstractCondition<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return getSelector().createQueryFragment(incrementor) + ".class "+getComparator()+" " + condition.getSimpleName();
 	}
 	
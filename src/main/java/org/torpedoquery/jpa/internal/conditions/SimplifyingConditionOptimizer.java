@@ -0,0 +1,306 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.conditions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.torpedoquery.core.ConditionOptimizer;
+import org.torpedoquery.jpa.internal.Condition;
+import org.torpedoquery.jpa.internal.Parameter;
+import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.ValueParameter;
+import org.torpedoquery.jpa.internal.selectors.SimpleMethodCallSelector;
+
+public class SimplifyingConditionOptimizer implements ConditionOptimizer {
+
+	/** {@inheritDoc} */
+	@Override
+	public Condition optimize(Condition condition) {
+		Condition optimized = simplify(condition);
+		return optimized != null ? optimized : condition;
+	}
+
+	/**
+	 * @return the simplified condition, null when the condition is empty
+	 */
+	private Condition simplify(Condition condition) {
+		if (condition instanceof LogicalCondition) {
+			return simplify(((LogicalCondition<?>) condition).getCondition());
+		} else if (condition instanceof ConditionBuilder) {
+			Condition built = ((ConditionBuilder<?>) condition).getCondition();
+			return built != null ? simplify(built) : null;
+		} else if (condition instanceof EmptyLogicalCondition) {
+			Condition delegate = ((EmptyLogicalCondition) condition).getDelegate();
+			return delegate != null ? simplify(delegate) : null;
+		} else if (condition instanceof GroupingCondition) {
+			return simplifyGroup((GroupingCondition) condition);
+		} else if (condition instanceof LogicalElement) {
+			return simplifyChain((LogicalElement) condition);
+		}
+		return condition;
+	}
+
+	private Condition simplifyGroup(GroupingCondition group) {
+		Condition inner = simplify(group.getCondition());
+		if (inner == null || inner instanceof GroupingCondition) {
+			return inner;
+		} else if (!(inner instanceof LogicalElement)) {
+			return inner;
+		}
+		return new GroupingCondition(inner);
+	}
+
+	private Condition simplifyChain(LogicalElement chain) {
+		boolean and = chain instanceof AndCondition;
+		List<Condition> operands = new ArrayList<>();
+
+		if (!collectOperands(chain, and, operands)) {
+			// and/or mixed without group, the rendered precedence does not
+			// follow the tree so it is kept as is
+			return chain;
+		}
+
+		List<Condition> simplified = new ArrayList<>();
+		for (Condition operand : operands) {
+			Condition simplifiedOperand = simplify(operand);
+			if (simplifiedOperand instanceof GroupingCondition
+					&& isChain(((GroupingCondition) simplifiedOperand).getCondition(), and)) {
+				collectOperands((LogicalElement) ((GroupingCondition) simplifiedOperand).getCondition(), and,
+						simplified);
+			} else if (simplifiedOperand != null) {
+				simplified.add(simplifiedOperand);
+			}
+		}
+
+		removeDuplicates(simplified);
+
+		if (and) {
+			tightenRanges(simplified);
+			mergeBetween(simplified);
+		} else {
+			mergeEquals(simplified);
+		}
+
+		if (simplified.isEmpty()) {
+			return null;
+		}
+
+		Iterator<Condition> iterator = simplified.iterator();
+		Condition result = iterator.next();
+		while (iterator.hasNext()) {
+			result = and ? new AndCondition(result, iterator.next()) : new OrCondition(result, iterator.next());
+		}
+		return result;
+	}
+
+	private static boolean isChain(Condition condition, boolean and) {
+		return and ? condition instanceof AndCondition : condition instanceof OrCondition;
+	}
+
+	private static Condition unwrap(Condition condition) {
+		if (condition instanceof LogicalCondition) {
+			return unwrap(((LogicalCondition<?>) condition).getCondition());
+		} else if (condition instanceof ConditionBuilder && ((ConditionBuilder<?>) condition).getCondition() != null) {
+			return unwrap(((ConditionBuilder<?>) condition).getCondition());
+		} else if (condition instanceof EmptyLogicalCondition
+				&& ((EmptyLogicalCondition) condition).getDelegate() != null) {
+			return unwrap(((EmptyLogicalCondition) condition).getDelegate());
+		}
+		return condition;
+	}
+
+	private static boolean collectOperands(LogicalElement chain, boolean and, List<Condition> operands) {
+		for (Condition side : Arrays.asList(chain.getLeft(), chain.getRight())) {
+			Condition operand = unwrap(side);
+			if (isChain(operand, and)) {
+				if (!collectOperands((LogicalElement) operand, and, operands)) {
+					return false;
+				}
+			} else if (operand instanceof LogicalElement) {
+				return false;
+			} else {
+				operands.add(operand);
+			}
+		}
+		return true;
+	}
+
+	private static void removeDuplicates(List<Condition> operands) {
+		for (int i = 0; i < operands.size(); i++) {
+			for (int j = operands.size() - 1; j > i; j--) {
+				if (sameCondition(operands.get(i), operands.get(j))) {
+					operands.remove(j);
+				}
+			}
+		}
+	}
+
+	private static boolean sameCondition(Condition left, Condition right) {
+		if (left.getClass() != right.getClass() || !(left instanceof AbstractCondition)) {
+			return false;
+		}
+		AbstractCondition<?> leftCondition = (AbstractCondition<?>) left;
+		AbstractCondition<?> rightCondition = (AbstractCondition<?>) right;
+
+		if (!comparableSelector(leftCondition.getSelector())
+				|| !leftCondition.getSelector().equals(rightCondition.getSelector())
+				|| leftCondition.getParameters().size() != rightCondition.getParameters().size()) {
+			return false;
+		}
+
+		for (int i = 0; i < leftCondition.getParameters().size(); i++) {
+			Parameter leftParameter = leftCondition.getParameters().get(i);
+			Parameter rightParameter = rightCondition.getParameters().get(i);
+			if (!(leftParameter instanceof ValueParameter) || !(rightParameter instanceof ValueParameter)
+					|| !Objects.equals(((ValueParameter<?>) leftParameter).getValue(),
+							((ValueParameter<?>) rightParameter).getValue())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean comparableSelector(Selector selector) {
+		return selector instanceof SimpleMethodCallSelector;
+	}
+
+	private static ValueParameter<?> valueParameter(Condition condition) {
+		if (condition instanceof SingleParameterCondition
+				&& comparableSelector(((SingleParameterCondition<?>) condition).getSelector())) {
+			Parameter<?> parameter = ((SingleParameterCondition<?>) condition).getParameter();
+			if (parameter instanceof ValueParameter) {
+				return (ValueParameter<?>) parameter;
+			}
+		}
+		return null;
+	}
+
+	private static void mergeEquals(List<Condition> operands) {
+		Map<Selector, List<Integer>> equalsBySelector = new LinkedHashMap<>();
+
+		for (int i = 0; i < operands.size(); i++) {
+			Condition operand = operands.get(i);
+			if (operand.getClass() == EqualCondition.class && valueParameter(operand) != null) {
+				Selector selector = ((EqualCondition<?>) operand).getSelector();
+				equalsBySelector.computeIfAbsent(selector, s -> new ArrayList<>()).add(i);
+			}
+		}
+
+		List<Integer> removed = new ArrayList<>();
+		for (Map.Entry<Selector, List<Integer>> entry : equalsBySelector.entrySet()) {
+			List<Integer> positions = entry.getValue();
+			if (positions.size() > 1) {
+				List<Object> values = new ArrayList<>();
+				for (Integer position : positions) {
+					values.add(valueParameter(operands.get(position)).getValue());
+				}
+				String fieldName = valueParameter(operands.get(positions.get(0))).getFieldName();
+				operands.set(positions.get(0),
+						new InCondition<>(entry.getKey(), new ValueParameter<>(fieldName, values)));
+				removed.addAll(positions.subList(1, positions.size()));
+			}
+		}
+		removeAll(operands, removed);
+	}
+
+	private static void tightenRanges(List<Condition> operands) {
+		List<Integer> removed = new ArrayList<>();
+
+		for (int i = 0; i < operands.size(); i++) {
+			if (!isRange(operands.get(i)) || removed.contains(i)) {
+				continue;
+			}
+			for (int j = i + 1; j < operands.size(); j++) {
+				if (removed.contains(j) || operands.get(j).getClass() != operands.get(i).getClass()
+						|| !sameSelector(operands.get(i), operands.get(j))) {
+					continue;
+				}
+				Integer compare = compareValues(operands.get(i), operands.get(j));
+				if (compare != null) {
+					boolean lowerBound = operands.get(i) instanceof GtCondition
+							|| operands.get(i) instanceof GteCondition;
+					boolean keepFirst = lowerBound ? compare >= 0 : compare <= 0;
+					if (keepFirst) {
+						removed.add(j);
+					} else {
+						operands.set(i, operands.get(j));
+						removed.add(j);
+					}
+				}
+			}
+		}
+		removeAll(operands, removed);
+	}
+
+	private static void mergeBetween(List<Condition> operands) {
+		for (int i = 0; i < operands.size(); i++) {
+			if (!(operands.get(i) instanceof GteCondition) || valueParameter(operands.get(i)) == null) {
+				continue;
+			}
+			for (int j = 0; j < operands.size(); j++) {
+				if (operands.get(j) instanceof LteCondition && valueParameter(operands.get(j)) != null
+						&& sameSelector(operands.get(i), operands.get(j))) {
+					GteCondition<?> lower = (GteCondition<?>) operands.get(i);
+					LteCondition<?> upper = (LteCondition<?>) operands.get(j);
+					operands.set(Math.min(i, j), new BetweenCondition<>(lower.getSelector(),
+							Arrays.<Parameter> asList(lower.getParameter(), upper.getParameter())));
+					operands.remove(Math.max(i, j));
+					// the between is not a range operand, scan again from the
+					// start
+					i = -1;
+					break;
+				}
+			}
+		}
+	}
+
+	private static boolean isRange(Condition condition) {
+		return (condition instanceof GtCondition || condition instanceof GteCondition
+				|| condition instanceof LtCondition || condition instanceof LteCondition)
+				&& valueParameter(condition) != null;
+	}
+
+	private static boolean sameSelector(Condition left, Condition right) {
+		return ((AbstractCondition<?>) left).getSelector().equals(((AbstractCondition<?>) right).getSelector());
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Integer compareValues(Condition left, Condition right) {
+		Object leftValue = valueParameter(left).getValue();
+		Object rightValue = valueParameter(right).getValue();
+		if (leftValue instanceof Comparable && rightValue != null && leftValue.getClass() == rightValue.getClass()) {
+			return ((Comparable) leftValue).compareTo(rightValue);
+		}
+		return null;
+	}
+
+	private static void removeAll(List<Condition> operands, List<Integer> positions) {
+		positions.sort(null);
+		for (int i = positions.size() - 1; i >= 0; i--) {
+			operands.remove((int) positions.get(i));
+		}
+	}
+
+}
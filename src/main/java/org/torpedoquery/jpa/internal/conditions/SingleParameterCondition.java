@@ -20,10 +20,10 @@
 package org.torpedoquery.jpa.internal.conditions;
 
 import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public abstract class SingleParameterCondition<T> extends AbstractCondition<T> {
 
 	private final Parameter<T> parameter;
@@ -41,7 +41,7 @@ public abstract class SingleParameterCondition<T> extends AbstractCondition<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return getSelector().createQueryFragment(incrementor) + " " + getComparator() + " " + parameter.generate(incrementor);
 	}
 
@@ -52,4 +52,13 @@ public abstract class SingleParameterCondition<T> extends AbstractCondition<T> {
 	 */
 	protected abstract String getComparator();
 
+	/**
+	 * <p>Getter for the field <code>parameter</code>.</p>
+	 *
+	 * @return a {@link org.torpedoquery.jpa.internal.Parameter} object.
+	 */
+	public Parameter<T> getParameter() {
+		return parameter;
+	}
+
 }
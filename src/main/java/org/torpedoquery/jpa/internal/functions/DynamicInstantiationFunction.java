@@ -22,12 +22,12 @@ package org.torpedoquery.jpa.internal.functions;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.jpa.ComparableFunction;
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.TorpedoProxy;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 import org.torpedoquery.jpa.internal.query.SelectorParameter;
 public class DynamicInstantiationFunction<T> implements ComparableFunction<T> {
 
@@ -46,7 +46,7 @@ public class DynamicInstantiationFunction<T> implements ComparableFunction<T> {
 	
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 
 		StringBuilder stringBuilder = new StringBuilder();
 		Iterator<Selector> iterator = selectors.iterator();
@@ -19,14 +19,13 @@
  */
 package org.torpedoquery.jpa.internal.functions;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.torpedoquery.jpa.ComparableFunction;
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.TorpedoProxy;
 import org.torpedoquery.jpa.internal.Selector;
 import org.torpedoquery.jpa.internal.TorpedoMagic;
 import org.torpedoquery.jpa.internal.handlers.ParameterQueryHandler;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public class MathOperationFunction<T> implements ComparableFunction<T> {
 
 	private final Selector<T> leftOperand;
@@ -51,7 +50,7 @@ public class MathOperationFunction<T> implements ComparableFunction<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return leftOperand.createQueryFragment(incrementor) + " " + operator + " " + rightOperand.createQueryFragment(incrementor);
 	}
 
@@ -21,7 +21,6 @@ package org.torpedoquery.jpa.internal.handlers;
 
 import java.util.Deque;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.ComparableFunction;
@@ -31,6 +30,7 @@ import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.TorpedoProxy;
 import org.torpedoquery.jpa.internal.Selector;
 import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public abstract class BaseFunctionHandler<T, F extends Function<T>> extends AbstractCallHandler<F> implements QueryHandler<F>, ComparableFunction<T>, ValueHandler<F> {
 
 	private Selector selector;
@@ -49,7 +49,7 @@ public abstract class BaseFunctionHandler<T, F extends Function<T>> extends Abst
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return String.format(getFunctionFormat(), selector.createQueryFragment(incrementor));
 	}
 
@@ -21,12 +21,12 @@ package org.torpedoquery.jpa.internal.handlers;
 
 import java.util.Deque;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.Function;
 import org.torpedoquery.jpa.internal.MethodCall;
 import org.torpedoquery.jpa.internal.Parameter;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 import org.torpedoquery.jpa.internal.query.SelectorParameter;
 public class ConstantFunctionHandler<T> implements Function<T>, QueryHandler<Function<T>> {
 
@@ -43,7 +43,7 @@ public class ConstantFunctionHandler<T> implements Function<T>, QueryHandler<Fun
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return constant.toString();
 	}
 
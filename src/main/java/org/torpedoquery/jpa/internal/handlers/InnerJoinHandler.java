@@ -56,7 +56,7 @@ public class InnerJoinHandler<T> extends JoinHandler<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	protected Join createJoin(QueryBuilder queryBuilder, String fieldName) {
-		return new InnerJoin(queryBuilder, fieldName);
+	protected Join createJoin(QueryBuilder queryBuilder, String fieldName, boolean singleValued) {
+		return new InnerJoin(queryBuilder, fieldName, singleValued);
 	}
 }
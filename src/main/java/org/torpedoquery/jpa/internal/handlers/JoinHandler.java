@@ -81,22 +81,25 @@ public abstract class JoinHandler<T> implements QueryHandler<T> {
 		final QueryBuilder queryImpl = proxyQueryBuilders.get(pollFirst.getProxy());
 		final Method thisMethod = pollFirst.getMethod().getJavaMethod();
 		Class<?> returnType = thisMethod.getReturnType();
+		boolean singleValued = false;
 
 		if (Collection.class.isAssignableFrom(returnType)) {
 			returnType = (Class<?>) ((ParameterizedType) thisMethod.getGenericReturnType()).getActualTypeArguments()[0];
 		} else if (Map.class.isAssignableFrom(returnType)) {
 			returnType = (Class<?>) ((ParameterizedType) thisMethod.getGenericReturnType()).getActualTypeArguments()[1];
+		} else {
+			singleValued = true;
 		}
 
 		try {
 
 			Class<? extends Object> goodType = getGoodType(returnType);
 
-			T join = TorpedoMagic.getProxyfactoryfactory().createProxy(methodHandler, goodType, TorpedoProxy.class);
+			T join = TorpedoMagic.getProxyEngine().createProxy(methodHandler, goodType, TorpedoProxy.class);
 
 			final QueryBuilder queryBuilder = methodHandler.addQueryBuilder(join, new DefaultQueryBuilder(goodType));
 
-			queryImpl.addJoin(createJoin(queryBuilder, FieldUtils.getFieldName(pollFirst.getMethod())));
+			queryImpl.addJoin(createJoin(queryBuilder, FieldUtils.getFieldName(pollFirst.getMethod()), singleValued));
 
 			return join;
 
@@ -119,8 +122,10 @@ public abstract class JoinHandler<T> implements QueryHandler<T> {
 	 *            a {@link org.torpedoquery.core.QueryBuilder} object.
 	 * @param fieldName
 	 *            a {@link java.lang.String} object.
+	 * @param singleValued
+	 *            true when the joined path is not a collection or a map
 	 * @return a {@link org.torpedoquery.jpa.internal.Join} object.
 	 */
-	protected abstract Join createJoin(QueryBuilder queryBuilder, String fieldName);
+	protected abstract Join createJoin(QueryBuilder queryBuilder, String fieldName, boolean singleValued);
 
 }
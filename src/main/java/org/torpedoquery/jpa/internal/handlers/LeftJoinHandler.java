@@ -47,8 +47,8 @@ public class LeftJoinHandler<T> extends JoinHandler<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	protected Join createJoin(QueryBuilder queryBuilder, String fieldName) {
-		return new LeftJoin(queryBuilder, fieldName);
+	protected Join createJoin(QueryBuilder queryBuilder, String fieldName, boolean singleValued) {
+		return new LeftJoin(queryBuilder, fieldName, singleValued);
 	}
 
 }
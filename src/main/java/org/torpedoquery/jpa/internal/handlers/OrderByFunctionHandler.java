@@ -21,12 +21,12 @@ package org.torpedoquery.jpa.internal.handlers;
 
 import java.util.Deque;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.Function;
 import org.torpedoquery.jpa.internal.MethodCall;
 import org.torpedoquery.jpa.internal.Parameter;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 import org.torpedoquery.jpa.internal.selectors.SimpleMethodCallSelector;
 public abstract class OrderByFunctionHandler<T> implements QueryHandler<Function<T>>, Function<T> {
 
@@ -36,7 +36,7 @@ public abstract class OrderByFunctionHandler<T> implements QueryHandler<Function
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 
 		SimpleMethodCallSelector simpleMethodCallSelector = new SimpleMethodCallSelector(queryBuilder, method);
 		return simpleMethodCallSelector.createQueryFragment(incrementor) + " " + getFunctionName();
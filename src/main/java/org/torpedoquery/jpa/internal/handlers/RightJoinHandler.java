@@ -46,7 +46,7 @@ public class RightJoinHandler<T> extends JoinHandler<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	protected Join createJoin(QueryBuilder queryBuilder, String fieldName) {
-		return new RightJoin(queryBuilder, fieldName);
+	protected Join createJoin(QueryBuilder queryBuilder, String fieldName, boolean singleValued) {
+		return new RightJoin(queryBuilder, fieldName, singleValued);
 	}
 }
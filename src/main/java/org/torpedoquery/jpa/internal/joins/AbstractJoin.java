@@ -20,17 +20,24 @@
 package org.torpedoquery.jpa.internal.joins;
 
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.EntityManager;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.internal.Join;
 import org.torpedoquery.jpa.internal.conditions.LogicalCondition;
+import org.torpedoquery.jpa.internal.query.DefaultQueryBuilder;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 import org.torpedoquery.jpa.internal.query.ValueParameter;
 public abstract class AbstractJoin implements Join {
 
 	private final QueryBuilder join;
 	private String fieldName;
 	private LogicalCondition joinCondition;
+	private boolean singleValued;
+	private boolean removed;
 
 	/**
 	 * <p>
@@ -41,10 +48,13 @@ public abstract class AbstractJoin implements Join {
 	 *            a {@link org.torpedoquery.core.QueryBuilder} object.
 	 * @param fieldName
 	 *            a {@link java.lang.String} object.
+	 * @param singleValued
+	 *            true when the joined path is not a collection or a map
 	 */
-	public AbstractJoin(QueryBuilder<?> join, String fieldName) {
+	public AbstractJoin(QueryBuilder<?> join, String fieldName, boolean singleValued) {
 		this.join = join;
 		this.fieldName = fieldName;
+		this.singleValued = singleValued;
 	}
 
 	/**
@@ -62,12 +72,18 @@ public abstract class AbstractJoin implements Join {
 
 	/** {@inheritDoc} */
 	@Override
-	public String getJoin(String parentAlias, AtomicInteger incrementor) {
+	public String getJoin(String parentAlias, RenderContext incrementor) {
+		if (removed) {
+			return "";
+		}
+
+		String alias = join.getAlias(incrementor);
+		incrementor.declareAlias(alias);
 		if (joinCondition != null) {
-			return " " + getJoinType() + " join " +join.getEntityName() + " " + join.getAlias(incrementor) + " on "
+			return " " + getJoinType() + " join " +join.getEntityName() + " " + alias + " on "
 					+ joinCondition.createQueryFragment(incrementor);
 		} else {
-			return (" " + getJoinType() + " join " + parentAlias + "." + fieldName + " " + join.getAlias(incrementor))
+			return (" " + getJoinType() + " join " + parentAlias + "." + fieldName + " " + alias)
 					+ (join.hasWithClause() ? join.getWithClause(incrementor) : "")
 					+ (join.hasSubJoin() ? join.getJoins(incrementor) : "");
 		}
@@ -76,13 +92,13 @@ public abstract class AbstractJoin implements Join {
 
 	/** {@inheritDoc} */
 	@Override
-	public void appendWhereClause(StringBuilder builder, AtomicInteger incrementor) {
+	public void appendWhereClause(StringBuilder builder, RenderContext incrementor) {
 		join.appendWhereClause(builder, incrementor);
 	}
 
 	/** {@inheritDoc} */
 	@Override
-	public void appendGroupBy(StringBuilder builder, AtomicInteger incrementor) {
+	public void appendGroupBy(StringBuilder builder, RenderContext incrementor) {
 		join.appendGroupBy(builder, incrementor);
 	}
 
@@ -96,6 +112,77 @@ public abstract class AbstractJoin implements Join {
 		return valueParameters;
 	}
 
+	/**
+	 * Only the joins of the same single valued path without with clause are
+	 * merged, two joins of a collection can match different elements
+	 */
+	@Override
+	public boolean mergeInto(Join other) {
+		if (!(other instanceof AbstractJoin)) {
+			return false;
+		}
+
+		AbstractJoin canonical = (AbstractJoin) other;
+		if (!isPathJoin() || !canonical.isPathJoin() || !singleValued || !canonical.singleValued
+				|| !getJoinType().equals(canonical.getJoinType()) || !fieldName.equals(canonical.fieldName)
+				|| !join.getEntityName().equals(canonical.join.getEntityName())) {
+			return false;
+		}
+
+		((DefaultQueryBuilder<?>) join).mergeInto((DefaultQueryBuilder<?>) canonical.join);
+		removed = true;
+		return true;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void mergeDuplicateJoins() {
+		if (join instanceof DefaultQueryBuilder) {
+			((DefaultQueryBuilder<?>) join).mergeDuplicateJoins();
+		}
+	}
+
+	/**
+	 * An inner join is unused when its alias appear only in its own declaration
+	 */
+	@Override
+	public boolean eliminateUnusedJoins(String query, RenderContext incrementor) {
+		if (removed) {
+			return false;
+		}
+
+		boolean eliminated = false;
+		if (join instanceof DefaultQueryBuilder) {
+			eliminated = ((DefaultQueryBuilder<?>) join).eliminateUnusedJoins(query, incrementor);
+		}
+
+		if (isPathJoin() && "inner".equals(getJoinType())) {
+			Matcher matcher = Pattern.compile("\\b" + Pattern.quote(join.getAlias(incrementor)) + "\\b").matcher(query);
+			int references = 0;
+			while (matcher.find()) {
+				references++;
+			}
+
+			if (references == 1) {
+				removed = true;
+				eliminated = true;
+			}
+		}
+		return eliminated;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void materializeSubqueries(EntityManager entityManager) {
+		if (join instanceof DefaultQueryBuilder) {
+			((DefaultQueryBuilder<?>) join).materializeSubqueries(entityManager);
+		}
+	}
+
+	private boolean isPathJoin() {
+		return joinCondition == null && !join.hasWithClause() && join instanceof DefaultQueryBuilder;
+	}
+
 	/**
 	 * <p>
 	 * getJoinType.
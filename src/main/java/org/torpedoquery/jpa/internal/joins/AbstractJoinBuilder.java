@@ -37,7 +37,7 @@ public abstract class AbstractJoinBuilder<T> implements JoinBuilder<T> {
 	/** {@inheritDoc} */
 	@Override
 	public T on(Function<T, OnGoingLogicalCondition> onBuilder) {
-		T join = TorpedoMagic.getProxyfactoryfactory().createProxy(methodHandler,queryClass, TorpedoProxy.class);
+		T join = TorpedoMagic.getProxyEngine().createProxy(methodHandler,queryClass, TorpedoProxy.class);
 		final QueryBuilder queryBuilder = methodHandler.addQueryBuilder(join, new DefaultQueryBuilder(queryClass));
 		LogicalCondition joinCondition = (LogicalCondition) onBuilder.apply(join);
 		methodHandler.getRoot().addJoin(createJoin(queryBuilder, joinCondition));
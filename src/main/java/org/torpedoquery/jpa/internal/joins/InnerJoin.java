@@ -27,9 +27,10 @@ public class InnerJoin extends AbstractJoin {
 	 *
 	 * @param join a {@link org.torpedoquery.core.QueryBuilder} object.
 	 * @param fieldName a {@link java.lang.String} object.
+	 * @param singleValued true when the joined path is not a collection or a map
 	 */
-	public InnerJoin(QueryBuilder join, String fieldName) {
-		super(join, fieldName);
+	public InnerJoin(QueryBuilder join, String fieldName, boolean singleValued) {
+		super(join, fieldName, singleValued);
 	}
 
 	/**
@@ -28,9 +28,10 @@ public class LeftJoin extends AbstractJoin {
 	 *
 	 * @param join a {@link org.torpedoquery.core.QueryBuilder} object.
 	 * @param fieldName a {@link java.lang.String} object.
+	 * @param singleValued true when the joined path is not a collection or a map
 	 */
-	public LeftJoin(QueryBuilder join, String fieldName) {
-		super(join, fieldName);
+	public LeftJoin(QueryBuilder join, String fieldName, boolean singleValued) {
+		super(join, fieldName, singleValued);
 	}
 
 	/**
@@ -0,0 +1,153 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import org.torpedoquery.jpa.internal.query.QueryShape;
+
+public class FlightRecorderEvents extends TorpedoEvents.Recorder {
+
+	@Name("org.torpedoquery.QueryRendering")
+	@Label("Query Rendering")
+	@Category("TorpedoQuery")
+	@Description("First rendering of a recorded query")
+	public static class QueryRenderingEvent extends Event {
+		@Label("Shape")
+		String shape;
+		@Label("Query Length")
+		int queryLength;
+		@Label("Parameter Count")
+		int parameterCount;
+	}
+
+	@Name("org.torpedoquery.QueryExecution")
+	@Label("Query Execution")
+	@Category("TorpedoQuery")
+	@Description("Execution of a query or a bulk statement by the jpa provider")
+	public static class QueryExecutionEvent extends Event {
+		@Label("Shape")
+		String shape;
+		@Label("Query Length")
+		int queryLength;
+		@Label("Parameter Count")
+		int parameterCount;
+		@Label("Row Count")
+		@Description("Returned or updated rows, -1 when the execution failed")
+		int rowCount;
+	}
+
+	@Name("org.torpedoquery.ProxyGeneration")
+	@Label("Proxy Generation")
+	@Category("TorpedoQuery")
+	@Description("Generation of a query proxy class")
+	public static class ProxyGenerationEvent extends Event {
+		@Label("Proxy Class")
+		Class<?> proxyClass;
+		@Label("Engine")
+		String engine;
+	}
+
+	// the javassist engine return its cached classes, only the first creation is a generation
+	private final ClassValue<AtomicBoolean> generated = new ClassValue<AtomicBoolean>() {
+		@Override
+		protected AtomicBoolean computeValue(Class<?> type) {
+			return new AtomicBoolean();
+		}
+	};
+
+	/** {@inheritDoc} */
+	@Override
+	public Object beginRendering() {
+		QueryRenderingEvent event = new QueryRenderingEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void endRendering(Object started, String query, int parameterCount) {
+		QueryRenderingEvent event = (QueryRenderingEvent) started;
+		event.end();
+		if (event.shouldCommit()) {
+			event.shape = QueryShape.fingerprint(query);
+			event.queryLength = query.length();
+			event.parameterCount = parameterCount;
+			event.commit();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Object beginExecution() {
+		QueryExecutionEvent event = new QueryExecutionEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void endExecution(Object started, String query, int parameterCount, int rowCount) {
+		QueryExecutionEvent event = (QueryExecutionEvent) started;
+		event.end();
+		if (event.shouldCommit()) {
+			event.shape = QueryShape.fingerprint(query);
+			event.queryLength = query.length();
+			event.parameterCount = parameterCount;
+			event.rowCount = rowCount;
+			event.commit();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Object beginProxyGeneration() {
+		ProxyGenerationEvent event = new ProxyGenerationEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void endProxyGeneration(Object started, Class<?> proxyClass, String engine) {
+		ProxyGenerationEvent event = (ProxyGenerationEvent) started;
+		event.end();
+		if (event.shouldCommit() && generated.get(proxyClass).compareAndSet(false, true)) {
+			event.proxyClass = proxyClass;
+			event.engine = engine;
+			event.commit();
+		}
+	}
+
+}
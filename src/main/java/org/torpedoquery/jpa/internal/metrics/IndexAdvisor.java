@@ -0,0 +1,168 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.torpedoquery.core.QueryExecution;
+import org.torpedoquery.core.QueryListener;
+
+public class IndexAdvisor implements QueryListener {
+
+	private static class Shape {
+		private final String query;
+		private final QueryPredicates predicates;
+		private final LongAdder executions = new LongAdder();
+		private final LongAdder executionNanos = new LongAdder();
+
+		private Shape(String query) {
+			this.query = query;
+			this.predicates = QueryPredicates.parse(query);
+		}
+	}
+
+	private static class Weight {
+		private final String query;
+		private int shapes;
+		private long executions;
+		private long executionNanos;
+
+		private Weight(String query) {
+			this.query = query;
+		}
+
+		private void add(Shape shape) {
+			shapes++;
+			executions += shape.executions.sum();
+			executionNanos += shape.executionNanos.sum();
+		}
+	}
+
+	private static final int MAX_SHAPES = 10000;
+
+	private final ConcurrentMap<String, Shape> shapes = new ConcurrentHashMap<>();
+
+	/** {@inheritDoc} */
+	@Override
+	public void executed(QueryExecution execution) {
+		Shape shape = shapes.get(execution.getFingerprint());
+		if (shape == null) {
+			if (shapes.size() >= MAX_SHAPES) {
+				return;
+			}
+			shape = shapes.computeIfAbsent(execution.getFingerprint(), fingerprint -> new Shape(execution.getQuery()));
+		}
+		shape.executions.increment();
+		shape.executionNanos.add(execution.getExecutionNanos());
+	}
+
+	/**
+	 * <p>
+	 * getCandidates.
+	 * </p>
+	 *
+	 * @return the candidate indexes, the most expensive first
+	 */
+	public List<IndexCandidate> getCandidates() {
+		Map<List<String>, Weight> weights = new LinkedHashMap<>();
+		for (Shape shape : shapes.values()) {
+			for (Map.Entry<String, List<String>> index : shape.predicates.getIndexes().entrySet()) {
+				List<String> key = new ArrayList<>(index.getValue());
+				key.add(0, index.getKey());
+				weights.computeIfAbsent(key, k -> new Weight(shape.query)).add(shape);
+			}
+		}
+
+		List<IndexCandidate> candidates = new ArrayList<>();
+		for (Map.Entry<List<String>, Weight> entry : weights.entrySet()) {
+			List<String> key = entry.getKey();
+			Weight weight = entry.getValue();
+			candidates.add(new IndexCandidate(key.get(0), Collections.unmodifiableList(key.subList(1, key.size())),
+					weight.shapes, weight.executions, weight.executionNanos));
+		}
+		candidates.sort(Comparator.comparingLong(IndexCandidate::getExecutionNanos).reversed());
+		return candidates;
+	}
+
+	/**
+	 * <p>
+	 * getUnindexablePredicates.
+	 * </p>
+	 *
+	 * @return the predicates which can not use an index, the most expensive
+	 *         first
+	 */
+	public List<UnindexablePredicate> getUnindexablePredicates() {
+		Map<List<Object>, Weight> weights = new LinkedHashMap<>();
+		for (Shape shape : shapes.values()) {
+			for (QueryPredicates.Unindexable unindexable : shape.predicates.getUnindexables()) {
+				weights.computeIfAbsent(Arrays.<Object> asList(unindexable.entity, unindexable.column,
+						unindexable.reason), k -> new Weight(shape.query)).add(shape);
+			}
+		}
+
+		List<UnindexablePredicate> predicates = new ArrayList<>();
+		for (Map.Entry<List<Object>, Weight> entry : weights.entrySet()) {
+			List<Object> key = entry.getKey();
+			Weight weight = entry.getValue();
+			predicates.add(new UnindexablePredicate((String) key.get(0), (String) key.get(1),
+					(UnindexablePredicate.Reason) key.get(2), weight.query, weight.executions, weight.executionNanos));
+		}
+		predicates.sort(Comparator.comparingLong(UnindexablePredicate::getExecutionNanos).reversed());
+		return predicates;
+	}
+
+	/**
+	 * <p>
+	 * getReport.
+	 * </p>
+	 *
+	 * @return the candidates and the unindexable predicates, one by line
+	 */
+	public String getReport() {
+		StringBuilder report = new StringBuilder("candidate indexes");
+		for (IndexCandidate candidate : getCandidates()) {
+			report.append("\n\t").append(candidate);
+		}
+		report.append("\nunindexable predicates");
+		for (UnindexablePredicate predicate : getUnindexablePredicates()) {
+			report.append("\n\t").append(predicate);
+		}
+		return report.toString();
+	}
+
+	/**
+	 * <p>
+	 * reset.
+	 * </p>
+	 */
+	public void reset() {
+		shapes.clear();
+	}
+
+}
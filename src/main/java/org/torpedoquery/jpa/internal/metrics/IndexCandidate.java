@@ -0,0 +1,118 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.List;
+
+public class IndexCandidate {
+
+	private final String entity;
+	private final List<String> columns;
+	private final int shapes;
+	private final long executions;
+	private final long executionNanos;
+
+	/**
+	 * <p>
+	 * Constructor for IndexCandidate.
+	 * </p>
+	 *
+	 * @param entity
+	 *            the entity name, followed by the association path for joins
+	 * @param columns
+	 *            the equality columns, then a range column, then the sort
+	 *            columns
+	 * @param shapes
+	 *            the number of query shapes using the index
+	 * @param executions
+	 *            a long.
+	 * @param executionNanos
+	 *            the total execution time of the queries using the index
+	 */
+	public IndexCandidate(String entity, List<String> columns, int shapes, long executions, long executionNanos) {
+		this.entity = entity;
+		this.columns = columns;
+		this.shapes = shapes;
+		this.executions = executions;
+		this.executionNanos = executionNanos;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>entity</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getEntity() {
+		return entity;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>columns</code>.
+	 * </p>
+	 *
+	 * @return the property paths in index order
+	 */
+	public List<String> getColumns() {
+		return columns;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>shapes</code>.
+	 * </p>
+	 *
+	 * @return a int.
+	 */
+	public int getShapes() {
+		return shapes;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>executions</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getExecutions() {
+		return executions;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>executionNanos</code>.
+	 * </p>
+	 *
+	 * @return the weight of the candidate
+	 */
+	public long getExecutionNanos() {
+		return executionNanos;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return entity + "(" + String.join(", ", columns) + ") " + shapes + " shapes " + executions + " executions "
+				+ executionNanos / 1000000 + " ms";
+	}
+
+}
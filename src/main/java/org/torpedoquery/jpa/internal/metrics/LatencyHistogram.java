@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+
+	// bucket N count the values from 2^(N-1) to 2^N - 1
+	private final AtomicLongArray buckets = new AtomicLongArray(64);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * <p>record.</p>
+	 *
+	 * @param value a positive value, negative values are recorded as 0
+	 */
+	public void record(long value) {
+		long recorded = Math.max(0, value);
+		buckets.incrementAndGet(Math.min(63, 64 - Long.numberOfLeadingZeros(recorded)));
+		count.increment();
+		total.add(recorded);
+
+		long currentMax = max.get();
+		while (recorded > currentMax && !max.compareAndSet(currentMax, recorded)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * <p>getCount.</p>
+	 *
+	 * @return a long.
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * <p>getTotal.</p>
+	 *
+	 * @return a long.
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * <p>getMax.</p>
+	 *
+	 * @return a long.
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * <p>getMean.</p>
+	 *
+	 * @return a double.
+	 */
+	public double getMean() {
+		long recorded = getCount();
+		return recorded == 0 ? 0 : (double) getTotal() / recorded;
+	}
+
+	/**
+	 * <p>getPercentile.</p>
+	 *
+	 * The values are grouped by power of two, the percentile is the upper
+	 * bound of its bucket and never more than the max
+	 *
+	 * @param percentile between 0 and 100
+	 * @return a long.
+	 */
+	public long getPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("percentile must be between 0 and 100");
+		}
+
+		long[] snapshot = getBuckets();
+		long recorded = 0;
+		for (long bucket : snapshot) {
+			recorded += bucket;
+		}
+		long rank = (long) Math.ceil(recorded * percentile / 100);
+
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank && seen > 0) {
+				return Math.min(i == 0 ? 0 : (1L << i) - 1, getMax());
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * <p>getBuckets.</p>
+	 *
+	 * @return the count of each power of two bucket
+	 */
+	public long[] getBuckets() {
+		long[] snapshot = new long[buckets.length()];
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = buckets.get(i);
+		}
+		return snapshot;
+	}
+
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.torpedoquery.core.QueryExecution;
+import org.torpedoquery.core.QueryListener;
+import org.torpedoquery.jpa.internal.metrics.PlanCacheShape.Cause;
+import org.torpedoquery.jpa.internal.query.QueryShape;
+import org.torpedoquery.jpa.internal.query.QueryShape.Literal;
+
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+public class PlanCacheMonitor implements QueryListener {
+
+	private static final Logger LOGGER = Logger.getLogger(PlanCacheMonitor.class.getName());
+
+	private final int maxVariants;
+	private final int maxShapes;
+	private final ConcurrentMap<String, PlanCacheShape> shapes = new ConcurrentHashMap<>();
+	private final LongAdder alerts = new LongAdder();
+
+	/**
+	 * <p>
+	 * Constructor for PlanCacheMonitor.
+	 * </p>
+	 *
+	 * @param maxVariants
+	 *            a shape with more variants is reported
+	 * @param maxShapes
+	 *            the number of shapes tracked, the next ones are ignored
+	 */
+	public PlanCacheMonitor(int maxVariants, int maxShapes) {
+		if (maxVariants <= 0) {
+			throw new IllegalArgumentException("maxVariants must be greater than 0");
+		}
+		this.maxVariants = maxVariants;
+		this.maxShapes = maxShapes;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void executed(QueryExecution execution) {
+		record(execution);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void failed(QueryExecution execution, RuntimeException exception) {
+		record(execution);
+	}
+
+	private void record(QueryExecution execution) {
+		String query = execution.getQuery();
+		Map<Cause, Hasher> components = new EnumMap<>(Cause.class);
+		for (Cause cause : Cause.values()) {
+			components.put(cause, Hashing.murmur3_128().newHasher());
+		}
+		String normalized = QueryShape.normalize(query,
+				(literal, text) -> components.get(cause(literal)).putString(text, StandardCharsets.UTF_8));
+
+		Hasher variant = Hashing.murmur3_128().newHasher().putString(query, StandardCharsets.UTF_8);
+		for (Map.Entry<String, Object> parameter : execution.getParameters().entrySet()) {
+			if (parameter.getValue() instanceof Collection) {
+				int size = ((Collection<?>) parameter.getValue()).size();
+				variant.putString(parameter.getKey(), StandardCharsets.UTF_8).putInt(size);
+				components.get(Cause.IN_LIST_SIZE).putString(parameter.getKey(), StandardCharsets.UTF_8)
+						.putInt(size);
+			}
+		}
+
+		long[] componentHashes = new long[components.size()];
+		for (Map.Entry<Cause, Hasher> component : components.entrySet()) {
+			componentHashes[component.getKey().ordinal()] = component.getValue().hash().asLong();
+		}
+
+		PlanCacheShape shape = shape(normalized, query, componentHashes);
+		if (shape == null) {
+			return;
+		}
+		shape.record(variant.hash().asLong(), componentHashes);
+
+		if (!shape.isPolluting() && shape.getVariants() > maxVariants && shape.markPolluting()) {
+			alerts.increment();
+			LOGGER.log(Level.WARNING, "query shape fans out into {0} variants because of {1}, the plan cache of the "
+					+ "jpa provider will evict other queries: {2}",
+					new Object[] { shape.getVariants(), describe(shape.getCauses()), shape.getShape() });
+		}
+	}
+
+	private PlanCacheShape shape(String normalized, String query, long[] components) {
+		PlanCacheShape shape = shapes.get(normalized);
+		if (shape == null) {
+			if (shapes.size() >= maxShapes) {
+				return null;
+			}
+			shape = shapes.computeIfAbsent(normalized, key -> new PlanCacheShape(key, query, components));
+		}
+		return shape;
+	}
+
+	private static Cause cause(Literal literal) {
+		switch (literal) {
+		case STRING:
+			return Cause.STRING_LITERAL;
+		case ENTITY_TYPE:
+			return Cause.ENTITY_TYPE;
+		default:
+			return Cause.NUMERIC_LITERAL;
+		}
+	}
+
+	private static String describe(Set<Cause> causes) {
+		List<String> descriptions = new ArrayList<>();
+		for (Cause cause : causes) {
+			descriptions.add(cause.name().toLowerCase() + " (" + cause.getConditions() + ")");
+		}
+		return String.join(", ", descriptions);
+	}
+
+	/**
+	 * <p>
+	 * getShapes.
+	 * </p>
+	 *
+	 * @return the tracked shapes by query without literals
+	 */
+	public Map<String, PlanCacheShape> getShapes() {
+		return Collections.unmodifiableMap(shapes);
+	}
+
+	/**
+	 * <p>
+	 * getPollutingShapes.
+	 * </p>
+	 *
+	 * @return the shapes with more variants than the threshold
+	 */
+	public List<PlanCacheShape> getPollutingShapes() {
+		List<PlanCacheShape> polluting = new ArrayList<>();
+		for (PlanCacheShape shape : shapes.values()) {
+			if (shape.isPolluting()) {
+				polluting.add(shape);
+			}
+		}
+		return polluting;
+	}
+
+	/**
+	 * <p>
+	 * getAlerts.
+	 * </p>
+	 *
+	 * @return the number of shapes reported
+	 */
+	public long getAlerts() {
+		return alerts.sum();
+	}
+
+	/**
+	 * <p>
+	 * reset.
+	 * </p>
+	 */
+	public void reset() {
+		shapes.clear();
+		alerts.reset();
+	}
+
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class PlanCacheShape {
+
+	public enum Cause {
+		STRING_LITERAL("LikeCondition, NotLikeCondition, ConstantFunctionHandler"),
+		NUMERIC_LITERAL("ConstantFunctionHandler"),
+		ENTITY_TYPE("EqualPolymorphicCondition, NotEqualPolymorphicCondition"),
+		IN_LIST_SIZE("InCondition, NotInCondition");
+
+		private final String conditions;
+
+		private Cause(String conditions) {
+			this.conditions = conditions;
+		}
+
+		/**
+		 * <p>
+		 * Getter for the field <code>conditions</code>.
+		 * </p>
+		 *
+		 * @return the conditions rendering this part of the query
+		 */
+		public String getConditions() {
+			return conditions;
+		}
+	}
+
+	// linear counting, accurate up to a few thousand variants
+	private static final int BITS = 4096;
+
+	private final String shape;
+	private final String query;
+	private final AtomicLongArray sketch = new AtomicLongArray(BITS / 64);
+	// the hash of the literals of each cause in the first variant
+	private final long[] components;
+	private final Set<Cause> causes = Collections.synchronizedSet(EnumSet.noneOf(Cause.class));
+	private final AtomicBoolean polluting = new AtomicBoolean();
+
+	/**
+	 * <p>
+	 * Constructor for PlanCacheShape.
+	 * </p>
+	 *
+	 * @param shape
+	 *            the query without its literals
+	 * @param query
+	 *            the first variant of the shape
+	 * @param components
+	 *            the hash of the literals of the first variant, by cause
+	 *            ordinal
+	 */
+	public PlanCacheShape(String shape, String query, long[] components) {
+		this.shape = shape;
+		this.query = query;
+		this.components = components.clone();
+	}
+
+	void record(long variant, long[] variantComponents) {
+		int bit = (int) (variant >>> 52);
+		int word = bit >>> 6;
+		long mask = 1L << (bit & 63);
+		long current = sketch.get(word);
+		while ((current & mask) == 0 && !sketch.compareAndSet(word, current, current | mask)) {
+			current = sketch.get(word);
+		}
+		// a literal is a cause only when its value changes between the variants
+		for (Cause cause : Cause.values()) {
+			if (variantComponents[cause.ordinal()] != components[cause.ordinal()] && !causes.contains(cause)) {
+				causes.add(cause);
+			}
+		}
+	}
+
+	boolean markPolluting() {
+		return polluting.compareAndSet(false, true);
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>shape</code>.
+	 * </p>
+	 *
+	 * @return the query with ? in place of its literals
+	 */
+	public String getShape() {
+		return shape;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>query</code>.
+	 * </p>
+	 *
+	 * @return the first variant of the shape
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * <p>
+	 * getVariants.
+	 * </p>
+	 *
+	 * @return the estimated number of distinct query strings and in list sizes
+	 */
+	public long getVariants() {
+		int set = 0;
+		for (int i = 0; i < sketch.length(); i++) {
+			set += Long.bitCount(sketch.get(i));
+		}
+		int empty = BITS - set;
+		if (empty == 0) {
+			return Math.round(BITS * Math.log(BITS));
+		}
+		return Math.round(-BITS * Math.log((double) empty / BITS));
+	}
+
+	/**
+	 * <p>
+	 * getCauses.
+	 * </p>
+	 *
+	 * @return the parts of the query which change between the variants
+	 */
+	public Set<Cause> getCauses() {
+		EnumSet<Cause> copy = EnumSet.noneOf(Cause.class);
+		synchronized (causes) {
+			copy.addAll(causes);
+		}
+		return Collections.unmodifiableSet(copy);
+	}
+
+	/**
+	 * <p>
+	 * isPolluting.
+	 * </p>
+	 *
+	 * @return true once the variants went over the threshold
+	 */
+	public boolean isPolluting() {
+		return polluting.get();
+	}
+
+}
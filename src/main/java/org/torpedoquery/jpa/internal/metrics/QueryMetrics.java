@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.torpedoquery.core.QueryExecution;
+import org.torpedoquery.core.QueryListener;
+
+public class QueryMetrics implements QueryListener {
+
+	private static final int MAX_SHAPES = 10000;
+
+	private final ConcurrentMap<String, ShapeMetrics> shapes = new ConcurrentHashMap<>();
+
+	/** {@inheritDoc} */
+	@Override
+	public void executed(QueryExecution execution) {
+		ShapeMetrics shape = shape(execution);
+		if (shape != null) {
+			shape.executed(execution);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void skipped(QueryExecution execution) {
+		ShapeMetrics shape = shape(execution);
+		if (shape != null) {
+			shape.skipped(execution);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void failed(QueryExecution execution, RuntimeException exception) {
+		ShapeMetrics shape = shape(execution);
+		if (shape != null) {
+			shape.failed(execution);
+		}
+	}
+
+	private ShapeMetrics shape(QueryExecution execution) {
+		ShapeMetrics shape = shapes.get(execution.getFingerprint());
+		if (shape == null) {
+			if (shapes.size() >= MAX_SHAPES) {
+				return null;
+			}
+			shape = shapes.computeIfAbsent(execution.getFingerprint(),
+					fingerprint -> new ShapeMetrics(fingerprint, execution.getQuery()));
+		}
+		return shape;
+	}
+
+	/**
+	 * <p>
+	 * getShapes.
+	 * </p>
+	 *
+	 * @return the metrics by query fingerprint, updated live, the shapes
+	 *         after the first 10000 are ignored
+	 */
+	public Map<String, ShapeMetrics> getShapes() {
+		return Collections.unmodifiableMap(shapes);
+	}
+
+	/**
+	 * <p>
+	 * getShape.
+	 * </p>
+	 *
+	 * @param fingerprint
+	 *            a {@link java.lang.String} object.
+	 * @return null when the shape was never executed
+	 */
+	public ShapeMetrics getShape(String fingerprint) {
+		return shapes.get(fingerprint);
+	}
+
+	/**
+	 * <p>
+	 * reset.
+	 * </p>
+	 */
+	public void reset() {
+		shapes.clear();
+	}
+
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.query.QueryStatistics;
+import org.torpedoquery.jpa.internal.utils.MultiClassLoaderProvider;
+import org.torpedoquery.jpa.internal.utils.ProxyFactoryFactory;
+
+public class QueryMonitor implements QueryMonitorMXBean {
+
+	/** Constant <code>OBJECT_NAME="org.torpedoquery:type=QueryMonitor"</code> */
+	public static final String OBJECT_NAME = "org.torpedoquery:type=QueryMonitor";
+
+	private final QueryMetrics metrics;
+	private final int topShapes;
+
+	/**
+	 * <p>
+	 * Constructor for QueryMonitor.
+	 * </p>
+	 *
+	 * @param metrics
+	 *            the metrics to expose, registered as a query listener
+	 * @param topShapes
+	 *            the number of shapes returned by the top attributes
+	 */
+	public QueryMonitor(QueryMetrics metrics, int topShapes) {
+		if (topShapes <= 0) {
+			throw new IllegalArgumentException("topShapes must be greater than 0");
+		}
+		this.metrics = metrics;
+		this.topShapes = topShapes;
+	}
+
+	/**
+	 * <p>
+	 * register.
+	 * </p>
+	 *
+	 * Register a new query metrics listener and its monitor in the platform
+	 * mbean server
+	 *
+	 * @param topShapes
+	 *            the number of shapes returned by the top attributes
+	 * @return the registered monitor
+	 * @throws javax.management.JMException
+	 *             if a monitor is already registered
+	 */
+	public static QueryMonitor register(int topShapes) throws JMException {
+		QueryMetrics metrics = new QueryMetrics();
+		QueryMonitor monitor = new QueryMonitor(metrics, topShapes);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, new ObjectName(OBJECT_NAME));
+		TorpedoMagic.addQueryListener(metrics);
+		return monitor;
+	}
+
+	/**
+	 * <p>
+	 * unregister.
+	 * </p>
+	 *
+	 * Remove the monitor from the platform mbean server and its metrics from
+	 * the query listeners
+	 *
+	 * @throws javax.management.JMException
+	 *             if the monitor is not registered
+	 */
+	public void unregister() throws JMException {
+		TorpedoMagic.removeQueryListener(metrics);
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(OBJECT_NAME));
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>metrics</code>.
+	 * </p>
+	 *
+	 * @return a {@link org.torpedoquery.jpa.internal.metrics.QueryMetrics} object.
+	 */
+	public QueryMetrics getMetrics() {
+		return metrics;
+	}
+
+	private List<ShapeSummary> summaries() {
+		List<ShapeSummary> summaries = new ArrayList<>();
+		for (ShapeMetrics shape : metrics.getShapes().values()) {
+			summaries.add(new ShapeSummary(shape));
+		}
+		return summaries;
+	}
+
+	private List<ShapeSummary> top(Comparator<ShapeSummary> order) {
+		List<ShapeSummary> summaries = summaries();
+		summaries.sort(order.reversed());
+		return summaries.size() > topShapes ? new ArrayList<>(summaries.subList(0, topShapes)) : summaries;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<ShapeSummary> getTopShapesByTotalTime() {
+		return top(Comparator.comparingLong(ShapeSummary::getTotalMillis));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<ShapeSummary> getTopShapesByCount() {
+		return top(Comparator.comparingLong(ShapeSummary::getCount));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<ShapeSummary> getTopShapesByP99() {
+		return top(Comparator.comparingLong(ShapeSummary::getP99Micros));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<ShapeSummary> getTopShapesByAverageRows() {
+		return top(Comparator.comparingDouble(ShapeSummary::getAverageRows));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getShapeCount() {
+		return metrics.getShapes().size();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getSkippedExecutions() {
+		return QueryStatistics.getSkippedExecutions();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getCumulativeProxyClassCount() {
+		return ProxyFactoryFactory.getCumulativeProxyClassCount();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getClassLoaderCount() {
+		return MultiClassLoaderProvider.getClassLoaderCount();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getCachedClassCount() {
+		return MultiClassLoaderProvider.getCachedClassCount();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void reset() {
+		metrics.reset();
+		QueryStatistics.reset();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String dumpSnapshot() {
+		List<ShapeSummary> summaries = summaries();
+		summaries.sort(Comparator.comparingLong(ShapeSummary::getTotalMillis).reversed());
+
+		StringBuilder snapshot = new StringBuilder();
+		snapshot.append("shapes=").append(summaries.size()).append(" skipped=").append(getSkippedExecutions())
+				.append(" cumulativeProxyClasses=").append(getCumulativeProxyClassCount()).append(" classLoaders=")
+				.append(getClassLoaderCount()).append(" cachedClasses=").append(getCachedClassCount());
+		for (ShapeSummary summary : summaries) {
+			snapshot.append("\n").append(summary);
+		}
+		return snapshot.toString();
+	}
+
+}
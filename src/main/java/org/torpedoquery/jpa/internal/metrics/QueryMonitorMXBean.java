@@ -0,0 +1,124 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.List;
+
+public interface QueryMonitorMXBean {
+
+	/**
+	 * <p>
+	 * getTopShapesByTotalTime.
+	 * </p>
+	 *
+	 * @return a {@link java.util.List} object.
+	 */
+	List<ShapeSummary> getTopShapesByTotalTime();
+
+	/**
+	 * <p>
+	 * getTopShapesByCount.
+	 * </p>
+	 *
+	 * @return a {@link java.util.List} object.
+	 */
+	List<ShapeSummary> getTopShapesByCount();
+
+	/**
+	 * <p>
+	 * getTopShapesByP99.
+	 * </p>
+	 *
+	 * @return a {@link java.util.List} object.
+	 */
+	List<ShapeSummary> getTopShapesByP99();
+
+	/**
+	 * <p>
+	 * getTopShapesByAverageRows.
+	 * </p>
+	 *
+	 * @return a {@link java.util.List} object.
+	 */
+	List<ShapeSummary> getTopShapesByAverageRows();
+
+	/**
+	 * <p>
+	 * getShapeCount.
+	 * </p>
+	 *
+	 * @return the number of query shapes executed since the last reset
+	 */
+	int getShapeCount();
+
+	/**
+	 * <p>
+	 * getSkippedExecutions.
+	 * </p>
+	 *
+	 * @return the executions answered without the database
+	 */
+	long getSkippedExecutions();
+
+	/**
+	 * <p>
+	 * getCumulativeProxyClassCount.
+	 * </p>
+	 *
+	 * @return the proxy classes created since the start, never decrease
+	 */
+	long getCumulativeProxyClassCount();
+
+	/**
+	 * <p>
+	 * getClassLoaderCount.
+	 * </p>
+	 *
+	 * @return the size of the proxy class loader cache
+	 */
+	int getClassLoaderCount();
+
+	/**
+	 * <p>
+	 * getCachedClassCount.
+	 * </p>
+	 *
+	 * @return the class names cached by the proxy class loaders
+	 */
+	long getCachedClassCount();
+
+	/**
+	 * <p>
+	 * reset.
+	 * </p>
+	 *
+	 * Clear the query metrics and statistics
+	 */
+	void reset();
+
+	/**
+	 * <p>
+	 * dumpSnapshot.
+	 * </p>
+	 *
+	 * @return every shape, the most expensive first, and the proxy counters
+	 */
+	String dumpSnapshot();
+
+}
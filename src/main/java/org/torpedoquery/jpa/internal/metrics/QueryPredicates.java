@@ -0,0 +1,224 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.torpedoquery.jpa.internal.metrics.UnindexablePredicate.Reason;
+
+/**
+ * The columns used by a rendered query, read back from the query string
+ * because the rendering of the conditions is regular
+ */
+final class QueryPredicates {
+
+	enum Usage {
+		EQUALITY, RANGE, SORT
+	}
+
+	static final class Unindexable {
+		final String entity;
+		final String column;
+		final Reason reason;
+
+		private Unindexable(String entity, String column, Reason reason) {
+			this.entity = entity;
+			this.column = column;
+			this.reason = reason;
+		}
+	}
+
+	private static final Pattern FROM = Pattern.compile("\\b(?:from|join) ([A-Z][\\w$]*) (\\w+_\\d+)\\b");
+	private static final Pattern JOIN_PATH = Pattern.compile("\\bjoin (?:fetch )?(\\w+_\\d+)\\.([\\w.]+) (\\w+_\\d+)\\b");
+	private static final Pattern PREDICATE = Pattern.compile("(?:\\b(lower|upper|trim|length|abs|sqrt|concat|substring|locate)\\( ?)?"
+			+ "\\b(\\w+_\\d+)\\.([\\w.]+)\\)? (=|<>|>=|<=|>|<|like|not like|in|not in|between|not between|is null|is not null)( '[^']*')?");
+	private static final Pattern COLUMN = Pattern.compile("^(\\w+_\\d+)\\.([\\w.]+)(?: asc| desc)?$");
+
+	private final Map<String, Map<Usage, Set<String>>> columns = new LinkedHashMap<>();
+	private final List<Unindexable> unindexables = new ArrayList<>();
+
+	private QueryPredicates() {
+	}
+
+	static QueryPredicates parse(String query) {
+		QueryPredicates predicates = new QueryPredicates();
+		Map<String, String> entities = entities(query);
+
+		String conditions = query;
+		String sort = "";
+		int orderBy = query.lastIndexOf(" order by ");
+		if (orderBy >= 0) {
+			sort = query.substring(orderBy + " order by ".length());
+			conditions = query.substring(0, orderBy);
+		}
+		int groupBy = conditions.lastIndexOf(" group by ");
+		if (groupBy >= 0) {
+			String grouping = conditions.substring(groupBy + " group by ".length());
+			conditions = conditions.substring(0, groupBy);
+			int having = grouping.indexOf(" having ");
+			sort = (having >= 0 ? grouping.substring(0, having) : grouping) + (sort.isEmpty() ? "" : "," + sort);
+		}
+
+		String conjunctive = conjunctive(conditions);
+		Matcher matcher = PREDICATE.matcher(conditions);
+		while (matcher.find()) {
+			String entity = entities.get(matcher.group(2));
+			if (entity == null) {
+				continue;
+			}
+			String column = matcher.group(3);
+			String operator = matcher.group(4);
+			String literal = matcher.group(5);
+			boolean disjunctive = conjunctive.charAt(matcher.start()) == ' ';
+
+			if (matcher.group(1) != null) {
+				predicates.unindexables.add(new Unindexable(entity, column, Reason.FUNCTION));
+			} else if (disjunctive) {
+				continue;
+			} else if (operator.equals("=") || operator.equals("in") || operator.equals("is null")) {
+				predicates.add(entity, Usage.EQUALITY, column);
+			} else if (operator.equals("like")) {
+				if (literal != null && (literal.startsWith(" '%") || literal.startsWith(" '_"))) {
+					predicates.unindexables.add(new Unindexable(entity, column, Reason.LEADING_WILDCARD));
+				} else {
+					predicates.add(entity, Usage.RANGE, column);
+				}
+			} else if (!operator.startsWith("not") && !operator.equals("<>") && !operator.equals("is not null")) {
+				predicates.add(entity, Usage.RANGE, column);
+			}
+		}
+
+		for (String item : sort.split(",")) {
+			Matcher column = COLUMN.matcher(item.trim());
+			if (column.matches() && entities.containsKey(column.group(1))) {
+				predicates.add(entities.get(column.group(1)), Usage.SORT, column.group(2));
+			}
+		}
+
+		return predicates;
+	}
+
+	/**
+	 * The predicates of a disjunction can not be combined in one index, the
+	 * groups with an or at their own level are blanked
+	 */
+	private static String conjunctive(String conditions) {
+		StringBuilder conjunctive = new StringBuilder(conditions);
+		// the start of each open group and whether an or was found at its level
+		Deque<int[]> groups = new ArrayDeque<>();
+		groups.push(new int[] { 0, 0 });
+		boolean quoted = false;
+		for (int i = 0; i < conditions.length(); i++) {
+			char c = conditions.charAt(i);
+			if (c == '\'') {
+				quoted = !quoted;
+			} else if (quoted) {
+				continue;
+			} else if (c == '(') {
+				groups.push(new int[] { i, 0 });
+			} else if (c == ')' && groups.size() > 1) {
+				blank(conjunctive, groups.pop(), i + 1);
+			} else if (conditions.startsWith(" or ", i)) {
+				groups.peek()[1] = 1;
+			}
+		}
+		while (!groups.isEmpty()) {
+			blank(conjunctive, groups.pop(), conditions.length());
+		}
+		return conjunctive.toString();
+	}
+
+	private static void blank(StringBuilder conditions, int[] group, int end) {
+		if (group[1] == 1) {
+			for (int i = group[0]; i < end; i++) {
+				conditions.setCharAt(i, ' ');
+			}
+		}
+	}
+
+	private static Map<String, String> entities(String query) {
+		Map<String, String> entities = new HashMap<>();
+		Matcher from = FROM.matcher(query);
+		while (from.find()) {
+			entities.put(from.group(2), from.group(1));
+		}
+		// the joins are declared in order, the owner alias is already known
+		Matcher join = JOIN_PATH.matcher(query);
+		while (join.find()) {
+			String owner = entities.get(join.group(1));
+			if (owner != null) {
+				entities.put(join.group(3), owner + "." + join.group(2));
+			}
+		}
+		return entities;
+	}
+
+	private void add(String entity, Usage usage, String column) {
+		Map<Usage, Set<String>> usages = columns.get(entity);
+		if (usages == null) {
+			usages = new EnumMap<>(Usage.class);
+			columns.put(entity, usages);
+		}
+		Set<String> set = usages.get(usage);
+		if (set == null) {
+			set = new LinkedHashSet<>();
+			usages.put(usage, set);
+		}
+		set.add(column);
+	}
+
+	/**
+	 * equality columns first, then the first range column, then the sort
+	 * columns
+	 */
+	Map<String, List<String>> getIndexes() {
+		Map<String, List<String>> indexes = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<Usage, Set<String>>> entry : columns.entrySet()) {
+			Map<Usage, Set<String>> usages = entry.getValue();
+			Set<String> index = new LinkedHashSet<>();
+			if (usages.containsKey(Usage.EQUALITY)) {
+				index.addAll(usages.get(Usage.EQUALITY));
+			}
+			if (usages.containsKey(Usage.RANGE)) {
+				index.add(usages.get(Usage.RANGE).iterator().next());
+			}
+			if (usages.containsKey(Usage.SORT)) {
+				index.addAll(usages.get(Usage.SORT));
+			}
+			indexes.put(entry.getKey(), new ArrayList<>(index));
+		}
+		return indexes;
+	}
+
+	List<Unindexable> getUnindexables() {
+		return unindexables;
+	}
+
+}
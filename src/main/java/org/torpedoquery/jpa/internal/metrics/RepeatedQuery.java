@@ -0,0 +1,148 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class RepeatedQuery {
+
+	private static final Pattern SINGLE_EQUALITY = Pattern
+			.compile(" where [a-zA-Z_0-9]+_\\d+\\.([a-zA-Z_0-9.]+) = :[a-zA-Z_0-9]+$");
+
+	private final String fingerprint;
+	private final String query;
+	private final int executions;
+	private final int distinctParameters;
+	private final StackTraceElement[] caller;
+
+	/**
+	 * <p>
+	 * Constructor for RepeatedQuery.
+	 * </p>
+	 *
+	 * @param fingerprint
+	 *            a {@link java.lang.String} object.
+	 * @param query
+	 *            a {@link java.lang.String} object.
+	 * @param executions
+	 *            the executions of the shape in the unit of work
+	 * @param distinctParameters
+	 *            the number of different parameter values
+	 * @param caller
+	 *            the stack of the first execution over the budget
+	 */
+	public RepeatedQuery(String fingerprint, String query, int executions, int distinctParameters,
+			StackTraceElement[] caller) {
+		this.fingerprint = fingerprint;
+		this.query = query;
+		this.executions = executions;
+		this.distinctParameters = distinctParameters;
+		this.caller = caller;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>fingerprint</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>query</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>executions</code>.
+	 * </p>
+	 *
+	 * @return a int.
+	 */
+	public int getExecutions() {
+		return executions;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>distinctParameters</code>.
+	 * </p>
+	 *
+	 * @return 1 when the same query was executed again and again, counted up
+	 *         to the budget plus one
+	 */
+	public int getDistinctParameters() {
+		return distinctParameters;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>caller</code>.
+	 * </p>
+	 *
+	 * @return the stack without the torpedo frames
+	 */
+	public StackTraceElement[] getCaller() {
+		return caller.clone();
+	}
+
+	/**
+	 * <p>
+	 * getSuggestion.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getSuggestion() {
+		if (distinctParameters <= 1) {
+			return "the same query is executed with the same values, keep its result";
+		}
+		Matcher matcher = SINGLE_EQUALITY.matcher(query);
+		if (matcher.find()) {
+			return "load the " + distinctParameters + " values with one query using where(..." + matcher.group(1)
+					+ ").in(values) or a coalescing loader, or fetch join the association in the parent query";
+		}
+		return "fetch join the association in the parent query or batch the lookups with an in condition";
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(executions).append(" executions with ").append(distinctParameters)
+				.append(" different values of ").append(fingerprint).append(" ").append(query);
+		builder.append("\n\tsuggestion: ").append(getSuggestion());
+		for (StackTraceElement element : caller) {
+			builder.append("\n\tat ").append(element);
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.torpedoquery.core.QueryExecution;
+import org.torpedoquery.core.QueryListener;
+
+public class RepeatedQueryDetector implements QueryListener {
+
+	private static final String[] EXECUTION_FRAMES = { "org.torpedoquery.jpa.internal.query.",
+			"org.torpedoquery.jpa.internal.batch.", "java.", "sun.", "jdk." };
+
+	private final int maxExecutions;
+	private final ThreadLocal<Scope> scopes = new ThreadLocal<>();
+
+	public class Scope implements AutoCloseable {
+
+		private final Scope parent;
+		private final Map<String, Shape> shapes = new LinkedHashMap<>();
+		private boolean closed;
+
+		private Scope(Scope parent) {
+			this.parent = parent;
+		}
+
+		private void executed(QueryExecution execution) {
+			Shape shape = shapes.get(execution.getFingerprint());
+			if (shape == null) {
+				shape = new Shape(execution.getQuery());
+				shapes.put(execution.getFingerprint(), shape);
+			}
+			shape.executions++;
+			if (shape.parameters.size() <= maxExecutions) {
+				shape.parameters.add(execution.getParameters());
+			}
+			if (shape.executions == maxExecutions + 1) {
+				shape.caller = caller();
+			}
+		}
+
+		/**
+		 * <p>
+		 * getRepeatedQueries.
+		 * </p>
+		 *
+		 * @return the shapes executed more than the budget in this scope
+		 */
+		public List<RepeatedQuery> getRepeatedQueries() {
+			List<RepeatedQuery> repeatedQueries = new ArrayList<>();
+			for (Map.Entry<String, Shape> entry : shapes.entrySet()) {
+				Shape shape = entry.getValue();
+				if (shape.executions > maxExecutions) {
+					repeatedQueries.add(new RepeatedQuery(entry.getKey(), shape.query, shape.executions,
+							shape.parameters.size(), shape.caller));
+				}
+			}
+			return Collections.unmodifiableList(repeatedQueries);
+		}
+
+		/**
+		 * Stop the detection in the current thread, the enclosing scope is
+		 * restored. Closing a scope before the scopes nested in it also
+		 * closes them.
+		 */
+		@Override
+		public void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			for (Scope scope = scopes.get(); scope != null; scope = scope.parent) {
+				if (scope == this) {
+					for (Scope nested = scopes.get(); nested != this; nested = nested.parent) {
+						nested.closed = true;
+					}
+					if (parent == null) {
+						scopes.remove();
+					} else {
+						scopes.set(parent);
+					}
+					return;
+				}
+			}
+		}
+	}
+
+	private static class Shape {
+		private final String query;
+		private final Set<Map<String, Object>> parameters = new HashSet<>();
+		private int executions;
+		private StackTraceElement[] caller;
+
+		private Shape(String query) {
+			this.query = query;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Constructor for RepeatedQueryDetector.
+	 * </p>
+	 *
+	 * @param maxExecutions
+	 *            the executions allowed by query shape in a unit of work
+	 */
+	public RepeatedQueryDetector(int maxExecutions) {
+		if (maxExecutions <= 0) {
+			throw new IllegalArgumentException("maxExecutions must be greater than 0");
+		}
+		this.maxExecutions = maxExecutions;
+	}
+
+	/**
+	 * <p>
+	 * open.
+	 * </p>
+	 *
+	 * Start a unit of work in the current thread, the executions of a nested
+	 * scope are also counted in its enclosing scopes
+	 *
+	 * @return the scope to close at the end of the unit of work
+	 */
+	public Scope open() {
+		Scope scope = new Scope(scopes.get());
+		scopes.set(scope);
+		return scope;
+	}
+
+	/**
+	 * <p>
+	 * current.
+	 * </p>
+	 *
+	 * @return the scope of the current thread, null outside a unit of work
+	 */
+	public Scope current() {
+		return scopes.get();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void executed(QueryExecution execution) {
+		for (Scope scope = scopes.get(); scope != null; scope = scope.parent) {
+			scope.executed(execution);
+		}
+	}
+
+	private static StackTraceElement[] caller() {
+		StackTraceElement[] stack = new Throwable().getStackTrace();
+		int first = 0;
+		while (first < stack.length && isExecutionFrame(stack[first].getClassName())) {
+			first++;
+		}
+		return Arrays.copyOfRange(stack, first, stack.length);
+	}
+
+	private static boolean isExecutionFrame(String className) {
+		if (className.equals(RepeatedQueryDetector.class.getName())
+				|| className.startsWith(RepeatedQueryDetector.class.getName() + "$")) {
+			return true;
+		}
+		for (String prefix : EXECUTION_FRAMES) {
+			if (className.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.torpedoquery.core.QueryExecution;
+
+public class ShapeMetrics {
+
+	private final String fingerprint;
+	private final String query;
+	private final LatencyHistogram recording = new LatencyHistogram();
+	private final LatencyHistogram rendering = new LatencyHistogram();
+	private final LatencyHistogram binding = new LatencyHistogram();
+	private final LatencyHistogram execution = new LatencyHistogram();
+	private final LatencyHistogram rows = new LatencyHistogram();
+	private final LongAdder skipped = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+
+	/**
+	 * <p>
+	 * Constructor for ShapeMetrics.
+	 * </p>
+	 *
+	 * @param fingerprint
+	 *            a {@link java.lang.String} object.
+	 * @param query
+	 *            the first rendered query of the shape
+	 */
+	public ShapeMetrics(String fingerprint, String query) {
+		this.fingerprint = fingerprint;
+		this.query = query;
+	}
+
+	void executed(QueryExecution queryExecution) {
+		recordPhases(queryExecution);
+		execution.record(queryExecution.getExecutionNanos());
+		rows.record(queryExecution.getRowCount());
+	}
+
+	void skipped(QueryExecution queryExecution) {
+		recordPhases(queryExecution);
+		skipped.increment();
+	}
+
+	void failed(QueryExecution queryExecution) {
+		recordPhases(queryExecution);
+		execution.record(queryExecution.getExecutionNanos());
+		failed.increment();
+	}
+
+	private void recordPhases(QueryExecution queryExecution) {
+		recording.record(queryExecution.getRecordingNanos());
+		if (queryExecution.getRenderingNanos() > 0) {
+			rendering.record(queryExecution.getRenderingNanos());
+		}
+		binding.record(queryExecution.getBindingNanos());
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>fingerprint</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>query</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>recording</code>.
+	 * </p>
+	 *
+	 * @return the recording time in nanoseconds
+	 */
+	public LatencyHistogram getRecording() {
+		return recording;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>rendering</code>.
+	 * </p>
+	 *
+	 * @return the rendering time in nanoseconds, once by rendered query
+	 */
+	public LatencyHistogram getRendering() {
+		return rendering;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>binding</code>.
+	 * </p>
+	 *
+	 * @return the parameter binding time in nanoseconds
+	 */
+	public LatencyHistogram getBinding() {
+		return binding;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>execution</code>.
+	 * </p>
+	 *
+	 * @return the execution time in nanoseconds
+	 */
+	public LatencyHistogram getExecution() {
+		return execution;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>rows</code>.
+	 * </p>
+	 *
+	 * @return the row count of the successful executions
+	 */
+	public LatencyHistogram getRows() {
+		return rows;
+	}
+
+	/**
+	 * <p>
+	 * getSkipped.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getSkipped() {
+		return skipped.sum();
+	}
+
+	/**
+	 * <p>
+	 * getFailed.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+}
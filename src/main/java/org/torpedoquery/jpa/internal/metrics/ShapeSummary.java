@@ -0,0 +1,149 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+public class ShapeSummary {
+
+	private final String fingerprint;
+	private final String query;
+	private final long count;
+	private final long totalMillis;
+	private final long p99Micros;
+	private final double averageRows;
+	private final long skipped;
+	private final long failed;
+
+	/**
+	 * <p>
+	 * Constructor for ShapeSummary.
+	 * </p>
+	 *
+	 * @param metrics
+	 *            a {@link org.torpedoquery.jpa.internal.metrics.ShapeMetrics} object.
+	 */
+	public ShapeSummary(ShapeMetrics metrics) {
+		LatencyHistogram execution = metrics.getExecution();
+		this.fingerprint = metrics.getFingerprint();
+		this.query = metrics.getQuery();
+		this.count = execution.getCount();
+		this.totalMillis = TimeUnit.NANOSECONDS.toMillis(execution.getTotal());
+		this.p99Micros = TimeUnit.NANOSECONDS.toMicros(execution.getPercentile(99));
+		this.averageRows = metrics.getRows().getMean();
+		this.skipped = metrics.getSkipped();
+		this.failed = metrics.getFailed();
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>fingerprint</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>query</code>.
+	 * </p>
+	 *
+	 * @return a rendered query of the shape
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>count</code>.
+	 * </p>
+	 *
+	 * @return the executions, including the failed ones
+	 */
+	public long getCount() {
+		return count;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>totalMillis</code>.
+	 * </p>
+	 *
+	 * @return the total execution time
+	 */
+	public long getTotalMillis() {
+		return totalMillis;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>p99Micros</code>.
+	 * </p>
+	 *
+	 * @return the 99th percentile of the execution time
+	 */
+	public long getP99Micros() {
+		return p99Micros;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>averageRows</code>.
+	 * </p>
+	 *
+	 * @return a double.
+	 */
+	public double getAverageRows() {
+		return averageRows;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>skipped</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>failed</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getFailed() {
+		return failed;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return fingerprint + " count=" + count + " total=" + totalMillis + "ms p99=" + p99Micros + "us rows="
+				+ String.format("%.1f", averageRows) + " skipped=" + skipped + " failed=" + failed + " " + query;
+	}
+
+}
@@ -0,0 +1,268 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class SlowQuery {
+
+	private final long timestamp;
+	private final String fingerprint;
+	private final String query;
+	private final Map<String, String> parameters;
+	private final int firstResult;
+	private final int maxResults;
+	private final String lockMode;
+	private final int rowCount;
+	private final long recordingNanos;
+	private final long renderingNanos;
+	private final long bindingNanos;
+	private final long executionNanos;
+	private final String error;
+
+	/**
+	 * <p>
+	 * Constructor for SlowQuery.
+	 * </p>
+	 *
+	 * @param timestamp
+	 *            the end of the execution in milliseconds since the epoch
+	 * @param fingerprint
+	 *            a {@link java.lang.String} object.
+	 * @param query
+	 *            a {@link java.lang.String} object.
+	 * @param parameters
+	 *            the redacted parameters
+	 * @param firstResult
+	 *            a int.
+	 * @param maxResults
+	 *            a int.
+	 * @param lockMode
+	 *            a {@link java.lang.String} object.
+	 * @param rowCount
+	 *            a int.
+	 * @param recordingNanos
+	 *            a long.
+	 * @param renderingNanos
+	 *            a long.
+	 * @param bindingNanos
+	 *            a long.
+	 * @param executionNanos
+	 *            a long.
+	 * @param error
+	 *            the exception of a failed execution, null on success
+	 */
+	public SlowQuery(long timestamp, String fingerprint, String query, Map<String, String> parameters,
+			int firstResult, int maxResults, String lockMode, int rowCount, long recordingNanos, long renderingNanos,
+			long bindingNanos, long executionNanos, String error) {
+		this.timestamp = timestamp;
+		this.fingerprint = fingerprint;
+		this.query = query;
+		this.parameters = parameters;
+		this.firstResult = firstResult;
+		this.maxResults = maxResults;
+		this.lockMode = lockMode;
+		this.rowCount = rowCount;
+		this.recordingNanos = recordingNanos;
+		this.renderingNanos = renderingNanos;
+		this.bindingNanos = bindingNanos;
+		this.executionNanos = executionNanos;
+		this.error = error;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>timestamp</code>.
+	 * </p>
+	 *
+	 * @return milliseconds since the epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>fingerprint</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>query</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>parameters</code>.
+	 * </p>
+	 *
+	 * @return the parameters as configured by the
+	 *         {@link org.torpedoquery.jpa.internal.metrics.SlowQueryLog.ParameterView}
+	 */
+	public Map<String, String> getParameters() {
+		return parameters;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>firstResult</code>.
+	 * </p>
+	 *
+	 * @return a int.
+	 */
+	public int getFirstResult() {
+		return firstResult;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>maxResults</code>.
+	 * </p>
+	 *
+	 * @return 0 when unlimited
+	 */
+	public int getMaxResults() {
+		return maxResults;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>lockMode</code>.
+	 * </p>
+	 *
+	 * @return null when not set
+	 */
+	public String getLockMode() {
+		return lockMode;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>rowCount</code>.
+	 * </p>
+	 *
+	 * @return -1 when the execution failed
+	 */
+	public int getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>recordingNanos</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getRecordingNanos() {
+		return recordingNanos;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>renderingNanos</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getRenderingNanos() {
+		return renderingNanos;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>bindingNanos</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getBindingNanos() {
+		return bindingNanos;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>executionNanos</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getExecutionNanos() {
+		return executionNanos;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>error</code>.
+	 * </p>
+	 *
+	 * @return null when the execution succeeded
+	 */
+	public String getError() {
+		return error;
+	}
+
+	/**
+	 * <p>
+	 * getTotalMillis.
+	 * </p>
+	 *
+	 * @return the rendering, binding and execution time in milliseconds
+	 */
+	public long getTotalMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(renderingNanos + bindingNanos + executionNanos);
+	}
+
+	/**
+	 * One line of the slow query log file
+	 *
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append(Instant.ofEpochMilli(timestamp)).append(" slow query ").append(getTotalMillis())
+				.append(" ms shape=").append(fingerprint).append(" rows=").append(rowCount).append(" first=")
+				.append(firstResult).append(" max=").append(maxResults).append(" lock=").append(lockMode)
+				.append(" recording=").append(TimeUnit.NANOSECONDS.toMicros(recordingNanos))
+				.append("us rendering=").append(TimeUnit.NANOSECONDS.toMicros(renderingNanos))
+				.append("us binding=").append(TimeUnit.NANOSECONDS.toMicros(bindingNanos))
+				.append("us execution=").append(TimeUnit.NANOSECONDS.toMicros(executionNanos)).append("us");
+		if (error != null) {
+			builder.append(" error=").append(error);
+		}
+		builder.append(" parameters=").append(parameters).append(" query=").append(query);
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,283 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.torpedoquery.core.QueryExecution;
+import org.torpedoquery.core.QueryListener;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+public class SlowQueryLog implements QueryListener, SlowQueryLogMXBean, Closeable {
+
+	public enum ParameterView {
+		/** only the type of the values */
+		REDACTED,
+		/**
+		 * a hash of the values keyed by a random key of the log, equal values
+		 * have the same hash in a log but a guessed value can not be checked
+		 * without the key
+		 */
+		HASHED,
+		/** the values as is */
+		VALUES
+	}
+
+	private final long thresholdNanos;
+	private final ParameterView parameterView;
+	private final SlowQuery[] buffer;
+	private final File file;
+	private final long maxFileSize;
+	private final int maxFiles;
+	private final LongAdder writeErrors = new LongAdder();
+	private final HashFunction valueHash;
+
+	// guarded by buffer
+	private long written;
+
+	// guarded by this, kept open between the slow queries
+	private OutputStream out;
+	private long fileSize;
+
+	/**
+	 * <p>
+	 * Constructor for SlowQueryLog without log file.
+	 * </p>
+	 *
+	 * @param threshold
+	 *            the minimum rendering, binding and execution time of a slow
+	 *            query
+	 * @param unit
+	 *            a {@link java.util.concurrent.TimeUnit} object.
+	 * @param bufferSize
+	 *            the number of slow queries kept in memory
+	 * @param parameterView
+	 *            how the parameters are logged
+	 */
+	public SlowQueryLog(long threshold, TimeUnit unit, int bufferSize, ParameterView parameterView) {
+		this(threshold, unit, bufferSize, parameterView, null, 0, 0);
+	}
+
+	/**
+	 * <p>
+	 * Constructor for SlowQueryLog.
+	 * </p>
+	 *
+	 * @param threshold
+	 *            the minimum rendering, binding and execution time of a slow
+	 *            query
+	 * @param unit
+	 *            a {@link java.util.concurrent.TimeUnit} object.
+	 * @param bufferSize
+	 *            the number of slow queries kept in memory
+	 * @param parameterView
+	 *            how the parameters are logged
+	 * @param file
+	 *            the log file, one line by slow query
+	 * @param maxFileSize
+	 *            the file is rotated once it reaches this size in bytes
+	 * @param maxFiles
+	 *            the number of rotated files kept, named file.1 to file.n
+	 */
+	public SlowQueryLog(long threshold, TimeUnit unit, int bufferSize, ParameterView parameterView, File file,
+			long maxFileSize, int maxFiles) {
+		if (bufferSize <= 0) {
+			throw new IllegalArgumentException("bufferSize must be greater than 0");
+		}
+		if (file != null && maxFileSize <= 0) {
+			throw new IllegalArgumentException("maxFileSize must be greater than 0");
+		}
+		if (maxFiles < 0) {
+			throw new IllegalArgumentException("maxFiles must be positive");
+		}
+		this.thresholdNanos = unit.toNanos(threshold);
+		this.parameterView = parameterView;
+		this.buffer = new SlowQuery[bufferSize];
+		this.file = file;
+		this.maxFileSize = maxFileSize;
+		this.maxFiles = maxFiles;
+		SecureRandom random = new SecureRandom();
+		this.valueHash = Hashing.sipHash24(random.nextLong(), random.nextLong());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void executed(QueryExecution execution) {
+		if (execution.getTotalNanos() >= thresholdNanos) {
+			log(execution, null);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void failed(QueryExecution execution, RuntimeException exception) {
+		if (execution.getTotalNanos() >= thresholdNanos) {
+			log(execution, exception.toString());
+		}
+	}
+
+	private void log(QueryExecution execution, String error) {
+		SlowQuery slowQuery = new SlowQuery(System.currentTimeMillis(), execution.getFingerprint(),
+				execution.getQuery(), view(execution.getParameters()), execution.getFirstResult(),
+				execution.getMaxResults(), execution.getLockMode() != null ? execution.getLockMode().name() : null,
+				execution.getRowCount(), execution.getRecordingNanos(), execution.getRenderingNanos(),
+				execution.getBindingNanos(), execution.getExecutionNanos(), error);
+
+		synchronized (buffer) {
+			buffer[(int) (written++ % buffer.length)] = slowQuery;
+		}
+
+		if (file != null) {
+			write(slowQuery.toString() + System.lineSeparator());
+		}
+	}
+
+	private Map<String, String> view(Map<String, Object> parameters) {
+		Map<String, String> view = new LinkedHashMap<>();
+		for (Map.Entry<String, Object> parameter : parameters.entrySet()) {
+			Object value = parameter.getValue();
+			String text;
+			if (value == null) {
+				text = "null";
+			} else if (parameterView == ParameterView.VALUES) {
+				text = String.valueOf(value);
+			} else if (parameterView == ParameterView.HASHED) {
+				text = "#" + valueHash.hashString(String.valueOf(value), StandardCharsets.UTF_8);
+			} else {
+				text = "<" + value.getClass().getSimpleName() + ">";
+			}
+			view.put(parameter.getKey(), text);
+		}
+		return view;
+	}
+
+	private synchronized void write(String line) {
+		byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+		try {
+			if (out == null) {
+				open();
+			}
+			if (fileSize > 0 && fileSize + bytes.length > maxFileSize) {
+				close();
+				rotate();
+				open();
+			}
+			out.write(bytes);
+			fileSize += bytes.length;
+		} catch (IOException e) {
+			// a slow query log must never fail the query, the file is reopened by the next line
+			writeErrors.increment();
+			close();
+		}
+	}
+
+	private void open() throws IOException {
+		out = Files.newOutputStream(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		fileSize = file.length();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Close the log file, it is reopened by the next slow query
+	 */
+	@Override
+	public synchronized void close() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				writeErrors.increment();
+			}
+			out = null;
+		}
+	}
+
+	private void rotate() throws IOException {
+		if (maxFiles == 0) {
+			Files.delete(file.toPath());
+			return;
+		}
+		Files.deleteIfExists(rotated(maxFiles).toPath());
+		for (int i = maxFiles - 1; i >= 1; i--) {
+			File rotated = rotated(i);
+			if (rotated.exists()) {
+				Files.move(rotated.toPath(), rotated(i + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		Files.move(file.toPath(), rotated(1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private File rotated(int index) {
+		return new File(file.getPath() + "." + index);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getThresholdMillis() {
+		return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public List<SlowQuery> getSlowQueries() {
+		synchronized (buffer) {
+			int size = (int) Math.min(written, buffer.length);
+			List<SlowQuery> slowQueries = new ArrayList<>(size);
+			for (long i = written - size; i < written; i++) {
+				slowQueries.add(buffer[(int) (i % buffer.length)]);
+			}
+			return Collections.unmodifiableList(slowQueries);
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getWriteErrors() {
+		return writeErrors.sum();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public void clear() {
+		synchronized (buffer) {
+			Arrays.fill(buffer, null);
+			written = 0;
+		}
+	}
+
+}
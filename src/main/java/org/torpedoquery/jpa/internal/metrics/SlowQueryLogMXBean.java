@@ -0,0 +1,61 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import java.util.List;
+
+public interface SlowQueryLogMXBean {
+
+	/**
+	 * <p>
+	 * getThresholdMillis.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	long getThresholdMillis();
+
+	/**
+	 * <p>
+	 * getSlowQueries.
+	 * </p>
+	 *
+	 * @return the last slow queries, oldest first
+	 */
+	List<SlowQuery> getSlowQueries();
+
+	/**
+	 * <p>
+	 * getWriteErrors.
+	 * </p>
+	 *
+	 * @return the number of lines which could not be written to the log file
+	 */
+	long getWriteErrors();
+
+	/**
+	 * <p>
+	 * clear.
+	 * </p>
+	 *
+	 * Forget the buffered slow queries, the log file is kept
+	 */
+	void clear();
+
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+public final class TorpedoEvents {
+
+	/**
+	 * The recorded events, the default recorder record nothing
+	 */
+	public static class Recorder {
+
+		/**
+		 * <p>beginRendering.</p>
+		 *
+		 * @return the started event, null when the event is disabled
+		 */
+		public Object beginRendering() {
+			return null;
+		}
+
+		/**
+		 * <p>endRendering.</p>
+		 *
+		 * @param event the started event.
+		 * @param query the rendered query.
+		 * @param parameterCount a int.
+		 */
+		public void endRendering(Object event, String query, int parameterCount) {
+		}
+
+		/**
+		 * <p>beginExecution.</p>
+		 *
+		 * @return the started event, null when the event is disabled
+		 */
+		public Object beginExecution() {
+			return null;
+		}
+
+		/**
+		 * <p>endExecution.</p>
+		 *
+		 * @param event the started event.
+		 * @param query the executed query.
+		 * @param parameterCount a int.
+		 * @param rowCount the returned or updated rows, -1 when the execution failed
+		 */
+		public void endExecution(Object event, String query, int parameterCount, int rowCount) {
+		}
+
+		/**
+		 * <p>beginProxyGeneration.</p>
+		 *
+		 * @return the started event, null when the event is disabled
+		 */
+		public Object beginProxyGeneration() {
+			return null;
+		}
+
+		/**
+		 * <p>endProxyGeneration.</p>
+		 *
+		 * @param event the started event.
+		 * @param proxyClass the generated class.
+		 * @param engine the name of the proxy engine.
+		 */
+		public void endProxyGeneration(Object event, Class<?> proxyClass, String engine) {
+		}
+	}
+
+	private static final Recorder recorder = createRecorder();
+
+	private TorpedoEvents() {
+	}
+
+	private static Recorder createRecorder() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			// loaded by name, the jfr classes are not linked on a jvm without flight recorder
+			// and FlightRecorderEvents is not built on java 8
+			return (Recorder) Class.forName(TorpedoEvents.class.getPackage().getName() + ".FlightRecorderEvents")
+					.newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return new Recorder();
+		}
+	}
+
+	/**
+	 * <p>getRecorder.</p>
+	 *
+	 * @return the flight recorder events when the jvm support them
+	 */
+	public static Recorder getRecorder() {
+		return recorder;
+	}
+
+}
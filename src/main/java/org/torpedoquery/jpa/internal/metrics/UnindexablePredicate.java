@@ -0,0 +1,138 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+public class UnindexablePredicate {
+
+	public enum Reason {
+		/** like with a pattern starting with % or _ */
+		LEADING_WILDCARD,
+		/** the column is wrapped by a function like lower, upper or trim */
+		FUNCTION
+	}
+
+	private final String entity;
+	private final String column;
+	private final Reason reason;
+	private final String query;
+	private final long executions;
+	private final long executionNanos;
+
+	/**
+	 * <p>
+	 * Constructor for UnindexablePredicate.
+	 * </p>
+	 *
+	 * @param entity
+	 *            the entity name, followed by the association path for joins
+	 * @param column
+	 *            the property path
+	 * @param reason
+	 *            a {@link org.torpedoquery.jpa.internal.metrics.UnindexablePredicate.Reason} object.
+	 * @param query
+	 *            a query using the predicate
+	 * @param executions
+	 *            a long.
+	 * @param executionNanos
+	 *            the total execution time of the queries using the predicate
+	 */
+	public UnindexablePredicate(String entity, String column, Reason reason, String query, long executions,
+			long executionNanos) {
+		this.entity = entity;
+		this.column = column;
+		this.reason = reason;
+		this.query = query;
+		this.executions = executions;
+		this.executionNanos = executionNanos;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>entity</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getEntity() {
+		return entity;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>column</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getColumn() {
+		return column;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>reason</code>.
+	 * </p>
+	 *
+	 * @return a {@link org.torpedoquery.jpa.internal.metrics.UnindexablePredicate.Reason} object.
+	 */
+	public Reason getReason() {
+		return reason;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>query</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>executions</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getExecutions() {
+		return executions;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>executionNanos</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getExecutionNanos() {
+		return executionNanos;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return entity + "." + column + " " + reason + " " + executions + " executions " + executionNanos / 1000000
+				+ " ms " + query;
+	}
+
+}
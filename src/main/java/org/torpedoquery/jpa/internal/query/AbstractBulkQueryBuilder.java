@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.persistence.EntityManager;
+
+import org.torpedoquery.core.QueryBuilder;
+import org.torpedoquery.jpa.ChunkableBulkQuery;
+import org.torpedoquery.jpa.ChunkedBulkQuery;
+import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.TorpedoProxy;
+import org.torpedoquery.jpa.internal.handlers.ArrayCallHandler;
+import org.torpedoquery.jpa.internal.handlers.ValueHandler;
+import org.torpedoquery.jpa.internal.utils.TorpedoMethodHandler;
+
+public abstract class AbstractBulkQueryBuilder<T> implements ChunkableBulkQuery {
+
+	private final TorpedoMethodHandler methodHandler;
+	private final QueryBuilder<T> root;
+
+	private String freezeQuery;
+	private String fingerprint;
+
+	/**
+	 * <p>
+	 * Constructor for AbstractBulkQueryBuilder.
+	 * </p>
+	 *
+	 * @param methodHandler
+	 *            the method handler of the updated or deleted entity
+	 */
+	public AbstractBulkQueryBuilder(TorpedoMethodHandler methodHandler) {
+		this.methodHandler = methodHandler;
+		this.root = methodHandler.getRoot();
+	}
+
+	/**
+	 * <p>
+	 * appendStatement.
+	 * </p>
+	 *
+	 * @param builder
+	 *            a {@link java.lang.StringBuilder} object.
+	 * @param root
+	 *            a {@link org.torpedoquery.core.QueryBuilder} object.
+	 * @param incrementor
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
+	 */
+	protected abstract void appendStatement(StringBuilder builder, QueryBuilder<T> root, RenderContext incrementor);
+
+	/**
+	 * <p>
+	 * getStatementParameters.
+	 * </p>
+	 *
+	 * @return the parameters of the statement, the where clause excluded
+	 */
+	protected abstract List<ValueParameter<?>> getStatementParameters();
+
+	/**
+	 * <p>
+	 * unfreeze.
+	 * </p>
+	 */
+	protected void unfreeze() {
+		freezeQuery = null;
+		fingerprint = null;
+	}
+
+	// computed once for the frozen query
+	private String getFingerprint() {
+		if (fingerprint == null) {
+			fingerprint = QueryShape.fingerprint(getQuery());
+		}
+		return fingerprint;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getQuery() {
+		if (freezeQuery == null) {
+
+			if (root.hasSubJoin()) {
+				throw new IllegalArgumentException("Bulk update and delete cannot have join");
+			}
+
+			RenderContext incrementor = new RenderContext();
+			StringBuilder builder = new StringBuilder();
+
+			appendStatement(builder, root, incrementor);
+			builder.append(root.appendWhereClause(new StringBuilder(), incrementor));
+
+			freezeQuery = builder.toString().trim();
+		}
+		return freezeQuery;
+	}
+
+	/**
+	 * <p>
+	 * getStatement.
+	 * </p>
+	 *
+	 * @return the statement without the where clause
+	 */
+	public String getStatement() {
+		getQuery();
+
+		StringBuilder builder = new StringBuilder();
+		appendStatement(builder, root, new RenderContext());
+		return builder.toString();
+	}
+
+	/**
+	 * <p>
+	 * getRoot.
+	 * </p>
+	 *
+	 * @return the query builder of the updated or deleted entity
+	 */
+	public QueryBuilder<T> getRoot() {
+		return root;
+	}
+
+	/**
+	 * <p>
+	 * getRootSelector.
+	 * </p>
+	 *
+	 * @param property
+	 *            a property of the updated or deleted entity
+	 * @return the selector of the property
+	 */
+	protected Selector getRootSelector(Object property) {
+		final Selector[] selector = new Selector[1];
+
+		methodHandler.handle(new ArrayCallHandler(new ValueHandler<Void>() {
+			@Override
+			public Void handle(TorpedoProxy proxy, QueryBuilder queryBuilder, Selector propertySelector) {
+				if (queryBuilder != root) {
+					throw new IllegalArgumentException("Only the properties of the updated or deleted entity can be used");
+				}
+				selector[0] = propertySelector;
+				return null;
+			}
+		}, new Object[] { property }));
+
+		return selector[0];
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <K> ChunkedBulkQuery<K> inChunks(K key, int chunkSize) {
+		return new ChunkedBulkQueryBuilder<>(this, getRootSelector(key), chunkSize);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Map<String, Object> getParameters() {
+
+		getQuery();
+
+		Map<String, Object> params = new HashMap<>();
+		List<ValueParameter<?>> parameters = getStatementParameters();
+		parameters.addAll(root.getValueParameters());
+		for (ValueParameter parameter : parameters) {
+			params.put(parameter.getName(), parameter.getValue());
+		}
+		return params;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int execute(EntityManager entityManager) {
+		String queryString = getQuery();
+		final javax.persistence.Query query = entityManager.createQuery(queryString);
+		long binding = System.nanoTime();
+
+		for (Entry<String, Object> parameter : getParameters().entrySet()) {
+			query.setParameter(parameter.getKey(), parameter.getValue());
+		}
+
+		long bindingNanos = System.nanoTime() - binding;
+
+		TorpedoMagic.setQuery(null);
+
+		return QueryListeners.execute(query, queryString, this::getFingerprint, this::getParameters, 0, 0,
+				bindingNanos, javax.persistence.Query::executeUpdate, updated -> updated);
+	}
+
+}
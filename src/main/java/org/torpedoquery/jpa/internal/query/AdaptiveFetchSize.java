@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+public class AdaptiveFetchSize {
+
+	/** Constant <code>HIBERNATE_FETCH_SIZE="org.hibernate.fetchSize"</code> */
+	public static final String HIBERNATE_FETCH_SIZE = "org.hibernate.fetchSize";
+	/** Constant <code>ECLIPSELINK_FETCH_SIZE="eclipselink.jdbc.fetch-size"</code> */
+	public static final String ECLIPSELINK_FETCH_SIZE = "eclipselink.jdbc.fetch-size";
+
+	private static final int MAX_SHAPES = 10000;
+
+	private final String hint;
+	private final int minFetchSize;
+	private final int maxFetchSize;
+	private final double weight;
+	// the average row count by query fingerprint, as double bits, the least
+	// recently used shapes are evicted
+	private final Cache<String, AtomicLong> averages = CacheBuilder.newBuilder().maximumSize(MAX_SHAPES).build();
+
+	/**
+	 * <p>
+	 * Constructor for AdaptiveFetchSize.
+	 * </p>
+	 *
+	 * @param hint
+	 *            the fetch size hint of the jpa provider
+	 * @param minFetchSize
+	 *            the smallest fetch size set, the lookups of a few rows stay
+	 *            with the default of the driver
+	 * @param maxFetchSize
+	 *            the largest fetch size set
+	 * @param weight
+	 *            the weight of the last row count in the average, between 0
+	 *            exclusive and 1
+	 */
+	public AdaptiveFetchSize(String hint, int minFetchSize, int maxFetchSize, double weight) {
+		if (minFetchSize <= 0 || maxFetchSize < minFetchSize) {
+			throw new IllegalArgumentException("the fetch sizes must be greater than 0 and min must be below max");
+		}
+		if (weight <= 0 || weight > 1) {
+			throw new IllegalArgumentException("weight must be between 0 exclusive and 1");
+		}
+		this.hint = hint;
+		this.minFetchSize = minFetchSize;
+		this.maxFetchSize = maxFetchSize;
+		this.weight = weight;
+	}
+
+	/**
+	 * <p>
+	 * getFetchSize.
+	 * </p>
+	 *
+	 * @param fingerprint
+	 *            the fingerprint of the rendered query
+	 * @param maxResults
+	 *            the max results of the execution, 0 when unlimited
+	 * @return the fetch size to use, 0 to keep the default of the driver
+	 */
+	public int getFetchSize(String fingerprint, int maxResults) {
+		AtomicLong average = averages.getIfPresent(fingerprint);
+		if (average == null) {
+			return 0;
+		}
+		long expected = (long) Math.ceil(Double.longBitsToDouble(average.get()));
+		if (maxResults > 0) {
+			expected = Math.min(expected, maxResults);
+		}
+		if (expected < minFetchSize) {
+			return 0;
+		}
+		return (int) Math.min(expected, maxFetchSize);
+	}
+
+	void apply(javax.persistence.Query jpaQuery, String fingerprint, int maxResults) {
+		int fetchSize = getFetchSize(fingerprint, maxResults);
+		if (fetchSize > 0) {
+			jpaQuery.setHint(hint, fetchSize);
+		}
+	}
+
+	/**
+	 * <p>
+	 * observe.
+	 * </p>
+	 *
+	 * @param fingerprint
+	 *            the fingerprint of the rendered query, the queries differing
+	 *            only by their inlined literals share their average
+	 * @param rowCount
+	 *            the rows returned by an execution
+	 */
+	public void observe(String fingerprint, int rowCount) {
+		AtomicLong average = averages.getIfPresent(fingerprint);
+		if (average == null) {
+			average = averages.asMap().putIfAbsent(fingerprint, new AtomicLong(Double.doubleToLongBits(rowCount)));
+			if (average == null) {
+				return;
+			}
+		}
+
+		long current;
+		long next;
+		do {
+			current = average.get();
+			double value = Double.longBitsToDouble(current);
+			next = Double.doubleToLongBits(value + weight * (rowCount - value));
+		} while (!average.compareAndSet(current, next));
+	}
+
+	/**
+	 * <p>
+	 * reset.
+	 * </p>
+	 */
+	public void reset() {
+		averages.invalidateAll();
+	}
+
+}
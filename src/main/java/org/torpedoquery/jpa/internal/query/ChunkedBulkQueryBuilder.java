@@ -0,0 +1,231 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+
+import org.torpedoquery.core.QueryBuilder;
+import org.torpedoquery.jpa.ChunkProgress;
+import org.torpedoquery.jpa.ChunkedBulkQuery;
+import org.torpedoquery.jpa.internal.Selector;
+
+public class ChunkedBulkQueryBuilder<K> implements ChunkedBulkQuery<K> {
+
+	private static final String LAST_KEY = "lastKey";
+	private static final String KEYS = "keys";
+
+	private final AbstractBulkQueryBuilder<?> bulkQuery;
+	private final Selector key;
+	private final int chunkSize;
+
+	private long pauseMillis;
+	private K resumeKey;
+	private Consumer<ChunkProgress<K>> listener;
+
+	/**
+	 * <p>
+	 * Constructor for ChunkedBulkQueryBuilder.
+	 * </p>
+	 *
+	 * @param bulkQuery
+	 *            the update or delete to apply
+	 * @param key
+	 *            the selector of the key property
+	 * @param chunkSize
+	 *            maximum number of keys by chunk
+	 */
+	public ChunkedBulkQueryBuilder(AbstractBulkQueryBuilder<?> bulkQuery, Selector key, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be greater than 0");
+		}
+		this.bulkQuery = bulkQuery;
+		this.key = key;
+		this.chunkSize = chunkSize;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ChunkedBulkQuery<K> pause(long pause, TimeUnit unit) {
+		this.pauseMillis = unit.toMillis(pause);
+		return this;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ChunkedBulkQuery<K> resumeFrom(K lastKey) {
+		this.resumeKey = lastKey;
+		return this;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ChunkedBulkQuery<K> onProgress(Consumer<ChunkProgress<K>> listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	/**
+	 * <p>
+	 * getKeyQuery.
+	 * </p>
+	 *
+	 * @param resume
+	 *            true to restrict the keys greater than the last key
+	 * @return the query selecting the keys of the next chunk
+	 */
+	public String getKeyQuery(boolean resume) {
+		List<String> restrictions = getRestrictions();
+
+		QueryBuilder<?> root = bulkQuery.getRoot();
+		RenderContext incrementor = new RenderContext();
+		String keyFragment = key.createQueryFragment(incrementor);
+
+		if (resume) {
+			restrictions.add(keyFragment + " > :" + LAST_KEY);
+		}
+
+		return "select " + keyFragment + " from " + root.getEntityName() + " " + root.getAlias(incrementor)
+				+ toWhereClause(restrictions) + " order by " + keyFragment;
+	}
+
+	/**
+	 * <p>
+	 * getQuery.
+	 * </p>
+	 *
+	 * @return the statement applied to the keys of a chunk
+	 */
+	public String getQuery() {
+		List<String> restrictions = getRestrictions();
+		String statement = bulkQuery.getStatement();
+
+		restrictions.add(key.createQueryFragment(new RenderContext()) + " in ( :" + KEYS + " )");
+
+		return statement + toWhereClause(restrictions);
+	}
+
+	private List<String> getRestrictions() {
+		// render the bulk query first so the alias and parameter names are
+		// the same in every statement
+		bulkQuery.getQuery();
+
+		List<String> restrictions = new ArrayList<>();
+		String whereClause = bulkQuery.getRoot().appendWhereClause(new StringBuilder(), new RenderContext()).toString()
+				.trim();
+
+		if (!whereClause.isEmpty()) {
+			restrictions.add("( " + whereClause.substring("where ".length()) + " )");
+		}
+		return restrictions;
+	}
+
+	private static String toWhereClause(List<String> restrictions) {
+		return restrictions.isEmpty() ? "" : " where " + String.join(" and ", restrictions);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public ChunkProgress<K> execute(EntityManagerFactory entityManagerFactory) {
+		final String firstKeyQuery = getKeyQuery(false);
+		final String nextKeyQuery = getKeyQuery(true);
+		final String mutation = getQuery();
+
+		long start = System.currentTimeMillis();
+		int chunks = 0;
+		long rows = 0;
+		K lastKey = resumeKey;
+		ChunkProgress<K> progress = new DefaultChunkProgress<>(chunks, rows, lastKey, 0);
+
+		while (!Thread.currentThread().isInterrupted()) {
+
+			List<K> keys;
+			int updated;
+			EntityManager entityManager = entityManagerFactory.createEntityManager();
+			EntityTransaction transaction = entityManager.getTransaction();
+
+			try {
+				transaction.begin();
+
+				javax.persistence.Query keyQuery = entityManager
+						.createQuery(lastKey == null ? firstKeyQuery : nextKeyQuery);
+				for (ValueParameter<?> parameter : bulkQuery.getRoot().getValueParameters()) {
+					keyQuery.setParameter(parameter.getName(), parameter.getValue());
+				}
+				if (lastKey != null) {
+					keyQuery.setParameter(LAST_KEY, lastKey);
+				}
+				keyQuery.setMaxResults(chunkSize);
+				keys = keyQuery.getResultList();
+
+				if (keys.isEmpty()) {
+					transaction.commit();
+					break;
+				}
+
+				javax.persistence.Query mutationQuery = entityManager.createQuery(mutation);
+				for (Entry<String, Object> parameter : bulkQuery.getParameters().entrySet()) {
+					mutationQuery.setParameter(parameter.getKey(), parameter.getValue());
+				}
+				mutationQuery.setParameter(KEYS, keys);
+				updated = mutationQuery.executeUpdate();
+
+				transaction.commit();
+			} catch (RuntimeException e) {
+				if (transaction.isActive()) {
+					transaction.rollback();
+				}
+				throw e;
+			} finally {
+				entityManager.close();
+			}
+
+			chunks++;
+			rows += updated;
+			lastKey = keys.get(keys.size() - 1);
+			progress = new DefaultChunkProgress<>(chunks, rows, lastKey, System.currentTimeMillis() - start);
+
+			if (listener != null) {
+				listener.accept(progress);
+			}
+
+			if (keys.size() < chunkSize) {
+				break;
+			}
+
+			if (pauseMillis > 0) {
+				try {
+					Thread.sleep(pauseMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		return progress;
+	}
+
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import org.torpedoquery.jpa.ChunkProgress;
+
+public class DefaultChunkProgress<K> implements ChunkProgress<K> {
+
+	private final int chunks;
+	private final long rows;
+	private final K lastKey;
+	private final long elapsedMillis;
+
+	/**
+	 * <p>
+	 * Constructor for DefaultChunkProgress.
+	 * </p>
+	 *
+	 * @param chunks
+	 *            a int.
+	 * @param rows
+	 *            a long.
+	 * @param lastKey
+	 *            a K object.
+	 * @param elapsedMillis
+	 *            a long.
+	 */
+	public DefaultChunkProgress(int chunks, long rows, K lastKey, long elapsedMillis) {
+		this.chunks = chunks;
+		this.rows = rows;
+		this.lastKey = lastKey;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int getChunks() {
+		return chunks;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getRows() {
+		return rows;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public K getLastKey() {
+		return lastKey;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public double getRowsPerSecond() {
+		return elapsedMillis > 0 ? rows * 1000d / elapsedMillis : 0;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		return "chunks=" + chunks + ", rows=" + rows + ", lastKey=" + lastKey + ", rowsPerSecond=" + getRowsPerSecond();
+	}
+
+}
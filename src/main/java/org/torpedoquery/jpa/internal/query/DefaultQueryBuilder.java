@@ -19,16 +19,17 @@
  */
 package org.torpedoquery.jpa.internal.query;
 
+import static org.torpedoquery.jpa.internal.conditions.ConditionHelper.findConditions;
 import static org.torpedoquery.jpa.internal.conditions.ConditionHelper.getConditionClause;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 
 import javax.persistence.Entity;
 import javax.persistence.EntityManager;
@@ -36,7 +37,9 @@ import javax.persistence.LockModeType;
 import javax.persistence.NoResultException;
 
 import org.apache.commons.lang3.SerializationUtils;
+import org.torpedoquery.core.ParameterBinding;
 import org.torpedoquery.core.QueryBuilder;
+import org.torpedoquery.core.QueryExecution;
 import org.torpedoquery.jpa.OnGoingLogicalCondition;
 import org.torpedoquery.jpa.Query;
 import org.torpedoquery.jpa.internal.Condition;
@@ -45,6 +48,10 @@ import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
 import org.torpedoquery.jpa.internal.TorpedoMagic;
 import org.torpedoquery.jpa.internal.conditions.ConditionBuilder;
+import org.torpedoquery.jpa.internal.conditions.InSubQueryCondition;
+import org.torpedoquery.jpa.internal.metrics.TorpedoEvents;
+import org.torpedoquery.jpa.internal.selectors.ObjectSelector;
+import org.torpedoquery.jpa.internal.selectors.SimpleMethodCallSelector;
 
 public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	private final Class<?> toQuery;
@@ -54,12 +61,21 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	private ConditionBuilder<T> withClause;
 
 	private String freezeQuery;
+	private String fingerprint;
+	private List<ValueParameter<?>> positionalParameters;
+	private Condition optimizedWhereClause;
+	private Condition optimizedWithClause;
 
 	private String alias;
+	private DefaultQueryBuilder<?> aliasOwner;
 	private OrderBy orderBy;
 	private GroupBy groupBy;
 
 	// paging infos
+	private final long createdNanos = System.nanoTime();
+	private long recordingNanos;
+	private long renderingNanos;
+
 	private int startPosition;
 	private int maxResult;
 	private LockModeType lockMode;
@@ -79,37 +95,55 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see org.torpedoquery.jpa.internal.query.QueryBuilder#getQuery(java.util.
-	 * concurrent.atomic.AtomicInteger)
+	 * @see org.torpedoquery.jpa.internal.query.QueryBuilder#getQuery(org.torpedoquery.jpa.internal.query.RenderContext)
 	 */
 	/** {@inheritDoc} */
 	@Override
-	public String getQuery(AtomicInteger incrementor) {
+	public String getQuery(RenderContext incrementor) {
+		if (incrementor.isTrial()) {
+			return renderQuery(incrementor);
+		}
 		return freezeQuery(incrementor);
 	}
 
-	private String freezeQuery(AtomicInteger incrementor) {
+	private String freezeQuery(RenderContext incrementor) {
 
 		if (freezeQuery == null) {
-			String from = " from " + getEntityName() + " " + getAlias(incrementor);
-			StringBuilder builder = new StringBuilder();
+			mergeDuplicateJoins();
+			freezeQuery = renderQuery(incrementor);
 
-			appendSelect(builder, incrementor);
+			if (TorpedoMagic.isUnusedJoinElimination()) {
+				while (eliminateUnusedJoins(freezeQuery, incrementor)) {
+					freezeQuery = renderQuery(incrementor);
+				}
+			}
+		}
+		return freezeQuery;
+	}
 
-			builder.append(from)
+	/**
+	 * The aliases and the parameter names are generated at the first rendering,
+	 * rendering again give the same names
+	 */
+	private String renderQuery(RenderContext incrementor) {
+		String alias = getAlias(incrementor);
+		incrementor.declareAlias(alias);
+		String from = " from " + getEntityName() + " " + alias;
+		StringBuilder builder = new StringBuilder();
 
-					.append(getJoins(incrementor))
+		appendSelect(builder, incrementor);
 
-					.append(appendWhereClause(new StringBuilder(), incrementor))
+		builder.append(from)
 
-					.append(appendOrderBy(new StringBuilder(), incrementor))
+				.append(getJoins(incrementor))
 
-					.append(appendGroupBy(new StringBuilder(), incrementor));
+				.append(appendWhereClause(new StringBuilder(), incrementor))
 
-			freezeQuery = builder.toString().trim();
+				.append(appendOrderBy(new StringBuilder(), incrementor))
 
-		}
-		return freezeQuery;
+				.append(appendGroupBy(new StringBuilder(), incrementor));
+
+		return builder.toString().trim();
 	}
 
 	/** {@inheritDoc} */
@@ -126,7 +160,34 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	/** {@inheritDoc} */
 	@Override
 	public String getQuery() {
-		return getQuery(new AtomicInteger());
+		if (freezeQuery == null) {
+			Object event = TorpedoEvents.getRecorder().beginRendering();
+			long started = System.nanoTime();
+			RenderContext incrementor = new RenderContext(
+					TorpedoMagic.getParameterBinding() == ParameterBinding.POSITIONAL);
+			freezeQuery(incrementor);
+
+			if (incrementor.isPositional()) {
+				positionalParameters = incrementor.getPositionalParameters();
+			}
+			renderingNanos = System.nanoTime() - started;
+
+			if (event != null) {
+				TorpedoEvents.getRecorder().endRendering(event, freezeQuery, positionalParameters != null
+						? positionalParameters.size() : getValueParameters().size());
+			}
+		}
+		return freezeQuery;
+	}
+
+	/**
+	 * The fingerprint of the frozen query, computed once
+	 */
+	private String getFingerprint() {
+		if (fingerprint == null) {
+			fingerprint = QueryShape.fingerprint(getQuery());
+		}
+		return fingerprint;
 	}
 
 	/*
@@ -134,11 +195,11 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	 * 
 	 * @see
 	 * org.torpedoquery.jpa.internal.query.QueryBuilder#appendOrderBy(java.lang.
-	 * StringBuilder, java.util.concurrent.atomic.AtomicInteger)
+	 * StringBuilder, org.torpedoquery.jpa.internal.query.RenderContext)
 	 */
 	/** {@inheritDoc} */
 	@Override
-	public String appendOrderBy(StringBuilder builder, AtomicInteger incrementor) {
+	public String appendOrderBy(StringBuilder builder, RenderContext incrementor) {
 
 		if (orderBy != null) {
 			orderBy.createQueryFragment(builder, this, incrementor);
@@ -152,11 +213,11 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	 * 
 	 * @see
 	 * org.torpedoquery.jpa.internal.query.QueryBuilder#appendGroupBy(java.lang.
-	 * StringBuilder, java.util.concurrent.atomic.AtomicInteger)
+	 * StringBuilder, org.torpedoquery.jpa.internal.query.RenderContext)
 	 */
 	/** {@inheritDoc} */
 	@Override
-	public String appendGroupBy(StringBuilder builder, AtomicInteger incrementor) {
+	public String appendGroupBy(StringBuilder builder, RenderContext incrementor) {
 
 		if (groupBy != null) {
 			groupBy.createQueryFragment(builder, incrementor);
@@ -173,13 +234,13 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	 * (non-Javadoc)
 	 * 
 	 * @see org.torpedoquery.jpa.internal.query.QueryBuilder#appendWhereClause(java.
-	 * lang.StringBuilder, java.util.concurrent.atomic.AtomicInteger)
+	 * lang.StringBuilder, org.torpedoquery.jpa.internal.query.RenderContext)
 	 */
 	/** {@inheritDoc} */
 	@Override
-	public StringBuilder appendWhereClause(StringBuilder builder, AtomicInteger incrementor) {
+	public StringBuilder appendWhereClause(StringBuilder builder, RenderContext incrementor) {
 
-		Condition whereClauseCondition = getConditionClause(whereClause);
+		Condition whereClauseCondition = getWhereCondition();
 
 		if (whereClauseCondition != null) {
 			if (builder.length() == 0) {
@@ -200,11 +261,11 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	 * (non-Javadoc)
 	 * 
 	 * @see org.torpedoquery.jpa.internal.query.QueryBuilder#appendSelect(java.lang.
-	 * StringBuilder, java.util.concurrent.atomic.AtomicInteger)
+	 * StringBuilder, org.torpedoquery.jpa.internal.query.RenderContext)
 	 */
 	/** {@inheritDoc} */
 	@Override
-	public void appendSelect(StringBuilder builder, AtomicInteger incrementor) {
+	public void appendSelect(StringBuilder builder, RenderContext incrementor) {
 		for (Selector selector : toSelect) {
 			if (builder.length() == 0) {
 				builder.append("select ").append(selector.createQueryFragment(incrementor));
@@ -217,18 +278,25 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see org.torpedoquery.jpa.internal.query.QueryBuilder#getAlias(java.util.
-	 * concurrent.atomic.AtomicInteger)
+	 * @see org.torpedoquery.jpa.internal.query.QueryBuilder#getAlias(org.torpedoquery.jpa.internal.query.RenderContext)
 	 */
 	/** {@inheritDoc} */
 	@Override
-	public String getAlias(AtomicInteger incrementor) {
-		if (alias == null) {
+	public String getAlias(RenderContext incrementor) {
+		if (aliasOwner != null) {
+			return aliasOwner.getAlias(incrementor);
+		} else if (alias == null) {
 			final char[] charArray = getEntityName().toCharArray();
 
 			charArray[0] = Character.toLowerCase(charArray[0]);
-			alias = new String(charArray) + "_" + incrementor.getAndIncrement();
+			if (incrementor.isTrial()) {
+				String provisionalAlias = incrementor.provisionalAlias(this, new String(charArray));
+				incrementor.referenceAlias(provisionalAlias);
+				return provisionalAlias;
+			}
+			alias = new String(charArray) + "_" + incrementor.nextIndex();
 		}
+		incrementor.referenceAlias(alias);
 		return alias;
 	}
 
@@ -242,6 +310,7 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	@Override
 	public void addSelector(Selector selector) {
 		toSelect.add(selector);
+		recordingNanos = System.nanoTime() - createdNanos;
 	}
 
 	/*
@@ -268,15 +337,76 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 		return !joins.isEmpty();
 	}
 
+	/**
+	 * <p>
+	 * mergeInto.
+	 * </p>
+	 *
+	 * This builder take the alias of the given one and give it its sub joins
+	 *
+	 * @param canonical
+	 *            the builder of an identical join.
+	 */
+	public void mergeInto(DefaultQueryBuilder<?> canonical) {
+		aliasOwner = canonical;
+		canonical.joins.addAll(joins);
+		joins.clear();
+	}
+
+	/**
+	 * <p>
+	 * mergeDuplicateJoins.
+	 * </p>
+	 */
+	public void mergeDuplicateJoins() {
+		List<Join> distinctJoins = new ArrayList<>();
+
+		for (Join join : joins) {
+			boolean merged = false;
+			for (Join distinctJoin : distinctJoins) {
+				if (join.mergeInto(distinctJoin)) {
+					merged = true;
+					break;
+				}
+			}
+
+			if (!merged) {
+				distinctJoins.add(join);
+			}
+		}
+
+		for (Join join : distinctJoins) {
+			join.mergeDuplicateJoins();
+		}
+	}
+
+	/**
+	 * <p>
+	 * eliminateUnusedJoins.
+	 * </p>
+	 *
+	 * @param query
+	 *            the query rendered with the current joins.
+	 * @param incrementor
+	 *            a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
+	 * @return true when a join has been removed
+	 */
+	public boolean eliminateUnusedJoins(String query, RenderContext incrementor) {
+		boolean eliminated = false;
+		for (Join join : joins) {
+			eliminated |= join.eliminateUnusedJoins(query, incrementor);
+		}
+		return eliminated;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
-	 * @see org.torpedoquery.jpa.internal.query.QueryBuilder#getJoins(java.util.
-	 * concurrent.atomic.AtomicInteger)
+	 * @see org.torpedoquery.jpa.internal.query.QueryBuilder#getJoins(org.torpedoquery.jpa.internal.query.RenderContext)
 	 */
 	/** {@inheritDoc} */
 	@Override
-	public String getJoins(AtomicInteger incrementor) {
+	public String getJoins(RenderContext incrementor) {
 
 		StringBuilder builder = new StringBuilder();
 
@@ -308,7 +438,7 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	@Override
 	public Map<String, Object> getParameters() {
 
-		freezeQuery(new AtomicInteger());
+		getQuery();
 
 		Map<String, Object> params = new HashMap<>();
 		List<ValueParameter<?>> parameters = getValueParameters();
@@ -328,11 +458,11 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	public List<ValueParameter<?>> getValueParameters() {
 		List<ValueParameter<?>> valueParameters = new ArrayList<>();
 
-		Condition whereClauseCondition = getConditionClause(whereClause);
+		Condition whereClauseCondition = getWhereCondition();
 
 		feedValueParameters(valueParameters, whereClauseCondition);
 
-		Condition withConditionClause = getConditionClause(withClause);
+		Condition withConditionClause = getWithCondition();
 
 		feedValueParameters(valueParameters, withConditionClause);
 
@@ -349,6 +479,20 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 		return valueParameters;
 	}
 
+	private Condition getWhereCondition() {
+		if (optimizedWhereClause == null && whereClause != null) {
+			optimizedWhereClause = TorpedoMagic.getConditionOptimizer().optimize(getConditionClause(whereClause));
+		}
+		return optimizedWhereClause;
+	}
+
+	private Condition getWithCondition() {
+		if (optimizedWithClause == null && withClause != null) {
+			optimizedWithClause = TorpedoMagic.getConditionOptimizer().optimize(getConditionClause(withClause));
+		}
+		return optimizedWithClause;
+	}
+
 	private static void feedValueParameters(List<ValueParameter<?>> valueParameters, Condition clauseCondition) {
 		if (clauseCondition != null) {
 			valueParameters.addAll(clauseCondition.getValueParameters());
@@ -387,17 +531,30 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	/** {@inheritDoc} */
 	@Override
 	public Optional<T> get(EntityManager entityManager) {
-		try {
-			return Optional.<T>ofNullable((T) createJPAQuery(entityManager).getSingleResult());
-		} catch (NoResultException e) {
+		materializeSubqueries(entityManager);
+		if (isAlwaysEmpty()) {
 			return Optional.empty();
 		}
+
+		return execute(entityManager, query -> {
+			try {
+				return Optional.<T>ofNullable((T) query.getSingleResult());
+			} catch (NoResultException e) {
+				return Optional.<T>empty();
+			}
+		}, result -> result.isPresent() ? 1 : 0, null);
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public List<T> list(EntityManager entityManager) {
-		return createJPAQuery(entityManager).getResultList();
+		materializeSubqueries(entityManager);
+		if (isAlwaysEmpty()) {
+			return new ArrayList<>();
+		}
+
+		return execute(entityManager, query -> (List<T>) query.getResultList(), List::size,
+				TorpedoMagic.getAdaptiveFetchSize());
 	}
 
 	/** {@inheritDoc} */
@@ -412,8 +569,63 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 		return result;
 	}
 
-	private javax.persistence.Query createJPAQuery(EntityManager entityManager) {
-		final javax.persistence.Query query = entityManager.createQuery(getQuery(new AtomicInteger()));
+	/**
+	 * <p>
+	 * materializeSubqueries.
+	 * </p>
+	 *
+	 * The in subqueries with a materialization are executed before the first
+	 * rendering of the query
+	 *
+	 * @param entityManager
+	 *            a {@link javax.persistence.EntityManager} object.
+	 */
+	public void materializeSubqueries(EntityManager entityManager) {
+		if (freezeQuery != null) {
+			return;
+		}
+
+		for (InSubQueryCondition<?> condition : findConditions(getWhereCondition(), InSubQueryCondition.class)) {
+			condition.materialize(entityManager);
+		}
+
+		for (Join join : joins) {
+			join.materializeSubqueries(entityManager);
+		}
+	}
+
+	/**
+	 * A where clause which can not match return no row, unless an aggregate
+	 * function is selected without group by.
+	 */
+	private boolean isAlwaysEmpty() {
+		Condition whereCondition = getWhereCondition();
+		if (whereCondition == null || !whereCondition.isAlwaysFalse()) {
+			return false;
+		}
+
+		if (groupBy == null) {
+			for (Selector selector : toSelect) {
+				if (!(selector instanceof ObjectSelector || selector instanceof SimpleMethodCallSelector)) {
+					return false;
+				}
+			}
+		}
+
+		TorpedoMagic.setQuery(null);
+		QueryStatistics.recordSkippedExecution();
+		if (QueryListeners.isEnabled()) {
+			QueryListeners.skipped(new QueryExecution(getFingerprint(), getQuery(), getBoundParameters(),
+					recordingNanos, takeRenderingNanos(), 0, 0, 0, startPosition, maxResult, lockMode));
+		}
+		return true;
+	}
+
+	private <R> R execute(EntityManager entityManager, Function<javax.persistence.Query, R> execution,
+			ToIntFunction<R> rowCount, AdaptiveFetchSize fetchSize) {
+		String queryString = getQuery();
+		long renderedNanos = takeRenderingNanos();
+		final javax.persistence.Query query = entityManager.createQuery(queryString);
 
 		if (startPosition >= 0) {
 			query.setFirstResult(startPosition);
@@ -427,15 +639,72 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 			query.setLockMode(lockMode);
 		}
 
-		final Map<String, Object> parameters = getParameters();
-
-		for (Entry<String, Object> parameter : parameters.entrySet()) {
-			query.setParameter(parameter.getKey(), parameter.getValue());
+		Function<javax.persistence.Query, R> observedExecution = execution;
+		if (fetchSize != null) {
+			fetchSize.apply(query, getFingerprint(), maxResult);
+			observedExecution = jpaQuery -> {
+				R result = execution.apply(jpaQuery);
+				fetchSize.observe(getFingerprint(), rowCount.applyAsInt(result));
+				return result;
+			};
 		}
 
+		long binding = System.nanoTime();
+		bindParameters(query);
+		long bindingNanos = System.nanoTime() - binding;
+
 		TorpedoMagic.setQuery(null);
 
-		return query;
+		return QueryListeners.execute(query, queryString, this::getFingerprint, this::getBoundParameters,
+				recordingNanos, renderedNanos, bindingNanos, startPosition, maxResult, lockMode, observedExecution,
+				rowCount);
+	}
+
+	/**
+	 * The parameters as bound on the jpa query, by position when the query use
+	 * positional parameters
+	 */
+	private Map<String, Object> getBoundParameters() {
+		if (positionalParameters == null) {
+			return getParameters();
+		}
+		Map<String, Object> params = new LinkedHashMap<>();
+		for (int i = 0; i < positionalParameters.size(); i++) {
+			params.put(String.valueOf(i + 1), positionalParameters.get(i).getValue());
+		}
+		return params;
+	}
+
+	/**
+	 * The rendering time is reported by the execution which rendered the query
+	 */
+	private long takeRenderingNanos() {
+		long nanos = renderingNanos;
+		renderingNanos = 0;
+		return nanos;
+	}
+
+	/**
+	 * <p>
+	 * bindParameters.
+	 * </p>
+	 *
+	 * @param query
+	 *            a {@link javax.persistence.Query} created with the rendered
+	 *            query.
+	 */
+	public void bindParameters(javax.persistence.Query query) {
+		getQuery();
+
+		if (positionalParameters != null) {
+			for (int i = 0; i < positionalParameters.size(); i++) {
+				query.setParameter(i + 1, positionalParameters.get(i).getValue());
+			}
+		} else {
+			for (ValueParameter<?> parameter : getValueParameters()) {
+				query.setParameter(parameter.getName(), parameter.getValue());
+			}
+		}
 	}
 
 	/*
@@ -453,15 +722,14 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * org.torpedoquery.jpa.internal.query.QueryBuilder#getWithClause(java.util.
-	 * concurrent.atomic.AtomicInteger)
+	 * org.torpedoquery.jpa.internal.query.QueryBuilder#getWithClause(org.torpedoquery.jpa.internal.query.RenderContext)
 	 */
 	/** {@inheritDoc} */
 	@Override
-	public String getWithClause(AtomicInteger incrementor) {
+	public String getWithClause(RenderContext incrementor) {
 
 		StringBuilder builder = new StringBuilder();
-		Condition with = getConditionClause(withClause);
+		Condition with = getWithCondition();
 
 		if (with != null) {
 			builder.append(" with ").append(with.createQueryFragment(incrementor)).append(' ');
@@ -492,7 +760,7 @@ public class DefaultQueryBuilder<T> implements QueryBuilder<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return "( " + getQuery(incrementor) + " )";
 	}
 
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.torpedoquery.core.QueryBuilder;
+import org.torpedoquery.jpa.internal.utils.TorpedoMethodHandler;
+
+public class DeleteQueryBuilder<T> extends AbstractBulkQueryBuilder<T> {
+
+	/**
+	 * <p>
+	 * Constructor for DeleteQueryBuilder.
+	 * </p>
+	 *
+	 * @param methodHandler
+	 *            the method handler of the deleted entity
+	 */
+	public DeleteQueryBuilder(TorpedoMethodHandler methodHandler) {
+		super(methodHandler);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void appendStatement(StringBuilder builder, QueryBuilder<T> root, RenderContext incrementor) {
+		builder.append("delete from ").append(root.getEntityName()).append(' ').append(root.getAlias(incrementor));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected List<ValueParameter<?>> getStatementParameters() {
+		return new ArrayList<>();
+	}
+
+}
@@ -23,7 +23,6 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.ComparableFunction;
@@ -49,10 +48,10 @@ public class GroupBy implements OnGoingGroupByCondition {
 	 * <p>createQueryFragment.</p>
 	 *
 	 * @param builder a {@link java.lang.StringBuilder} object.
-	 * @param incrementor a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 * @param incrementor a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	public String createQueryFragment(StringBuilder builder, AtomicInteger incrementor) {
+	public String createQueryFragment(StringBuilder builder, RenderContext incrementor) {
 
 		if (!groups.isEmpty()) {
 			Iterator<Selector> iterator = groups.iterator();
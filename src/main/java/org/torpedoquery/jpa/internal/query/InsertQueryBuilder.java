@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.persistence.EntityManager;
+
+import org.torpedoquery.jpa.BulkQuery;
+import org.torpedoquery.jpa.OnGoingInsert;
+import org.torpedoquery.jpa.Query;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+
+public class InsertQueryBuilder<T> implements OnGoingInsert<T>, BulkQuery {
+
+	private final String entityName;
+	private final List<String> properties;
+	private Query<?> select;
+
+	/**
+	 * <p>
+	 * Constructor for InsertQueryBuilder.
+	 * </p>
+	 *
+	 * @param entityName
+	 *            the target entity name
+	 * @param properties
+	 *            the target properties
+	 */
+	public InsertQueryBuilder(String entityName, List<String> properties) {
+		if (properties.isEmpty()) {
+			throw new IllegalArgumentException("An insert need at least one target property");
+		}
+		this.entityName = entityName;
+		this.properties = properties;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public BulkQuery select(Query<?> query) {
+		this.select = query;
+		return this;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String getQuery() {
+		return "insert into " + entityName + " (" + String.join(", ", properties) + ") " + select.getQuery();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Map<String, Object> getParameters() {
+		return select.getParameters();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public int execute(EntityManager entityManager) {
+		String queryString = getQuery();
+		final javax.persistence.Query query = entityManager.createQuery(queryString);
+		long binding = System.nanoTime();
+
+		if (select instanceof DefaultQueryBuilder) {
+			((DefaultQueryBuilder<?>) select).bindParameters(query);
+		} else {
+			for (Entry<String, Object> parameter : getParameters().entrySet()) {
+				query.setParameter(parameter.getKey(), parameter.getValue());
+			}
+		}
+
+		long bindingNanos = System.nanoTime() - binding;
+
+		TorpedoMagic.setQuery(null);
+
+		return QueryListeners.execute(query, queryString, () -> QueryShape.fingerprint(queryString),
+				this::getParameters, 0, 0, bindingNanos, javax.persistence.Query::executeUpdate, updated -> updated);
+	}
+
+}
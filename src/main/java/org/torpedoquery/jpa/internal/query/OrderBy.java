@@ -23,7 +23,6 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.internal.Selector;
@@ -45,10 +44,10 @@ public class OrderBy implements Serializable {
 	 *
 	 * @param builder a {@link java.lang.StringBuilder} object.
 	 * @param queryBuilder a {@link org.torpedoquery.core.QueryBuilder} object.
-	 * @param incrementor a {@link java.util.concurrent.atomic.AtomicInteger} object.
+	 * @param incrementor a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
 	 * @return a {@link java.lang.String} object.
 	 */
-	public String createQueryFragment(StringBuilder builder, QueryBuilder queryBuilder, AtomicInteger incrementor) {
+	public String createQueryFragment(StringBuilder builder, QueryBuilder queryBuilder, RenderContext incrementor) {
 
 		if (!orders.isEmpty()) {
 			Iterator<Selector> iterator = orders.iterator();
@@ -0,0 +1,203 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.persistence.LockModeType;
+
+import org.torpedoquery.core.QueryExecution;
+import org.torpedoquery.core.QueryListener;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.metrics.TorpedoEvents;
+
+public final class QueryListeners {
+
+	private static final Logger LOGGER = Logger.getLogger(QueryListeners.class.getName());
+
+	private QueryListeners() {
+	}
+
+	/**
+	 * <p>
+	 * isEnabled.
+	 * </p>
+	 *
+	 * @return true when a listener is registered
+	 */
+	public static boolean isEnabled() {
+		return !TorpedoMagic.getQueryListeners().isEmpty();
+	}
+
+	/**
+	 * <p>
+	 * execute.
+	 * </p>
+	 *
+	 * @param query
+	 *            the bound jpa query
+	 * @param queryString
+	 *            the rendered query
+	 * @param fingerprint
+	 *            the fingerprint of the rendered query, only computed for the
+	 *            listeners
+	 * @param parameters
+	 *            the bound parameters, only collected for the listeners
+	 * @param recordingNanos
+	 *            a long.
+	 * @param renderingNanos
+	 *            a long.
+	 * @param bindingNanos
+	 *            a long.
+	 * @param execution
+	 *            run the jpa query
+	 * @param rowCount
+	 *            the row count of the result
+	 * @param <R>
+	 *            a R object.
+	 * @return the result of the execution
+	 */
+	public static <R> R execute(javax.persistence.Query query, String queryString, Supplier<String> fingerprint,
+			Supplier<Map<String, Object>> parameters, long recordingNanos, long renderingNanos, long bindingNanos,
+			Function<javax.persistence.Query, R> execution, ToIntFunction<R> rowCount) {
+		return execute(query, queryString, fingerprint, parameters, recordingNanos, renderingNanos, bindingNanos, 0, 0,
+				null, execution, rowCount);
+	}
+
+	/**
+	 * <p>
+	 * execute.
+	 * </p>
+	 *
+	 * @param query
+	 *            the bound jpa query
+	 * @param queryString
+	 *            the rendered query
+	 * @param fingerprint
+	 *            the fingerprint of the rendered query, only computed for the
+	 *            listeners
+	 * @param parameters
+	 *            the bound parameters, only collected for the listeners
+	 * @param recordingNanos
+	 *            a long.
+	 * @param renderingNanos
+	 *            a long.
+	 * @param bindingNanos
+	 *            a long.
+	 * @param firstResult
+	 *            the first result set on the query
+	 * @param maxResults
+	 *            the max results set on the query, 0 when unlimited
+	 * @param lockMode
+	 *            the lock mode set on the query, can be null
+	 * @param execution
+	 *            run the jpa query
+	 * @param rowCount
+	 *            the row count of the result
+	 * @param <R>
+	 *            a R object.
+	 * @return the result of the execution
+	 */
+	public static <R> R execute(javax.persistence.Query query, String queryString, Supplier<String> fingerprint,
+			Supplier<Map<String, Object>> parameters, long recordingNanos, long renderingNanos, long bindingNanos,
+			int firstResult, int maxResults, LockModeType lockMode, Function<javax.persistence.Query, R> execution,
+			ToIntFunction<R> rowCount) {
+		Object event = TorpedoEvents.getRecorder().beginExecution();
+		boolean listened = isEnabled();
+		if (event == null && !listened) {
+			return execution.apply(query);
+		}
+
+		long started = System.nanoTime();
+		R result;
+		try {
+			result = execution.apply(query);
+		} catch (RuntimeException e) {
+			long executionNanos = System.nanoTime() - started;
+			Map<String, Object> boundParameters = parameters.get();
+			if (event != null) {
+				TorpedoEvents.getRecorder().endExecution(event, queryString, boundParameters.size(), -1);
+			}
+			if (listened) {
+				QueryExecution queryExecution = new QueryExecution(fingerprint.get(), queryString,
+						boundParameters, recordingNanos, renderingNanos, bindingNanos, executionNanos, -1,
+						firstResult, maxResults, lockMode);
+				notifyListeners(listener -> listener.failed(queryExecution, e));
+			}
+			throw e;
+		}
+
+		long executionNanos = System.nanoTime() - started;
+		Map<String, Object> boundParameters = parameters.get();
+		int rows = rowCount.applyAsInt(result);
+		if (event != null) {
+			TorpedoEvents.getRecorder().endExecution(event, queryString, boundParameters.size(), rows);
+		}
+		if (listened) {
+			executed(new QueryExecution(fingerprint.get(), queryString, boundParameters, recordingNanos,
+					renderingNanos, bindingNanos, executionNanos, rows, firstResult, maxResults, lockMode));
+		}
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * executed.
+	 * </p>
+	 *
+	 * @param execution
+	 *            a {@link org.torpedoquery.core.QueryExecution} object.
+	 */
+	public static void executed(QueryExecution execution) {
+		notifyListeners(listener -> listener.executed(execution));
+	}
+
+	/**
+	 * <p>
+	 * skipped.
+	 * </p>
+	 *
+	 * @param execution
+	 *            a {@link org.torpedoquery.core.QueryExecution} object.
+	 */
+	public static void skipped(QueryExecution execution) {
+		notifyListeners(listener -> listener.skipped(execution));
+	}
+
+	/**
+	 * A failing listener is logged, it does not fail the query nor prevent
+	 * the next listeners to be notified
+	 */
+	private static void notifyListeners(Consumer<QueryListener> notification) {
+		for (QueryListener listener : TorpedoMagic.getQueryListeners()) {
+			try {
+				notification.accept(listener);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, "query listener " + listener + " failed", e);
+			}
+		}
+	}
+
+}
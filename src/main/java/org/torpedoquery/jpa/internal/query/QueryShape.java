@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.hash.Hashing;
+
+public final class QueryShape {
+
+	/**
+	 * The literals inlined in a rendered query
+	 */
+	public enum Literal {
+		STRING, ENTITY_TYPE, NUMERIC
+	}
+
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+	private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.:])-?\\d+(?:\\.\\d+)?(?![\\w.])");
+	private static final Pattern ENTITY_TYPE = Pattern.compile("(type\\([^)]*\\) (?:=|<>) )[\\w.$]+");
+
+	private QueryShape() {
+	}
+
+	/**
+	 * <p>
+	 * fingerprint.
+	 * </p>
+	 *
+	 * The literals inlined in the rendered query are ignored, like the
+	 * parameter values, so a query has the same fingerprint for every value
+	 * and in every jvm
+	 *
+	 * @param query
+	 *            the rendered query
+	 * @return a {@link java.lang.String} object.
+	 */
+	public static String fingerprint(String query) {
+		return String.format("%016x",
+				Hashing.murmur3_128().hashString(normalize(query), StandardCharsets.UTF_8).asLong());
+	}
+
+	/**
+	 * <p>
+	 * normalize.
+	 * </p>
+	 *
+	 * @param query
+	 *            the rendered query
+	 * @return the query with its string, numeric and entity type literals
+	 *         replaced by ?
+	 */
+	public static String normalize(String query) {
+		return normalize(query, null);
+	}
+
+	/**
+	 * <p>
+	 * normalize.
+	 * </p>
+	 *
+	 * @param query
+	 *            the rendered query
+	 * @param literals
+	 *            receive each replaced literal, can be null
+	 * @return the query with its string, numeric and entity type literals
+	 *         replaced by ?
+	 */
+	public static String normalize(String query, BiConsumer<Literal, String> literals) {
+		String normalized = replace(STRING_LITERAL, query, "?", Literal.STRING, literals);
+		normalized = replace(ENTITY_TYPE, normalized, "$1?", Literal.ENTITY_TYPE, literals);
+		return replace(NUMERIC_LITERAL, normalized, "?", Literal.NUMERIC, literals);
+	}
+
+	private static String replace(Pattern pattern, String query, String replacement, Literal literal,
+			BiConsumer<Literal, String> literals) {
+		Matcher matcher = pattern.matcher(query);
+		if (!matcher.find()) {
+			return query;
+		}
+		StringBuffer normalized = new StringBuffer();
+		do {
+			if (literals != null) {
+				literals.accept(literal, matcher.group());
+			}
+			matcher.appendReplacement(normalized, replacement);
+		} while (matcher.find());
+		matcher.appendTail(normalized);
+		return normalized.toString();
+	}
+
+}
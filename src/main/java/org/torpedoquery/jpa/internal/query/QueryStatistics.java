@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public final class QueryStatistics {
+
+	private static final LongAdder skippedExecutions = new LongAdder();
+
+	private QueryStatistics() {
+	}
+
+	/**
+	 * <p>
+	 * recordSkippedExecution.
+	 * </p>
+	 */
+	public static void recordSkippedExecution() {
+		skippedExecutions.increment();
+	}
+
+	/**
+	 * <p>
+	 * getSkippedExecutions.
+	 * </p>
+	 *
+	 * @return the number of queries answered without the database because
+	 *         their where clause can not match
+	 */
+	public static long getSkippedExecutions() {
+		return skippedExecutions.sum();
+	}
+
+	/**
+	 * <p>
+	 * reset.
+	 * </p>
+	 */
+	public static void reset() {
+		skippedExecutions.reset();
+	}
+
+}
@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class RenderContext {
+
+	private final List<ValueParameter<?>> positionalParameters;
+	private int index;
+	// only set for a trial render
+	private Map<Object, String> provisionalAliases;
+	private Set<String> referencedAliases;
+	private Set<String> declaredAliases;
+
+	/**
+	 * <p>
+	 * Constructor for RenderContext, the parameters are named.
+	 * </p>
+	 */
+	public RenderContext() {
+		this(false);
+	}
+
+	/**
+	 * <p>
+	 * Constructor for RenderContext.
+	 * </p>
+	 *
+	 * @param positional
+	 *            true to render the value parameters as ?1, ?2 in rendering
+	 *            order
+	 */
+	public RenderContext(boolean positional) {
+		this.positionalParameters = positional ? new ArrayList<>() : null;
+	}
+
+	/**
+	 * <p>
+	 * nextIndex.
+	 * </p>
+	 *
+	 * @return the suffix of the next alias or parameter name
+	 */
+	public int nextIndex() {
+		return index++;
+	}
+
+	/**
+	 * <p>
+	 * isPositional.
+	 * </p>
+	 *
+	 * @return a boolean.
+	 */
+	public boolean isPositional() {
+		return positionalParameters != null;
+	}
+
+	/**
+	 * <p>
+	 * addPositionalParameter.
+	 * </p>
+	 *
+	 * @param parameter
+	 *            a parameter rendered for the first time.
+	 * @return its position, starting at 1
+	 */
+	public int addPositionalParameter(ValueParameter<?> parameter) {
+		positionalParameters.add(parameter);
+		return positionalParameters.size();
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>positionalParameters</code>.
+	 * </p>
+	 *
+	 * @return the parameters in rendering order, empty when the parameters
+	 *         are named
+	 */
+	public List<ValueParameter<?>> getPositionalParameters() {
+		return positionalParameters != null ? positionalParameters : Collections.<ValueParameter<?>> emptyList();
+	}
+
+	/**
+	 * <p>
+	 * trial.
+	 * </p>
+	 *
+	 * A trial render track the referenced and the declared aliases and leave
+	 * the rendered builders unchanged, no alias or parameter name is
+	 * assigned and no query is frozen
+	 *
+	 * @return a {@link org.torpedoquery.jpa.internal.query.RenderContext} object.
+	 */
+	public static RenderContext trial() {
+		RenderContext context = new RenderContext();
+		context.provisionalAliases = new IdentityHashMap<>();
+		context.referencedAliases = new HashSet<>();
+		context.declaredAliases = new HashSet<>();
+		return context;
+	}
+
+	/**
+	 * <p>
+	 * isTrial.
+	 * </p>
+	 *
+	 * @return a boolean.
+	 */
+	public boolean isTrial() {
+		return provisionalAliases != null;
+	}
+
+	/**
+	 * <p>
+	 * provisionalAlias.
+	 * </p>
+	 *
+	 * @param builder
+	 *            a builder without alias.
+	 * @param prefix
+	 *            the prefix of its alias
+	 * @return the same alias for the builder during this trial render
+	 */
+	public String provisionalAlias(Object builder, String prefix) {
+		return provisionalAliases.computeIfAbsent(builder, b -> prefix + "_" + nextIndex());
+	}
+
+	/**
+	 * <p>
+	 * referenceAlias.
+	 * </p>
+	 *
+	 * @param alias
+	 *            an alias used by the rendered query.
+	 */
+	public void referenceAlias(String alias) {
+		if (referencedAliases != null) {
+			referencedAliases.add(alias);
+		}
+	}
+
+	/**
+	 * <p>
+	 * declareAlias.
+	 * </p>
+	 *
+	 * @param alias
+	 *            an alias declared by a from or a join of the rendered query.
+	 */
+	public void declareAlias(String alias) {
+		if (declaredAliases != null) {
+			declaredAliases.add(alias);
+		}
+	}
+
+	/**
+	 * <p>
+	 * hasUndeclaredAlias.
+	 * </p>
+	 *
+	 * @return true when the rendered query use an alias of an outer query,
+	 *         false when the render is not a trial
+	 */
+	public boolean hasUndeclaredAlias() {
+		return referencedAliases != null && !declaredAliases.containsAll(referencedAliases);
+	}
+
+}
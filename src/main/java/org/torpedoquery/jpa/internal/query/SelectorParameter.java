@@ -22,7 +22,6 @@ package org.torpedoquery.jpa.internal.query;
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
 
-import java.util.concurrent.atomic.AtomicInteger;
 public class SelectorParameter<T> implements Parameter<T> {
 
     private final Selector selector;
@@ -38,7 +37,7 @@ public class SelectorParameter<T> implements Parameter<T> {
 
     /** {@inheritDoc} */
     @Override
-    public String generate(AtomicInteger incrementor) {
+    public String generate(RenderContext incrementor) {
         return selector.createQueryFragment(incrementor);
     }
 
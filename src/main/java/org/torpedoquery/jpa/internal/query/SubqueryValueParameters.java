@@ -26,7 +26,6 @@ import org.torpedoquery.jpa.internal.Selector;
 
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 public class SubqueryValueParameters<T> extends SelectorParameter<T> {
 
     private final QueryBuilder<T> value;
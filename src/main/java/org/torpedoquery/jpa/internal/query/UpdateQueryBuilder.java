@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.torpedoquery.core.QueryBuilder;
+import org.torpedoquery.jpa.OnGoingUpdate;
+import org.torpedoquery.jpa.internal.Condition;
+import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.conditions.EqualCondition;
+import org.torpedoquery.jpa.internal.utils.TorpedoMethodHandler;
+
+public class UpdateQueryBuilder<T> extends AbstractBulkQueryBuilder<T> implements OnGoingUpdate<T> {
+
+	private final List<Condition> assignments = new ArrayList<>();
+
+	/**
+	 * <p>
+	 * Constructor for UpdateQueryBuilder.
+	 * </p>
+	 *
+	 * @param methodHandler
+	 *            the method handler of the updated entity
+	 */
+	public UpdateQueryBuilder(TorpedoMethodHandler methodHandler) {
+		super(methodHandler);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public <V> OnGoingUpdate<T> set(V property, V value) {
+		Selector<V> selector = getRootSelector(property);
+		assignments.add(new EqualCondition<V>(selector, selector.generateParameter(value)));
+
+		unfreeze();
+		return this;
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected void appendStatement(StringBuilder builder, QueryBuilder<T> root, RenderContext incrementor) {
+		if (assignments.isEmpty()) {
+			throw new IllegalArgumentException("An update need at least one property to set");
+		}
+
+		builder.append("update ").append(root.getEntityName()).append(' ').append(root.getAlias(incrementor));
+
+		String separator = " set ";
+		for (Condition assignment : assignments) {
+			builder.append(separator).append(assignment.createQueryFragment(incrementor));
+			separator = ", ";
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	protected List<ValueParameter<?>> getStatementParameters() {
+		List<ValueParameter<?>> valueParameters = new ArrayList<>();
+		for (Condition assignment : assignments) {
+			valueParameters.addAll(assignment.getValueParameters());
+		}
+		return valueParameters;
+	}
+
+}
@@ -19,14 +19,13 @@
  */
 package org.torpedoquery.jpa.internal.query;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.torpedoquery.jpa.internal.Parameter;
 public class ValueParameter<T> implements Parameter<T> {
 
 	private final String fieldName;
 	private final T value;
 	private String name;
+	private boolean positional;
 
 	/**
 	 * <p>Constructor for ValueParameter.</p>
@@ -43,17 +42,24 @@ public class ValueParameter<T> implements Parameter<T> {
 	 * (non-Javadoc)
 	 * 
 	 * @see
-	 * org.torpedoquery.jpa.internal.IParameter#generate(java.util.concurrent
-	 * .atomic.AtomicInteger)
+	 * org.torpedoquery.jpa.internal.IParameter#generate(org.torpedoquery.jpa
+	 * .internal.query.RenderContext)
 	 */
 	/** {@inheritDoc} */
 	@Override
-	public String generate(AtomicInteger incrementor) {
+	public String generate(RenderContext incrementor) {
 
 		if (name == null) {
-			name = fieldName + "_" + incrementor.getAndIncrement();
+			if (incrementor.isTrial()) {
+				return ":" + fieldName;
+			} else if (incrementor.isPositional()) {
+				positional = true;
+				name = String.valueOf(incrementor.addPositionalParameter(this));
+			} else {
+				name = fieldName + "_" + incrementor.nextIndex();
+			}
 		}
-		return ":" + name;
+		return (positional ? "?" : ":") + name;
 	}
 
 	/**
@@ -74,4 +80,13 @@ public class ValueParameter<T> implements Parameter<T> {
 		return value;
 	}
 
+	/**
+	 * <p>Getter for the field <code>fieldName</code>.</p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getFieldName() {
+		return fieldName;
+	}
+
 }
@@ -19,10 +19,9 @@
  */
 package org.torpedoquery.jpa.internal.selectors;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public class NotSelector<T> implements Selector<T> {
 
 	private final Selector<T> selector;
@@ -38,7 +37,7 @@ public class NotSelector<T> implements Selector<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return selector.createQueryFragment(incrementor) + " not";
 	}
 
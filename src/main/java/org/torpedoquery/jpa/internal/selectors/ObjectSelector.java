@@ -19,11 +19,10 @@
  */
 package org.torpedoquery.jpa.internal.selectors;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 import org.torpedoquery.jpa.internal.query.SelectorParameter;
 public class ObjectSelector<T> implements Selector<T> {
 
@@ -40,7 +39,7 @@ public class ObjectSelector<T> implements Selector<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return builder.getAlias(incrementor);
 	}
 
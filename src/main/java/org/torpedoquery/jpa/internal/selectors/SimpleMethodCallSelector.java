@@ -19,14 +19,13 @@
  */
 package org.torpedoquery.jpa.internal.selectors;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.internal.MethodCall;
 import org.torpedoquery.jpa.internal.Parameter;
 import org.torpedoquery.jpa.internal.Selector;
 import org.torpedoquery.jpa.internal.TorpedoMagic;
 import org.torpedoquery.jpa.internal.handlers.ParameterQueryHandler;
+import org.torpedoquery.jpa.internal.query.RenderContext;
 public class SimpleMethodCallSelector<T> implements Selector<T> {
 
 	private final MethodCall method;
@@ -45,7 +44,7 @@ public class SimpleMethodCallSelector<T> implements Selector<T> {
 
 	/** {@inheritDoc} */
 	@Override
-	public String createQueryFragment(AtomicInteger incrementor) {
+	public String createQueryFragment(RenderContext incrementor) {
 		return queryBuilder.getAlias(incrementor) + "." + method.getFullPath();
 	}
 
@@ -55,4 +54,23 @@ public class SimpleMethodCallSelector<T> implements Selector<T> {
 		return TorpedoMagic.getTorpedoMethodHandler().handle(new ParameterQueryHandler<T>(method.getParamName(),value));
 	}
 
+	/** {@inheritDoc} */
+	@Override
+	public int hashCode() {
+		return 31 * System.identityHashCode(queryBuilder) + method.getFullPath().hashCode();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SimpleMethodCallSelector)) {
+			return false;
+		}
+		SimpleMethodCallSelector<?> other = (SimpleMethodCallSelector<?>) obj;
+		return queryBuilder == other.queryBuilder && method.getFullPath().equals(other.method.getFullPath());
+	}
+
 }
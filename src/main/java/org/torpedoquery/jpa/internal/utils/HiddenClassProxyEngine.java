@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.utils;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.torpedoquery.core.ProxyEngine;
+import org.torpedoquery.core.ProxyHandler;
+import org.torpedoquery.jpa.internal.metrics.TorpedoEvents;
+
+import com.google.common.base.Throwables;
+
+public class HiddenClassProxyEngine implements ProxyEngine {
+
+	private static final Logger LOGGER = Logger.getLogger(HiddenClassProxyEngine.class.getName());
+
+	private static final Method privateLookupIn;
+	private static final Method defineHiddenClass;
+	private static final Object noClassOptions;
+
+	static {
+		Method lookupIn;
+		Method define;
+		Object options = null;
+		try {
+			lookupIn = MethodHandles.class.getMethod("privateLookupIn", Class.class, Lookup.class);
+			Class<?> classOption = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+			options = Array.newInstance(classOption, 0);
+			define = Lookup.class.getMethod("defineHiddenClass", byte[].class, boolean.class, options.getClass());
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// before java 15, only the fallback engine is used
+			lookupIn = null;
+			define = null;
+		}
+		privateLookupIn = lookupIn;
+		defineHiddenClass = define;
+		noClassOptions = options;
+	}
+
+	private final ProxyEngine fallback;
+	private final ClassValue<ConcurrentMap<List<Class<?>>, Optional<ProxyClass>>> proxyClasses = new ClassValue<ConcurrentMap<List<Class<?>>, Optional<ProxyClass>>>() {
+		@Override
+		protected ConcurrentMap<List<Class<?>>, Optional<ProxyClass>> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/**
+	 * <p>Constructor for HiddenClassProxyEngine.</p>
+	 *
+	 * @param fallback used when the hidden classes are not supported or can not be defined for the proxied classes
+	 */
+	public HiddenClassProxyEngine(ProxyEngine fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * <p>isSupported.</p>
+	 *
+	 * @return true when the running jvm can define hidden classes
+	 */
+	public static boolean isSupported() {
+		return defineHiddenClass != null && ProxyClass.isSupported();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The getters of the generated classes call the recorder directly with a
+	 * constant descriptor, the classes are not strongly bound to their class
+	 * loader and are unloaded with the proxied classes
+	 */
+	@Override
+	public <T> T createProxy(ProxyHandler methodHandler, Class<?>... classes) {
+		if (!isSupported() || !(methodHandler instanceof RecordingMethodHandler)) {
+			return fallback.createProxy(methodHandler, classes);
+		}
+
+		Optional<ProxyClass> proxyClass = proxyClasses.get(ProxyClassGenerator.lookupClass(classes))
+				.computeIfAbsent(Arrays.asList(classes), key -> Optional.ofNullable(defineProxyClass(classes)));
+
+		if (!proxyClass.isPresent()) {
+			return fallback.createProxy(methodHandler, classes);
+		}
+		return proxyClass.get().newProxy((RecordingMethodHandler) methodHandler);
+	}
+
+	private static ProxyClass defineProxyClass(Class<?>[] classes) {
+		ProxyClassGenerator generator = ProxyClassGenerator.of(classes);
+		if (generator == null) {
+			return null;
+		}
+
+		byte[] bytecode;
+		try {
+			bytecode = generator.generate(generator.getClassName());
+		} catch (IOException e) {
+			throw new IllegalStateException("can not generate the proxy of " + Arrays.toString(classes), e);
+		}
+
+		try {
+			Object event = TorpedoEvents.getRecorder().beginProxyGeneration();
+			Lookup lookup = (Lookup) privateLookupIn.invoke(null, generator.getLookupClass(), MethodHandles.lookup());
+			Lookup hiddenLookup = (Lookup) defineHiddenClass.invoke(lookup, bytecode, true, noClassOptions);
+			if (event != null) {
+				TorpedoEvents.getRecorder().endProxyGeneration(event, hiddenLookup.lookupClass(), "hidden class");
+			}
+			return generator.initialize(hiddenLookup.lookupClass());
+		} catch (InvocationTargetException e) {
+			// a class of a module not open to torpedo can not be proxied here,
+			// the other failures are bugs of the generated class
+			Throwable cause = e.getCause();
+			if (cause instanceof IllegalAccessException || cause instanceof UnsupportedOperationException
+					|| cause instanceof SecurityException) {
+				return unavailable(classes, cause);
+			}
+			throw Throwables.propagate(cause);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return unavailable(classes, e);
+		}
+	}
+
+	// the result is cached by proxied classes, logged once for each
+	private static ProxyClass unavailable(Class<?>[] classes, Throwable cause) {
+		LOGGER.log(Level.FINE, "hidden classes are not available for " + Arrays.toString(classes)
+				+ ", the fallback engine is used", cause);
+		return null;
+	}
+
+}
@@ -23,42 +23,57 @@ import org.torpedoquery.jpa.internal.MethodCall;
 import org.torpedoquery.jpa.internal.TorpedoProxy;
 public class LinkedMethodCall implements MethodCall {
 
-	private final MethodCall previous;
-	private final MethodCall current;
+	private final TorpedoProxy proxy;
+	private SerializableMethod method;
+	private String fullPath;
 
 	/**
 	 * <p>Constructor for LinkedMethodCall.</p>
 	 *
 	 * @param previous a {@link org.torpedoquery.jpa.internal.MethodCall} object.
-	 * @param current a {@link org.torpedoquery.jpa.internal.MethodCall} object.
+	 * @param current a {@link org.torpedoquery.jpa.internal.utils.SerializableMethod} called on the value returned by previous.
 	 */
-	public LinkedMethodCall(MethodCall previous, MethodCall current) {
-		this.previous = previous;
-		this.current = current;
+	public LinkedMethodCall(MethodCall previous, SerializableMethod current) {
+		this.proxy = previous.getProxy();
+		this.method = current;
+		this.fullPath = previous.getFullPath() + "." + current.getFieldName();
+	}
+
+	/**
+	 * <p>append.</p>
+	 *
+	 * Extend the path while the call is still recorded, a call taken by a
+	 * handler is never modified
+	 *
+	 * @param next a {@link org.torpedoquery.jpa.internal.utils.SerializableMethod} called on the value returned by this call.
+	 */
+	public void append(SerializableMethod next) {
+		method = next;
+		fullPath = fullPath + "." + next.getFieldName();
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public TorpedoProxy getProxy() {
-		return previous.getProxy();
+		return proxy;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public SerializableMethod getMethod() {
-		return current.getMethod();
+		return method;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public String getFullPath() {
-		return previous.getFullPath() + "." + current.getFullPath();
+		return fullPath;
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public String getParamName() {
-		return current.getParamName();
+		return method.getFieldName();
 	}
 
 }
@@ -19,76 +19,164 @@
  */
 package org.torpedoquery.jpa.internal.utils;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Map;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javassist.util.proxy.ProxyFactory;
 import javassist.util.proxy.ProxyFactory.ClassLoaderProvider;
 public class MultiClassLoaderProvider implements ClassLoaderProvider {
 
-	private static final Map<Set<ClassLoader>, ClassLoader> classLoaderCache = new ConcurrentHashMap<>();
-	
-	private class MultiClassLoader extends ClassLoader {
-		private final Collection<ClassLoader> classLoaders;
+	private static final Object NOT_FOUND = new Object();
+
+	// the loaders are stored on the proxied classes and released with their class loader
+	private static final ClassValue<ClassLoader> singleClassLoaders = new ClassValue<ClassLoader>() {
+		@Override
+		protected ClassLoader computeValue(Class<?> type) {
+			return new MultiClassLoader(Collections.singleton(type.getClassLoader()));
+		}
+	};
+	private static final ClassValue<ConcurrentMap<Set<ClassLoader>, ClassLoader>> multiClassLoaders = new ClassValue<ConcurrentMap<Set<ClassLoader>, ClassLoader>>() {
+		@Override
+		protected ConcurrentMap<Set<ClassLoader>, ClassLoader> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+	// only to report the cache size, written when a loader is created
+	private static final Set<MultiClassLoader> liveClassLoaders = Collections
+			.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<MultiClassLoader, Boolean>()));
+	private static final ClassLoader bootstrapClassLoader = new MultiClassLoader(
+			Collections.<ClassLoader> emptySet());
+
+	private static class MultiClassLoader extends ClassLoader {
+		private final List<ClassLoader> classLoaders;
+		// resolved classes and missing names, a miss is not searched again
+		private final ConcurrentMap<String, Object> resolved = new ConcurrentHashMap<>();
 
 		public MultiClassLoader(Collection<ClassLoader> classLoaders) {
-			this.classLoaders = classLoaders;
+			this.classLoaders = new ArrayList<>(classLoaders);
+			ClassLoader javassistClassLoader = ProxyFactory.class.getClassLoader();
+			if (javassistClassLoader != null && !this.classLoaders.contains(javassistClassLoader)) {
+				this.classLoaders.add(javassistClassLoader);
+			}
+			liveClassLoaders.add(this);
 		}
 
 		@Override
 		public Class<?> loadClass(String name) throws ClassNotFoundException {
+			Object resolvedClass = resolved.get(name);
+			if (resolvedClass == null) {
+				resolvedClass = find(name);
+				resolved.putIfAbsent(name, resolvedClass);
+			}
+
+			if (resolvedClass != NOT_FOUND) {
+				return (Class<?>) resolvedClass;
+			}
 
-			try {
-				return Thread.currentThread().getContextClassLoader().loadClass(name);
-			} catch (ClassNotFoundException e1) {
+			// the context class loader change by thread, it is searched last and never cached
+			ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+			if (contextClassLoader != null && !classLoaders.contains(contextClassLoader)) {
+				return contextClassLoader.loadClass(name);
+			}
+			throw new ClassNotFoundException(name);
+		}
+
+		private Object find(String name) {
+			if (classLoaders.isEmpty()) {
+				try {
+					return Class.forName(name, false, null);
+				} catch (ClassNotFoundException e) {
+					return NOT_FOUND;
+				}
 			}
 
 			for (ClassLoader classLoader : classLoaders) {
 				try {
-					Class<?> loadClass = classLoader.loadClass(name);
-					if (loadClass != null) {
-						return loadClass;
-					}
+					return classLoader.loadClass(name);
 				} catch (ClassNotFoundException e) {
+					// search the next loader
 				}
 			}
-			throw new ClassNotFoundException(name);
+			return NOT_FOUND;
 		}
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public ClassLoader get(ProxyFactory factory) {
-		Class[] interfaces = factory.getInterfaces();
-		Set<ClassLoader> classLoaders = new HashSet<>();
+		Class<?> superclass = factory.getSuperclass();
+		Class<?>[] interfaces = factory.getInterfaces();
+
+		Class<?> owner = null;
+		boolean multiple = false;
 
-		Class superclass = factory.getSuperclass();
 		if (superclass != null && superclass.getClassLoader() != null) {
-			classLoaders.add(superclass.getClassLoader());
+			owner = superclass;
 		}
 
 		if (interfaces != null) {
-			for (Class clazz : interfaces) {
-				classLoaders.add(clazz.getClassLoader());
+			for (Class<?> clazz : interfaces) {
+				ClassLoader classLoader = clazz.getClassLoader();
+				if (classLoader == null) {
+					continue;
+				}
+				if (owner == null) {
+					owner = clazz;
+				} else if (owner.getClassLoader() != classLoader) {
+					multiple = true;
+				}
 			}
 		}
-		
-		ClassLoader multiClassLoader;
-		
-		if(classLoaderCache.containsKey(classLoaders))
-		{
-			multiClassLoader = classLoaderCache.get(classLoaders);
+
+		if (owner == null) {
+			return bootstrapClassLoader;
+		} else if (!multiple) {
+			return singleClassLoaders.get(owner);
 		}
-		else
-		{
-			multiClassLoader = new MultiClassLoader(classLoaders);
-			classLoaderCache.put(classLoaders, multiClassLoader);
+
+		Set<ClassLoader> classLoaders = new LinkedHashSet<>();
+		if (superclass != null && superclass.getClassLoader() != null) {
+			classLoaders.add(superclass.getClassLoader());
 		}
+		for (Class<?> clazz : interfaces) {
+			if (clazz.getClassLoader() != null) {
+				classLoaders.add(clazz.getClassLoader());
+			}
+		}
+		return multiClassLoaders.get(owner).computeIfAbsent(classLoaders, MultiClassLoader::new);
+	}
 
-		return multiClassLoader;
+	/**
+	 * <p>getClassLoaderCount.</p>
+	 *
+	 * @return the number of cached class loaders not yet released
+	 */
+	public static int getClassLoaderCount() {
+		return liveClassLoaders.size();
+	}
+
+	/**
+	 * <p>getCachedClassCount.</p>
+	 *
+	 * @return the number of class names resolved or missing in the cached class loaders
+	 */
+	public static long getCachedClassCount() {
+		List<MultiClassLoader> classLoaders;
+		synchronized (liveClassLoaders) {
+			classLoaders = new ArrayList<>(liveClassLoaders);
+		}
+		long count = 0;
+		for (MultiClassLoader classLoader : classLoaders) {
+			count += classLoader.resolved.size();
+		}
+		return count;
 	}
 
 }
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.utils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.torpedoquery.core.ProxyEngine;
+import org.torpedoquery.core.ProxyHandler;
+public class PregeneratedProxyEngine implements ProxyEngine {
+
+	private final ProxyEngine fallback;
+	private final ClassValue<ConcurrentMap<List<Class<?>>, Optional<ProxyClass>>> proxyClasses = new ClassValue<ConcurrentMap<List<Class<?>>, Optional<ProxyClass>>>() {
+		@Override
+		protected ConcurrentMap<List<Class<?>>, Optional<ProxyClass>> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/**
+	 * <p>Constructor for PregeneratedProxyEngine.</p>
+	 *
+	 * @param fallback used for the classes without a proxy written by the {@link org.torpedoquery.jpa.internal.utils.ProxyClassWriter}
+	 */
+	public PregeneratedProxyEngine(ProxyEngine fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Use the proxy classes written at build time, no class is defined at
+	 * runtime as required by a native image
+	 */
+	@Override
+	public <T> T createProxy(ProxyHandler methodHandler, Class<?>... classes) {
+		if (!ProxyClass.isSupported() || !(methodHandler instanceof RecordingMethodHandler)) {
+			return fallback.createProxy(methodHandler, classes);
+		}
+
+		Optional<ProxyClass> proxyClass = proxyClasses.get(ProxyClassGenerator.lookupClass(classes))
+				.computeIfAbsent(Arrays.asList(classes), key -> Optional.ofNullable(loadProxyClass(classes)));
+
+		if (!proxyClass.isPresent()) {
+			return fallback.createProxy(methodHandler, classes);
+		}
+		return proxyClass.get().newProxy((RecordingMethodHandler) methodHandler);
+	}
+
+	private static ProxyClass loadProxyClass(Class<?>[] classes) {
+		ProxyClassGenerator generator = ProxyClassGenerator.of(classes);
+		if (generator == null) {
+			return null;
+		}
+
+		try {
+			Class<?> type = Class.forName(generator.getClassName(), false,
+					generator.getLookupClass().getClassLoader());
+			return generator.isGeneratedBy(type) ? generator.initialize(type) : null;
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+
+}
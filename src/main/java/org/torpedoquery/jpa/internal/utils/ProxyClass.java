@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+
+import com.google.common.base.Throwables;
+public class ProxyClass {
+
+	// objenesis resolve the instantiated classes by name, a hidden class has no name
+	private static final MethodHandle allocateInstance;
+
+	static {
+		MethodHandle allocate;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			allocate = MethodHandles.lookup().unreflect(unsafeClass.getMethod("allocateInstance", Class.class))
+					.bindTo(theUnsafe.get(null));
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			allocate = null;
+		}
+		allocateInstance = allocate;
+	}
+
+	private final Class<?> type;
+	private final MethodHandle recorderSetter;
+
+	ProxyClass(Class<?> type, MethodHandle recorderSetter) {
+		this.type = type;
+		this.recorderSetter = recorderSetter;
+	}
+
+	/**
+	 * <p>isSupported.</p>
+	 *
+	 * @return true when the generated classes can be instantiated without constructor
+	 */
+	public static boolean isSupported() {
+		return allocateInstance != null;
+	}
+
+	/**
+	 * <p>Getter for the field <code>type</code>.</p>
+	 *
+	 * @return a {@link java.lang.Class} object.
+	 */
+	public Class<?> getType() {
+		return type;
+	}
+
+	/**
+	 * <p>newProxy.</p>
+	 *
+	 * @param recorder a {@link org.torpedoquery.jpa.internal.utils.RecordingMethodHandler} object.
+	 * @param <T> a T object.
+	 * @return a T object.
+	 */
+	public <T> T newProxy(RecordingMethodHandler recorder) {
+		try {
+			Object proxy = allocateInstance.invoke(type);
+			recorderSetter.invoke(proxy, recorder);
+			return (T) proxy;
+		} catch (Throwable e) {
+			throw Throwables.propagate(e);
+		}
+	}
+
+}
@@ -0,0 +1,464 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.DuplicateMemberException;
+import javassist.bytecode.FieldInfo;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.Opcode;
+
+import org.torpedoquery.core.ProxyHandler;
+
+import com.google.common.primitives.Primitives;
+public class ProxyClassGenerator {
+
+	private static final String RECORDER_FIELD = "torpedo_recorder";
+	private static final String DESCRIPTORS_FIELD = "TORPEDO_DESCRIPTORS";
+	private static final String CLASSES_FIELD = "TORPEDO_CLASSES";
+
+	private static final String RECORDER_TYPE = descriptor(RecordingMethodHandler.class);
+	private static final String DESCRIPTORS_TYPE = descriptor(SerializableMethod[].class);
+	private static final String CLASSES_TYPE = descriptor(Class[].class);
+
+	private final Class<?>[] classes;
+	private final Class<?> lookupClass;
+	private final Class<?> superClass;
+	private final List<Class<?>> interfaces;
+	private final List<Method> methods;
+
+	private ProxyClassGenerator(Class<?>[] classes, Class<?> lookupClass, Class<?> superClass,
+			List<Class<?>> interfaces, List<Method> methods) {
+		this.classes = classes;
+		this.lookupClass = lookupClass;
+		this.superClass = superClass;
+		this.interfaces = interfaces;
+		this.methods = methods;
+	}
+
+	/**
+	 * <p>of.</p>
+	 *
+	 * The proxy class is generated in the loader and the package of the
+	 * super class, or of the first proxied interface
+	 *
+	 * @param classes one super class and interfaces.
+	 * @return null when the classes can not be proxied from their own loader
+	 */
+	public static ProxyClassGenerator of(Class<?>... classes) {
+		Class<?> lookupClass = lookupClass(classes);
+		Class<?> superClass = lookupClass.isInterface() ? Object.class : lookupClass;
+		List<Class<?>> interfaces = new ArrayList<>();
+		for (Class<?> type : classes) {
+			if (type.isInterface()) {
+				interfaces.add(type);
+			}
+		}
+
+		List<Method> methods = proxiedMethods(superClass, interfaces, lookupClass);
+		if (methods == null || !isVisible(lookupClass, superClass, interfaces, methods)) {
+			return null;
+		}
+		return new ProxyClassGenerator(classes.clone(), lookupClass, superClass, interfaces, methods);
+	}
+
+	/**
+	 * <p>lookupClass.</p>
+	 *
+	 * @param classes one super class and interfaces.
+	 * @return the class defining the loader and the package of the proxy
+	 */
+	public static Class<?> lookupClass(Class<?>... classes) {
+		Class<?> lookupClass = null;
+		for (Class<?> type : classes) {
+			if (!type.isInterface()) {
+				if (lookupClass != null && !lookupClass.isInterface()) {
+					throw new IllegalArgumentException("You only can pass one super class other can be interface");
+				}
+				lookupClass = type;
+			} else if (lookupClass == null && !type.getName().startsWith("org.torpedoquery.jpa.internal.")) {
+				lookupClass = type;
+			}
+		}
+		return lookupClass != null ? lookupClass : classes[0];
+	}
+
+	/**
+	 * <p>Getter for the field <code>lookupClass</code>.</p>
+	 *
+	 * @return a {@link java.lang.Class} object.
+	 */
+	public Class<?> getLookupClass() {
+		return lookupClass;
+	}
+
+	/**
+	 * <p>Getter for the field <code>methods</code>.</p>
+	 *
+	 * @return the methods recorded by the proxy in the order of their descriptors
+	 */
+	public List<Method> getMethods() {
+		return methods;
+	}
+
+	/**
+	 * <p>getClassName.</p>
+	 *
+	 * The same classes always give the same name, the proxies recording the
+	 * chained calls are named apart
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getClassName() {
+		for (Class<?> type : interfaces) {
+			if (type != lookupClass) {
+				return lookupClass.getName() + "$$TorpedoProxy";
+			}
+		}
+		return lookupClass.getName() + "$$TorpedoLinkedProxy";
+	}
+
+	/**
+	 * <p>isGeneratedBy.</p>
+	 *
+	 * A class generated before a change of the proxied classes is not used
+	 *
+	 * @param type a {@link java.lang.Class} object.
+	 * @return true when the class proxy the same classes and methods
+	 */
+	public boolean isGeneratedBy(Class<?> type) {
+		if (type.getSuperclass() != superClass || type.getClassLoader() != lookupClass.getClassLoader()
+				|| !new HashSet<>(Arrays.asList(type.getInterfaces())).equals(new HashSet<>(interfaces))) {
+			return false;
+		}
+
+		Set<String> expected = new TreeSet<>();
+		for (Method method : methods) {
+			expected.add(method.getName() + methodDescriptor(method));
+		}
+		Set<String> generated = new TreeSet<>();
+		for (Method method : type.getDeclaredMethods()) {
+			if (!Modifier.isPrivate(method.getModifiers())) {
+				generated.add(method.getName() + methodDescriptor(method));
+			}
+		}
+		return expected.equals(generated);
+	}
+
+	/**
+	 * <p>initialize.</p>
+	 *
+	 * @param type the class defined with the generated bytecode.
+	 * @return a {@link org.torpedoquery.jpa.internal.utils.ProxyClass} object.
+	 * @throws java.lang.ReflectiveOperationException if any.
+	 */
+	public ProxyClass initialize(Class<?> type) throws ReflectiveOperationException {
+		SerializableMethod[] descriptors = new SerializableMethod[methods.size()];
+		for (int i = 0; i < descriptors.length; i++) {
+			descriptors[i] = SerializableMethod.of(methods.get(i));
+		}
+		field(type, DESCRIPTORS_FIELD).set(null, descriptors);
+		field(type, CLASSES_FIELD).set(null, classes.clone());
+		ProxyFactoryFactory.count(type);
+
+		return new ProxyClass(type, MethodHandles.lookup().unreflectSetter(field(type, RECORDER_FIELD)));
+	}
+
+	private static Field field(Class<?> type, String name) throws NoSuchFieldException {
+		Field field = type.getDeclaredField(name);
+		field.setAccessible(true);
+		return field;
+	}
+
+	private static List<Method> proxiedMethods(Class<?> superClass, List<Class<?>> interfaces, Class<?> lookupClass) {
+		if (Modifier.isFinal(superClass.getModifiers())) {
+			return null;
+		}
+
+		// sorted to give the same descriptor indexes when generated at build time
+		Map<String, Method> methods = new TreeMap<>();
+		List<Class<?>> allInterfaces = new ArrayList<>(interfaces);
+
+		for (Class<?> type = superClass; type != Object.class && type != null; type = type.getSuperclass()) {
+			allInterfaces.addAll(Arrays.asList(type.getInterfaces()));
+			for (Method method : type.getDeclaredMethods()) {
+				int modifiers = method.getModifiers();
+				if (Modifier.isStatic(modifiers) || Modifier.isPrivate(modifiers)) {
+					continue;
+				}
+				String key = method.getName() + methodDescriptor(method);
+				if (!methods.containsKey(key)) {
+					boolean samePackage = Objects.equals(packageName(type), packageName(lookupClass));
+					boolean proxied = !Modifier.isFinal(modifiers) && !method.isBridge() && !method.isSynthetic()
+							&& isHandled(method)
+							&& (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers) || samePackage);
+					methods.put(key, proxied ? method : null);
+				}
+			}
+		}
+
+		for (Class<?> type : allInterfaces) {
+			for (Method method : type.getMethods()) {
+				String key = method.getName() + methodDescriptor(method);
+				if (!Modifier.isStatic(method.getModifiers()) && !methods.containsKey(key)) {
+					methods.put(key, isHandled(method) ? method : null);
+				}
+			}
+		}
+
+		List<Method> proxied = new ArrayList<>();
+		for (Method method : methods.values()) {
+			if (method != null) {
+				proxied.add(method);
+			}
+		}
+		return proxied;
+	}
+
+	private static boolean isHandled(Method method) {
+		String name = method.getName();
+		return !name.equals("finalize") && !name.equals("equals") && !name.equals("hashCode")
+				&& !name.equals("toString") && !(name.equals("writeReplace") && method.getParameterCount() == 0);
+	}
+
+	/**
+	 * The generated class is defined in the loader and the package of the
+	 * lookup class, it must see the same torpedo classes and access every
+	 * class it cast to
+	 */
+	private static boolean isVisible(Class<?> lookupClass, Class<?> superClass, List<Class<?>> interfaces,
+			List<Method> methods) {
+		ClassLoader loader = lookupClass.getClassLoader();
+		if (loader == null) {
+			return false;
+		}
+
+		List<Class<?>> types = new ArrayList<>(Arrays.asList(RecordingMethodHandler.class, SerializableMethod.class,
+				ProxyReplacement.class, ProxyHandler.class, superClass));
+		types.addAll(interfaces);
+		for (Method method : methods) {
+			types.add(method.getReturnType());
+		}
+
+		for (Class<?> type : types) {
+			while (type.isArray()) {
+				type = type.getComponentType();
+			}
+			if (type.isPrimitive()) {
+				continue;
+			}
+			if (!Modifier.isPublic(type.getModifiers())
+					&& !Objects.equals(packageName(type), packageName(lookupClass))) {
+				return false;
+			}
+			try {
+				if (Class.forName(type.getName(), false, loader) != type) {
+					return false;
+				}
+			} catch (ClassNotFoundException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * <p>generate.</p>
+	 *
+	 * @param name the name of the generated class.
+	 * @return the bytecode of the proxy class.
+	 * @throws java.io.IOException if any.
+	 */
+	public byte[] generate(String name) throws IOException {
+		ClassFile classFile = new ClassFile(false, name, superClass.getName());
+		classFile.setMajorVersion(ClassFile.JAVA_7);
+		classFile.setAccessFlags(AccessFlag.PUBLIC | AccessFlag.FINAL | AccessFlag.SUPER);
+
+		String[] interfaceNames = new String[interfaces.size()];
+		for (int i = 0; i < interfaceNames.length; i++) {
+			interfaceNames[i] = interfaces.get(i).getName();
+		}
+		classFile.setInterfaces(interfaceNames);
+
+		try {
+			ConstPool constPool = classFile.getConstPool();
+			addField(classFile, RECORDER_FIELD, RECORDER_TYPE, AccessFlag.PRIVATE);
+			addField(classFile, DESCRIPTORS_FIELD, DESCRIPTORS_TYPE, AccessFlag.PRIVATE | AccessFlag.STATIC);
+			addField(classFile, CLASSES_FIELD, CLASSES_TYPE, AccessFlag.PRIVATE | AccessFlag.STATIC);
+
+			for (int i = 0; i < methods.size(); i++) {
+				classFile.addMethod(recordingMethod(constPool, name, methods.get(i), i));
+			}
+			classFile.addMethod(writeReplaceMethod(constPool, name));
+		} catch (DuplicateMemberException e) {
+			throw new IllegalStateException(e);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			classFile.write(out);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void addField(ClassFile classFile, String name, String descriptor, int accessFlags)
+			throws DuplicateMemberException {
+		FieldInfo field = new FieldInfo(classFile.getConstPool(), name, descriptor);
+		field.setAccessFlags(accessFlags);
+		classFile.addField(field);
+	}
+
+	/**
+	 * return (R) torpedo_recorder.record(this, TORPEDO_DESCRIPTORS[index]);
+	 */
+	private static MethodInfo recordingMethod(ConstPool constPool, String className, Method method, int index) {
+		MethodInfo methodInfo = new MethodInfo(constPool, method.getName(), methodDescriptor(method));
+		int modifiers = method.getModifiers();
+		methodInfo.setAccessFlags(Modifier.isPublic(modifiers) ? AccessFlag.PUBLIC
+				: Modifier.isProtected(modifiers) ? AccessFlag.PROTECTED : 0);
+
+		int locals = 1;
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			locals += parameterType == long.class || parameterType == double.class ? 2 : 1;
+		}
+
+		Bytecode code = new Bytecode(constPool, 4, locals);
+		code.addAload(0);
+		code.addGetfield(className, RECORDER_FIELD, RECORDER_TYPE);
+		code.addAload(0);
+		code.addGetstatic(className, DESCRIPTORS_FIELD, DESCRIPTORS_TYPE);
+		code.addIconst(index);
+		code.addOpcode(Opcode.AALOAD);
+		code.addInvokeinterface(RecordingMethodHandler.class.getName(), "record",
+				"(Ljava/lang/Object;" + descriptor(SerializableMethod.class) + ")Ljava/lang/Object;", 3);
+
+		Class<?> returnType = method.getReturnType();
+		if (returnType == void.class) {
+			code.addOpcode(Opcode.POP);
+			code.addOpcode(Opcode.RETURN);
+		} else if (returnType.isPrimitive()) {
+			Class<?> wrapper = Primitives.wrap(returnType);
+			code.addCheckcast(wrapper.getName());
+			code.addInvokevirtual(wrapper.getName(), returnType.getName() + "Value", "()" + descriptor(returnType));
+			code.addOpcode(returnOpcode(returnType));
+		} else {
+			if (returnType != Object.class) {
+				code.addCheckcast(returnType.getName());
+			}
+			code.addOpcode(Opcode.ARETURN);
+		}
+		code.setMaxStack(4);
+
+		methodInfo.setCodeAttribute(code.toCodeAttribute());
+		return methodInfo;
+	}
+
+	/**
+	 * private Object writeReplace() { return ProxyReplacement.of(TORPEDO_CLASSES, torpedo_recorder); }
+	 */
+	private static MethodInfo writeReplaceMethod(ConstPool constPool, String className) {
+		MethodInfo methodInfo = new MethodInfo(constPool, "writeReplace", "()Ljava/lang/Object;");
+		methodInfo.setAccessFlags(AccessFlag.PRIVATE);
+
+		Bytecode code = new Bytecode(constPool, 2, 1);
+		code.addGetstatic(className, CLASSES_FIELD, CLASSES_TYPE);
+		code.addAload(0);
+		code.addGetfield(className, RECORDER_FIELD, RECORDER_TYPE);
+		code.addInvokestatic(ProxyReplacement.class.getName(), "of",
+				"(" + CLASSES_TYPE + descriptor(ProxyHandler.class) + ")Ljava/lang/Object;");
+		code.addOpcode(Opcode.ARETURN);
+		code.setMaxStack(2);
+
+		methodInfo.setCodeAttribute(code.toCodeAttribute());
+		return methodInfo;
+	}
+
+	private static int returnOpcode(Class<?> returnType) {
+		if (returnType == long.class) {
+			return Opcode.LRETURN;
+		} else if (returnType == float.class) {
+			return Opcode.FRETURN;
+		} else if (returnType == double.class) {
+			return Opcode.DRETURN;
+		} else {
+			return Opcode.IRETURN;
+		}
+	}
+
+	private static String methodDescriptor(Method method) {
+		StringBuilder builder = new StringBuilder("(");
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			builder.append(descriptor(parameterType));
+		}
+		return builder.append(')').append(descriptor(method.getReturnType())).toString();
+	}
+
+	private static String descriptor(Class<?> type) {
+		if (type.isArray()) {
+			return type.getName().replace('.', '/');
+		} else if (type == void.class) {
+			return "V";
+		} else if (type == boolean.class) {
+			return "Z";
+		} else if (type == byte.class) {
+			return "B";
+		} else if (type == char.class) {
+			return "C";
+		} else if (type == short.class) {
+			return "S";
+		} else if (type == int.class) {
+			return "I";
+		} else if (type == long.class) {
+			return "J";
+		} else if (type == float.class) {
+			return "F";
+		} else if (type == double.class) {
+			return "D";
+		} else {
+			return "L" + type.getName().replace('.', '/') + ";";
+		}
+	}
+
+	private static String packageName(Class<?> type) {
+		String name = type.getName();
+		int index = name.lastIndexOf('.');
+		return index < 0 ? "" : name.substring(0, index);
+	}
+
+}
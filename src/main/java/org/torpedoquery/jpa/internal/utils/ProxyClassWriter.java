@@ -0,0 +1,195 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.torpedoquery.core.ProxyHandler;
+import org.torpedoquery.jpa.internal.TorpedoProxy;
+public class ProxyClassWriter {
+
+	/** Location of the native image metadata in the output directory */
+	public static final String REFLECT_CONFIG = "META-INF/native-image/org.torpedoquery/proxies/reflect-config.json";
+
+	private final File outputDirectory;
+	private final Set<Class<?>> entities = new LinkedHashSet<>();
+
+	/**
+	 * <p>Constructor for ProxyClassWriter.</p>
+	 *
+	 * @param outputDirectory the classes directory of the build.
+	 */
+	public ProxyClassWriter(File outputDirectory) {
+		this.outputDirectory = outputDirectory;
+	}
+
+	/**
+	 * <p>add.</p>
+	 *
+	 * The entities reached by the getters and the joined collections are
+	 * added too
+	 *
+	 * @param entity a {@link java.lang.Class} object.
+	 * @return a {@link org.torpedoquery.jpa.internal.utils.ProxyClassWriter} object.
+	 */
+	public ProxyClassWriter add(Class<?> entity) {
+		Deque<Class<?>> toVisit = new ArrayDeque<>();
+		toVisit.add(entity);
+
+		while (!toVisit.isEmpty()) {
+			Class<?> type = toVisit.poll();
+			if (!isProxied(type) || !entities.add(type)) {
+				continue;
+			}
+
+			ProxyClassGenerator generator = ProxyClassGenerator.of(type);
+			if (generator == null) {
+				continue;
+			}
+			for (Method method : generator.getMethods()) {
+				toVisit.add(method.getReturnType());
+				if (isContainer(method.getReturnType()) && method.getGenericReturnType() instanceof ParameterizedType) {
+					for (Type argument : ((ParameterizedType) method.getGenericReturnType()).getActualTypeArguments()) {
+						if (argument instanceof Class) {
+							toVisit.add((Class<?>) argument);
+						}
+					}
+				}
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Same rule as the linked proxies of the
+	 * {@link org.torpedoquery.jpa.internal.utils.TorpedoMethodHandler}
+	 */
+	private static boolean isProxied(Class<?> type) {
+		return !type.isPrimitive() && !type.isArray() && !Modifier.isFinal(type.getModifiers())
+				&& !type.getName().startsWith("java");
+	}
+
+	private static boolean isContainer(Class<?> type) {
+		return Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+	}
+
+	/**
+	 * <p>write.</p>
+	 *
+	 * Write a proxy class for the queried entities and one for the chained
+	 * calls, and the reflection metadata needed to use them in a native image
+	 *
+	 * @throws java.io.IOException if any.
+	 */
+	public void write() throws IOException {
+		Map<String, String> reflectConfig = new TreeMap<>();
+		reflectConfig.put("sun.misc.Unsafe", "{\"name\":\"sun.misc.Unsafe\",\"fields\":[{\"name\":\"theUnsafe\"}],"
+				+ "\"methods\":[{\"name\":\"allocateInstance\",\"parameterTypes\":[\"java.lang.Class\"]}]}");
+		for (Class<?> type : new Class<?>[] { TorpedoProxy.class, RecordingMethodHandler.class,
+				SerializableMethod.class, ProxyReplacement.class, ProxyHandler.class }) {
+			reflectConfig.put(type.getName(), named(type));
+		}
+
+		for (Class<?> entity : entities) {
+			write(ProxyClassGenerator.of(entity, TorpedoProxy.class), reflectConfig);
+			write(ProxyClassGenerator.of(entity), reflectConfig);
+		}
+
+		StringBuilder json = new StringBuilder("[\n");
+		for (String entry : reflectConfig.values()) {
+			json.append(json.length() > 2 ? ",\n  " : "  ").append(entry);
+		}
+		json.append("\n]\n");
+
+		File file = new File(outputDirectory, REFLECT_CONFIG);
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void write(ProxyClassGenerator generator, Map<String, String> reflectConfig) throws IOException {
+		if (generator == null) {
+			return;
+		}
+
+		String className = generator.getClassName();
+		File file = new File(outputDirectory, className.replace('.', File.separatorChar) + ".class");
+		file.getParentFile().mkdirs();
+		Files.write(file.toPath(), generator.generate(className));
+
+		reflectConfig.put(className, "{\"name\":\"" + className
+				+ "\",\"allDeclaredFields\":true,\"allDeclaredMethods\":true,\"unsafeAllocated\":true}");
+
+		for (Class<?> type = generator.getLookupClass(); type != null && type != Object.class; type = type
+				.getSuperclass()) {
+			reflectConfig.put(type.getName(), "{\"name\":\"" + type.getName()
+					+ "\",\"allDeclaredMethods\":true,\"allPublicMethods\":true}");
+			for (Class<?> interfaceType : type.getInterfaces()) {
+				reflectConfig.putIfAbsent(interfaceType.getName(), "{\"name\":\"" + interfaceType.getName()
+						+ "\",\"allPublicMethods\":true}");
+			}
+		}
+		for (Method method : generator.getMethods()) {
+			Class<?> returnType = method.getReturnType();
+			if (!returnType.isPrimitive()) {
+				reflectConfig.putIfAbsent(returnType.getName(), named(returnType));
+			}
+		}
+	}
+
+	private static String named(Class<?> type) {
+		return "{\"name\":\"" + type.getName() + "\"}";
+	}
+
+	/**
+	 * <p>main.</p>
+	 *
+	 * Run at build time with the output directory followed by the queried
+	 * entity classes
+	 *
+	 * @param args an array of {@link java.lang.String} objects.
+	 * @throws java.lang.Exception if any.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			throw new IllegalArgumentException("Usage: ProxyClassWriter <outputDirectory> <entityClass>...");
+		}
+
+		ProxyClassWriter writer = new ProxyClassWriter(new File(args[0]));
+		ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+		for (int i = 1; i < args.length; i++) {
+			writer.add(Class.forName(args[i], false, classLoader));
+		}
+		writer.write();
+	}
+
+}
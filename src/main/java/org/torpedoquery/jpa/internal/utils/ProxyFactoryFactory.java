@@ -19,8 +19,11 @@
  */
 package org.torpedoquery.jpa.internal.utils;
 
+import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 import javassist.util.proxy.MethodFilter;
 import javassist.util.proxy.MethodHandler;
@@ -28,7 +31,19 @@ import javassist.util.proxy.Proxy;
 import javassist.util.proxy.ProxyFactory.ClassLoaderProvider;
 
 import org.objenesis.ObjenesisHelper;
-public class ProxyFactoryFactory {
+import org.torpedoquery.core.ProxyEngine;
+import org.torpedoquery.core.ProxyHandler;
+import org.torpedoquery.jpa.internal.metrics.TorpedoEvents;
+public class ProxyFactoryFactory implements ProxyEngine {
+	private static final LongAdder proxyClassCount = new LongAdder();
+	// computeValue can run more than once for a class, only the published flag is counted
+	private static final ClassValue<AtomicBoolean> countedProxyClasses = new ClassValue<AtomicBoolean>() {
+		@Override
+		protected AtomicBoolean computeValue(Class<?> type) {
+			return new AtomicBoolean();
+		}
+	};
+
 	private final ClassLoaderProvider classLoaderProvider;
 	private final MethodFilter methodFilter;
 
@@ -55,11 +70,12 @@ public class ProxyFactoryFactory {
 	 * You can pass only one Super class
 	 *
 	 * @param classes a {@link java.lang.Class} object.
-	 * @param methodHandler a {@link javassist.util.proxy.MethodHandler} object.
+	 * @param methodHandler a {@link org.torpedoquery.core.ProxyHandler} object.
 	 * @param <T> a T object.
 	 * @return a T object.
 	 */
-	public <T> T createProxy(MethodHandler methodHandler, Class<?>... classes) {
+	@Override
+	public <T> T createProxy(ProxyHandler methodHandler, Class<?>... classes) {
 
 		ArrayList<Class<?>> interfaces = new ArrayList<>();
 		Class<?> superClass = null;
@@ -92,11 +108,45 @@ public class ProxyFactoryFactory {
 
 		classLoaderProvidedProxyFactory.setFilter(methodFilter);
 
+		Object event = TorpedoEvents.getRecorder().beginProxyGeneration();
 		Class proxyClass = classLoaderProvidedProxyFactory.createClass();
+		if (event != null) {
+			TorpedoEvents.getRecorder().endProxyGeneration(event, proxyClass, "javassist");
+		}
+		count(proxyClass);
 
 		Proxy proxy = (Proxy) ObjenesisHelper.newInstance(proxyClass);
-		proxy.setHandler(methodHandler);
+		proxy.setHandler(new JavassistMethodHandler(methodHandler));
 
 		return (T) proxy;
 	}
+
+	private static class JavassistMethodHandler implements MethodHandler, Serializable {
+		private final ProxyHandler handler;
+
+		private JavassistMethodHandler(ProxyHandler handler) {
+			this.handler = handler;
+		}
+
+		@Override
+		public Object invoke(Object self, Method thisMethod, Method proceed, Object[] args) throws Throwable {
+			return handler.invoke(self, thisMethod, args);
+		}
+	}
+
+	static void count(Class<?> proxyClass) {
+		if (countedProxyClasses.get(proxyClass).compareAndSet(false, true)) {
+			proxyClassCount.increment();
+		}
+	}
+
+	/**
+	 * <p>getCumulativeProxyClassCount.</p>
+	 *
+	 * @return the number of proxy classes generated or loaded by the proxy engines since the start,
+	 *         the unloaded classes are still counted
+	 */
+	public static long getCumulativeProxyClassCount() {
+		return proxyClassCount.sum();
+	}
 }
@@ -0,0 +1,53 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.utils;
+
+import java.io.Serializable;
+
+import org.torpedoquery.core.ProxyHandler;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+public class ProxyReplacement implements Serializable {
+
+	private final Class<?>[] classes;
+	private final ProxyHandler methodHandler;
+
+	private ProxyReplacement(Class<?>[] classes, ProxyHandler methodHandler) {
+		this.classes = classes;
+		this.methodHandler = methodHandler;
+	}
+
+	/**
+	 * <p>of.</p>
+	 *
+	 * A generated proxy class may not be found by name when reading, the
+	 * proxies are serialized as their classes and their handler
+	 *
+	 * @param classes the classes given to create the proxy.
+	 * @param methodHandler a {@link org.torpedoquery.core.ProxyHandler} object.
+	 * @return a {@link java.lang.Object} object.
+	 */
+	public static Object of(Class<?>[] classes, ProxyHandler methodHandler) {
+		return new ProxyReplacement(classes, methodHandler);
+	}
+
+	private Object readResolve() {
+		return TorpedoMagic.getProxyEngine().createProxy(methodHandler, classes);
+	}
+
+}
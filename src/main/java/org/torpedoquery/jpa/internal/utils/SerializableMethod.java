@@ -23,6 +23,8 @@ import java.io.Serializable;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.google.common.base.Throwables;
 public class SerializableMethod implements Serializable {
@@ -36,6 +38,35 @@ public class SerializableMethod implements Serializable {
 	private final Class<?>[] exceptionTypes;
 	private final boolean isVarArgs;
 	private final boolean isAbstract;
+	private final String fieldName;
+
+	private static final ClassValue<ConcurrentMap<Method, SerializableMethod>> methodsByClass = new ClassValue<ConcurrentMap<Method, SerializableMethod>>() {
+		@Override
+		protected ConcurrentMap<Method, SerializableMethod> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<>();
+		}
+	};
+
+	/**
+	 * <p>of.</p>
+	 *
+	 * The recorded methods are immutable and shared by all the recorded calls
+	 *
+	 * @param method a {@link java.lang.reflect.Method} object.
+	 * @return a {@link org.torpedoquery.jpa.internal.utils.SerializableMethod} object.
+	 */
+	public static SerializableMethod of(Method method) {
+		ConcurrentMap<Method, SerializableMethod> methods = methodsByClass.get(method.getDeclaringClass());
+		SerializableMethod serializableMethod = methods.get(method);
+		if (serializableMethod == null) {
+			serializableMethod = new SerializableMethod(method);
+			SerializableMethod previous = methods.putIfAbsent(method, serializableMethod);
+			if (previous != null) {
+				serializableMethod = previous;
+			}
+		}
+		return serializableMethod;
+	}
 
 	/**
 	 * <p>Constructor for SerializableMethod.</p>
@@ -50,6 +81,25 @@ public class SerializableMethod implements Serializable {
 		exceptionTypes = method.getExceptionTypes();
 		isVarArgs = method.isVarArgs();
 		isAbstract = (method.getModifiers() & Modifier.ABSTRACT) != 0;
+		fieldName = FieldUtils.getFieldName(this);
+	}
+
+	/**
+	 * <p>Getter for the field <code>fieldName</code>.</p>
+	 *
+	 * @return the property name of the getter
+	 */
+	public String getFieldName() {
+		return fieldName;
+	}
+
+	/**
+	 * <p>Getter for the field <code>declaringClass</code>.</p>
+	 *
+	 * @return a {@link java.lang.Class} object.
+	 */
+	public Class<?> getDeclaringClass() {
+		return declaringClass;
 	}
 
 	/**
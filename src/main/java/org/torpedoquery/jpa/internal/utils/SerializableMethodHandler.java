@@ -21,7 +21,7 @@ package org.torpedoquery.jpa.internal.utils;
 
 import java.io.Serializable;
 
-import javassist.util.proxy.MethodHandler;
-public interface SerializableMethodHandler extends MethodHandler, Serializable {
+import org.torpedoquery.core.ProxyHandler;
+public interface SerializableMethodHandler extends ProxyHandler, Serializable {
 
 }
@@ -34,8 +34,18 @@ public class SimpleMethodCall implements MethodCall {
 	 * @param method a {@link java.lang.reflect.Method} object.
 	 */
 	public SimpleMethodCall(TorpedoProxy proxy, Method method) {
+		this(proxy, SerializableMethod.of(method));
+	}
+
+	/**
+	 * <p>Constructor for SimpleMethodCall.</p>
+	 *
+	 * @param proxy a {@link org.torpedoquery.jpa.internal.TorpedoProxy} object.
+	 * @param method a {@link org.torpedoquery.jpa.internal.utils.SerializableMethod} object.
+	 */
+	public SimpleMethodCall(TorpedoProxy proxy, SerializableMethod method) {
 		this.proxy = proxy;
-		this.method = new SerializableMethod(method);
+		this.method = method;
 	}
 
 	/*
@@ -69,13 +79,13 @@ public class SimpleMethodCall implements MethodCall {
 	/** {@inheritDoc} */
 	@Override
 	public String getFullPath() {
-		return FieldUtils.getFieldName(method);
+		return method.getFieldName();
 	}
 
 	/** {@inheritDoc} */
 	@Override
 	public String getParamName() {
-		return FieldUtils.getFieldName(method);
+		return method.getFieldName();
 	}
 
 }
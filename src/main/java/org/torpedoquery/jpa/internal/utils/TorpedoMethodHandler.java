@@ -22,15 +22,14 @@ package org.torpedoquery.jpa.internal.utils;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import javassist.util.proxy.MethodHandler;
-
 import org.torpedoquery.core.QueryBuilder;
 import org.torpedoquery.jpa.internal.MethodCall;
 import org.torpedoquery.jpa.internal.TorpedoProxy;
@@ -38,9 +37,10 @@ import org.torpedoquery.jpa.internal.TorpedoMagic;
 import org.torpedoquery.jpa.internal.handlers.QueryHandler;
 
 import com.google.common.base.Defaults;
-public class TorpedoMethodHandler implements MethodHandler, TorpedoProxy {
+public class TorpedoMethodHandler implements RecordingMethodHandler, TorpedoProxy {
 	private final Map<Object, QueryBuilder<?>> proxyQueryBuilders = new IdentityHashMap<>();
-	private final Deque<MethodCall> methods = new LinkedList<>();
+	private final Deque<MethodCall> methods = new ArrayDeque<>();
+	private transient Map<Class<?>, Object> linkedProxies;
 	private final QueryBuilder<?> root;
 	private final List<Object> params = new ArrayList<>();
 
@@ -74,7 +74,7 @@ public class TorpedoMethodHandler implements MethodHandler, TorpedoProxy {
 
 	/** {@inheritDoc} */
 	@Override
-	public Object invoke(Object self, Method thisMethod, Method proceed, Object[] args) throws Throwable {
+	public Object invoke(Object self, Method thisMethod, Object[] args) throws Throwable {
 		if (thisMethod.getDeclaringClass().equals(TorpedoProxy.class)) {
 			try {
 				return thisMethod.invoke(this, args);
@@ -83,10 +83,41 @@ public class TorpedoMethodHandler implements MethodHandler, TorpedoProxy {
 			}
 		}
 
-		methods.addFirst(new SimpleMethodCall((TorpedoProxy) self, thisMethod));
+		return record(self, SerializableMethod.of(thisMethod));
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Object record(Object self, SerializableMethod method) throws Throwable {
+		if (method.getDeclaringClass() == TorpedoProxy.class) {
+			return this;
+		}
+
+		methods.addFirst(new SimpleMethodCall((TorpedoProxy) self, method));
 		TorpedoMagic.setQuery((TorpedoProxy) self);
 
-		return createReturnValue(thisMethod.getReturnType());
+		return createReturnValue(method.getReturnType());
+	}
+
+	private class LinkedMethodHandler implements SerializableMethodHandler, RecordingMethodHandler {
+
+		@Override
+		public Object invoke(Object self, Method thisMethod, Object[] args) throws Throwable {
+			return record(self, SerializableMethod.of(thisMethod));
+		}
+
+		@Override
+		public Object record(Object self, SerializableMethod method) throws Throwable {
+			MethodCall previous = methods.peekFirst();
+
+			if (previous instanceof LinkedMethodCall) {
+				((LinkedMethodCall) previous).append(method);
+			} else {
+				methods.pollFirst();
+				methods.addFirst(new LinkedMethodCall(previous, method));
+			}
+			return createReturnValue(method.getReturnType());
+		}
 	}
 
 	private <T> T createReturnValue(final Class<T> returnType)
@@ -101,21 +132,22 @@ public class TorpedoMethodHandler implements MethodHandler, TorpedoProxy {
 		}
 	}
 
+	/**
+	 * The linked proxies only record the calls in this handler, one proxy by
+	 * type is shared by all the chained calls
+	 */
 	private <T> T createLinkedProxy(final Class<T> returnType)
 			throws NoSuchMethodException, InstantiationException, IllegalAccessException, InvocationTargetException {
-		MethodHandler mh = new SerializableMethodHandler() {
-
-			@Override
-			public Object invoke(Object self, Method thisMethod, Method proceed, Object[] args) throws Throwable {
-				MethodCall pollFirst = methods.pollFirst();
-				LinkedMethodCall linkedMethodCall = new LinkedMethodCall(pollFirst,
-						new SimpleMethodCall(pollFirst.getProxy(), thisMethod));
-				methods.addFirst(linkedMethodCall);
-				return createReturnValue(thisMethod.getReturnType());
-			}
-		};
+		if (linkedProxies == null) {
+			linkedProxies = new HashMap<>();
+		}
 
-		return TorpedoMagic.getProxyfactoryfactory().createProxy(mh, returnType);
+		Object linkedProxy = linkedProxies.get(returnType);
+		if (linkedProxy == null) {
+			linkedProxy = TorpedoMagic.getProxyEngine().createProxy(new LinkedMethodHandler(), returnType);
+			linkedProxies.put(returnType, linkedProxy);
+		}
+		return returnType.cast(linkedProxy);
 	}
 
 	/**
@@ -0,0 +1,99 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.workload;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+public class ReplayReport {
+
+	private final Map<String, ReplayShape> shapes;
+	private final long elapsedNanos;
+
+	/**
+	 * <p>
+	 * Constructor for ReplayReport.
+	 * </p>
+	 *
+	 * @param shapes
+	 *            the replayed shapes by fingerprint
+	 * @param elapsedNanos
+	 *            the duration of the replay
+	 */
+	public ReplayReport(Map<String, ReplayShape> shapes, long elapsedNanos) {
+		this.shapes = Collections.unmodifiableMap(shapes);
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>shapes</code>.
+	 * </p>
+	 *
+	 * @return the replayed shapes by fingerprint
+	 */
+	public Map<String, ReplayShape> getShapes() {
+		return shapes;
+	}
+
+	/**
+	 * <p>
+	 * getShape.
+	 * </p>
+	 *
+	 * @param fingerprint
+	 *            a {@link java.lang.String} object.
+	 * @return null when the shape is not in the log
+	 */
+	public ReplayShape getShape(String fingerprint) {
+		return shapes.get(fingerprint);
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>elapsedNanos</code>.
+	 * </p>
+	 *
+	 * @return a long.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * The shapes with the largest replay time first
+	 *
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		List<ReplayShape> sorted = new ArrayList<>(shapes.values());
+		sorted.sort(Comparator.comparingLong((ReplayShape shape) -> shape.getReplay().getTotal()).reversed());
+
+		StringBuilder builder = new StringBuilder("replayed in ").append(elapsedNanos / 1000000).append(" ms");
+		for (ReplayShape shape : sorted) {
+			builder.append("\n\t").append(shape);
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.workload;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.torpedoquery.jpa.internal.metrics.LatencyHistogram;
+
+public class ReplayShape {
+
+	private final String fingerprint;
+	private final String query;
+	private final LatencyHistogram baseline = new LatencyHistogram();
+	private final LatencyHistogram replay = new LatencyHistogram();
+	private final LongAdder failed = new LongAdder();
+	private final LongAdder unsupported = new LongAdder();
+
+	/**
+	 * <p>
+	 * Constructor for ReplayShape.
+	 * </p>
+	 *
+	 * @param fingerprint
+	 *            a {@link java.lang.String} object.
+	 * @param query
+	 *            a {@link java.lang.String} object.
+	 */
+	public ReplayShape(String fingerprint, String query) {
+		this.fingerprint = fingerprint;
+		this.query = query;
+	}
+
+	void replayed(long capturedNanos, long replayNanos) {
+		baseline.record(capturedNanos);
+		replay.record(replayNanos);
+	}
+
+	void failed(long capturedNanos) {
+		baseline.record(capturedNanos);
+		failed.increment();
+	}
+
+	void unsupported() {
+		unsupported.increment();
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>fingerprint</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>query</code>.
+	 * </p>
+	 *
+	 * @return a {@link java.lang.String} object.
+	 */
+	public String getQuery() {
+		return query;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>baseline</code>.
+	 * </p>
+	 *
+	 * @return the captured execution time in nanoseconds
+	 */
+	public LatencyHistogram getBaseline() {
+		return baseline;
+	}
+
+	/**
+	 * <p>
+	 * Getter for the field <code>replay</code>.
+	 * </p>
+	 *
+	 * @return the replayed execution time in nanoseconds
+	 */
+	public LatencyHistogram getReplay() {
+		return replay;
+	}
+
+	/**
+	 * <p>
+	 * getFailed.
+	 * </p>
+	 *
+	 * @return the executions which failed on the target
+	 */
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	/**
+	 * <p>
+	 * getUnsupported.
+	 * </p>
+	 *
+	 * @return the executions not replayed because a parameter type is not
+	 *         supported by the log
+	 */
+	public long getUnsupported() {
+		return unsupported.sum();
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder(fingerprint);
+		builder.append(" executions=").append(replay.getCount());
+		for (double percentile : new double[] { 50, 95, 99 }) {
+			builder.append(" p").append((int) percentile).append("=")
+					.append(TimeUnit.NANOSECONDS.toMicros(baseline.getPercentile(percentile))).append("us->")
+					.append(TimeUnit.NANOSECONDS.toMicros(replay.getPercentile(percentile))).append("us");
+		}
+		if (getFailed() > 0) {
+			builder.append(" failed=").append(getFailed());
+		}
+		if (getUnsupported() > 0) {
+			builder.append(" unsupported=").append(getUnsupported());
+		}
+		return builder.append(" ").append(query).toString();
+	}
+
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.workload;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The binary format of a workload log. A header followed by records, a query
+ * record define the id of a query string, an execution record reference it.
+ */
+final class WorkloadLog {
+
+	static final int MAGIC = 0x54515746;
+	static final int VERSION = 1;
+
+	static final byte QUERY = 1;
+	static final byte EXECUTION = 2;
+
+	/** a parameter value which can not be written, the execution can not be replayed */
+	static final Object UNSUPPORTED = new Object();
+
+	private static final byte NULL = 0;
+	private static final byte STRING = 1;
+	private static final byte INTEGER = 2;
+	private static final byte LONG = 3;
+	private static final byte DOUBLE = 4;
+	private static final byte FLOAT = 5;
+	private static final byte SHORT = 6;
+	private static final byte BYTE = 7;
+	private static final byte BOOLEAN = 8;
+	private static final byte CHARACTER = 9;
+	private static final byte BIG_DECIMAL = 10;
+	private static final byte BIG_INTEGER = 11;
+	private static final byte DATE = 12;
+	private static final byte SQL_DATE = 13;
+	private static final byte TIMESTAMP = 14;
+	private static final byte TIME = 15;
+	private static final byte ENUM = 16;
+	private static final byte COLLECTION = 17;
+	private static final byte UNSUPPORTED_TYPE = 127;
+
+	private WorkloadLog() {
+	}
+
+	static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			writeString(out, (String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INTEGER);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) value);
+		} else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof Character) {
+			out.writeByte(CHARACTER);
+			out.writeChar((Character) value);
+		} else if (value instanceof BigDecimal) {
+			out.writeByte(BIG_DECIMAL);
+			writeString(out, value.toString());
+		} else if (value instanceof BigInteger) {
+			out.writeByte(BIG_INTEGER);
+			writeString(out, value.toString());
+		} else if (value instanceof java.sql.Timestamp) {
+			out.writeByte(TIMESTAMP);
+			out.writeLong(((java.sql.Timestamp) value).getTime());
+			out.writeInt(((java.sql.Timestamp) value).getNanos());
+		} else if (value instanceof java.sql.Date) {
+			out.writeByte(SQL_DATE);
+			out.writeLong(((java.util.Date) value).getTime());
+		} else if (value instanceof java.sql.Time) {
+			out.writeByte(TIME);
+			out.writeLong(((java.util.Date) value).getTime());
+		} else if (value.getClass() == java.util.Date.class) {
+			out.writeByte(DATE);
+			out.writeLong(((java.util.Date) value).getTime());
+		} else if (value instanceof Enum) {
+			out.writeByte(ENUM);
+			writeString(out, ((Enum<?>) value).getDeclaringClass().getName());
+			writeString(out, ((Enum<?>) value).name());
+		} else if (value instanceof Collection) {
+			out.writeByte(COLLECTION);
+			out.writeInt(((Collection<?>) value).size());
+			for (Object element : (Collection<?>) value) {
+				writeValue(out, element);
+			}
+		} else {
+			out.writeByte(UNSUPPORTED_TYPE);
+			writeString(out, value.getClass().getName());
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+		case NULL:
+			return null;
+		case STRING:
+			return readString(in);
+		case INTEGER:
+			return in.readInt();
+		case LONG:
+			return in.readLong();
+		case DOUBLE:
+			return in.readDouble();
+		case FLOAT:
+			return in.readFloat();
+		case SHORT:
+			return in.readShort();
+		case BYTE:
+			return in.readByte();
+		case BOOLEAN:
+			return in.readBoolean();
+		case CHARACTER:
+			return in.readChar();
+		case BIG_DECIMAL:
+			return new BigDecimal(readString(in));
+		case BIG_INTEGER:
+			return new BigInteger(readString(in));
+		case TIMESTAMP:
+			java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+			timestamp.setNanos(in.readInt());
+			return timestamp;
+		case SQL_DATE:
+			return new java.sql.Date(in.readLong());
+		case TIME:
+			return new java.sql.Time(in.readLong());
+		case DATE:
+			return new java.util.Date(in.readLong());
+		case ENUM:
+			String className = readString(in);
+			String name = readString(in);
+			try {
+				return Enum.valueOf((Class<Enum>) Class.forName(className, false,
+						Thread.currentThread().getContextClassLoader()), name);
+			} catch (ClassNotFoundException | IllegalArgumentException e) {
+				return UNSUPPORTED;
+			}
+		case COLLECTION:
+			int size = in.readInt();
+			List<Object> elements = new ArrayList<>(size);
+			boolean supported = true;
+			for (int i = 0; i < size; i++) {
+				Object element = readValue(in);
+				supported &= element != UNSUPPORTED;
+				elements.add(element);
+			}
+			return supported ? elements : UNSUPPORTED;
+		case UNSUPPORTED_TYPE:
+			readString(in);
+			return UNSUPPORTED;
+		default:
+			throw new IOException("unknown value type " + type);
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.workload;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.torpedoquery.core.QueryExecution;
+import org.torpedoquery.core.QueryListener;
+
+public class WorkloadRecorder implements QueryListener, Closeable {
+
+	private final DataOutputStream out;
+	private final long startedNanos = System.nanoTime();
+	private final LongAdder writeErrors = new LongAdder();
+
+	// guarded by this
+	private final Map<String, Integer> queries = new HashMap<>();
+	private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+	private final DataOutputStream recordOut = new DataOutputStream(record);
+	private boolean closed;
+
+	/**
+	 * <p>
+	 * Constructor for WorkloadRecorder.
+	 * </p>
+	 *
+	 * @param file
+	 *            the workload log, replaced if it exists
+	 * @throws java.io.IOException
+	 *             if the file can not be created
+	 */
+	public WorkloadRecorder(File file) throws IOException {
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		out.writeInt(WorkloadLog.MAGIC);
+		out.writeInt(WorkloadLog.VERSION);
+		out.writeLong(System.currentTimeMillis());
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void executed(QueryExecution execution) {
+		if (closed) {
+			return;
+		}
+		record.reset();
+		try {
+			// each record is serialized first and appended in one write, a
+			// failure never leaves a partial record in the log
+			Integer id = queries.get(execution.getQuery());
+			boolean newQuery = id == null;
+			if (newQuery) {
+				id = queries.size();
+				recordOut.writeByte(WorkloadLog.QUERY);
+				recordOut.writeInt(id);
+				WorkloadLog.writeString(recordOut, execution.getFingerprint());
+				WorkloadLog.writeString(recordOut, execution.getQuery());
+			}
+
+			recordOut.writeByte(WorkloadLog.EXECUTION);
+			recordOut.writeInt(id);
+			recordOut.writeLong(System.nanoTime() - startedNanos);
+			recordOut.writeInt(execution.getFirstResult());
+			recordOut.writeInt(execution.getMaxResults());
+			recordOut.writeByte(execution.getLockMode() != null ? execution.getLockMode().ordinal() : -1);
+			recordOut.writeLong(execution.getExecutionNanos());
+			recordOut.writeInt(execution.getRowCount());
+			recordOut.writeInt(execution.getParameters().size());
+			for (Map.Entry<String, Object> parameter : execution.getParameters().entrySet()) {
+				WorkloadLog.writeString(recordOut, parameter.getKey());
+				WorkloadLog.writeValue(recordOut, parameter.getValue());
+			}
+
+			record.writeTo(out);
+			if (newQuery) {
+				queries.put(execution.getQuery(), id);
+			}
+		} catch (IOException e) {
+			// the capture must never fail the query
+			writeErrors.increment();
+		}
+	}
+
+	/**
+	 * <p>
+	 * getWriteErrors.
+	 * </p>
+	 *
+	 * @return the number of executions which could not be written
+	 */
+	public long getWriteErrors() {
+		return writeErrors.sum();
+	}
+
+	/**
+	 * Write the buffered executions
+	 *
+	 * @throws java.io.IOException
+	 *             if any.
+	 */
+	public synchronized void flush() throws IOException {
+		if (!closed) {
+			out.flush();
+		}
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public synchronized void close() throws IOException {
+		if (!closed) {
+			closed = true;
+			out.close();
+		}
+	}
+
+}
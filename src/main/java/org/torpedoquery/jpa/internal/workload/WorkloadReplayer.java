@@ -0,0 +1,282 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+package org.torpedoquery.jpa.internal.workload;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.LockModeType;
+import javax.persistence.Persistence;
+import javax.persistence.Query;
+
+public class WorkloadReplayer {
+
+	private static class Execution {
+		private final ReplayShape shape;
+		private final String query;
+		private final long offsetNanos;
+		private final int firstResult;
+		private final int maxResults;
+		private final LockModeType lockMode;
+		private final long executionNanos;
+		private final Map<String, Object> parameters;
+
+		private Execution(ReplayShape shape, String query, long offsetNanos, int firstResult, int maxResults,
+				LockModeType lockMode, long executionNanos, Map<String, Object> parameters) {
+			this.shape = shape;
+			this.query = query;
+			this.offsetNanos = offsetNanos;
+			this.firstResult = firstResult;
+			this.maxResults = maxResults;
+			this.lockMode = lockMode;
+			this.executionNanos = executionNanos;
+			this.parameters = parameters;
+		}
+	}
+
+	private final EntityManagerFactory entityManagerFactory;
+	private final File file;
+
+	/**
+	 * <p>
+	 * Constructor for WorkloadReplayer.
+	 * </p>
+	 *
+	 * @param entityManagerFactory
+	 *            the target of the replay
+	 * @param file
+	 *            a workload log written by a
+	 *            {@link org.torpedoquery.jpa.internal.workload.WorkloadRecorder}
+	 */
+	public WorkloadReplayer(EntityManagerFactory entityManagerFactory, File file) {
+		this.entityManagerFactory = entityManagerFactory;
+		this.file = file;
+	}
+
+	/**
+	 * <p>
+	 * replay.
+	 * </p>
+	 *
+	 * Each execution use its own entity manager, the statements and the locked
+	 * queries run in a transaction which is rolled back so the same log can
+	 * be replayed again on the same data
+	 *
+	 * @param speed
+	 *            1 to keep the captured pace, 2 to replay twice as fast, 0 to
+	 *            replay as fast as possible
+	 * @param concurrency
+	 *            the number of threads executing the queries
+	 * @return the latencies by shape compared with the captured ones
+	 * @throws java.io.IOException
+	 *             if the log can not be read
+	 * @throws java.lang.InterruptedException
+	 *             if interrupted while waiting for the executions
+	 */
+	public ReplayReport replay(double speed, int concurrency) throws IOException, InterruptedException {
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException("concurrency must be greater than 0");
+		}
+		if (speed < 0) {
+			throw new IllegalArgumentException("speed must be positive");
+		}
+
+		Map<String, ReplayShape> shapes = new LinkedHashMap<>();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency, 0, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(concurrency * 16), new ThreadPoolExecutor.CallerRunsPolicy());
+		long started = System.nanoTime();
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+			if (in.readInt() != WorkloadLog.MAGIC) {
+				throw new IOException(file + " is not a workload log");
+			}
+			if (in.readInt() != WorkloadLog.VERSION) {
+				throw new IOException("unsupported workload log version");
+			}
+			in.readLong();
+
+			Map<Integer, ReplayShape> shapesById = new HashMap<>();
+			Map<Integer, String> queries = new HashMap<>();
+			int record;
+			while ((record = in.read()) != -1) {
+				if (record == WorkloadLog.QUERY) {
+					int id = in.readInt();
+					String fingerprint = WorkloadLog.readString(in);
+					String query = WorkloadLog.readString(in);
+					ReplayShape shape = shapes.get(fingerprint);
+					if (shape == null) {
+						shape = new ReplayShape(fingerprint, query);
+						shapes.put(fingerprint, shape);
+					}
+					shapesById.put(id, shape);
+					queries.put(id, query);
+				} else if (record == WorkloadLog.EXECUTION) {
+					Execution execution = readExecution(in, shapesById, queries);
+					if (execution == null) {
+						continue;
+					}
+					if (speed > 0) {
+						long wait = started + (long) (execution.offsetNanos / speed) - System.nanoTime();
+						if (wait > 0) {
+							TimeUnit.NANOSECONDS.sleep(wait);
+						}
+					}
+					executor.execute(() -> execute(execution));
+				} else {
+					throw new IOException("corrupted workload log, unknown record " + record);
+				}
+			}
+		} catch (EOFException e) {
+			// a truncated last record, the recorder was not closed
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+
+		return new ReplayReport(shapes, System.nanoTime() - started);
+	}
+
+	private static Execution readExecution(DataInputStream in, Map<Integer, ReplayShape> shapes,
+			Map<Integer, String> queries) throws IOException {
+		int id = in.readInt();
+		long offsetNanos = in.readLong();
+		int firstResult = in.readInt();
+		int maxResults = in.readInt();
+		byte lockMode = in.readByte();
+		long executionNanos = in.readLong();
+		in.readInt();
+
+		int parameterCount = in.readInt();
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		boolean supported = true;
+		for (int i = 0; i < parameterCount; i++) {
+			String name = WorkloadLog.readString(in);
+			Object value = WorkloadLog.readValue(in);
+			supported &= value != WorkloadLog.UNSUPPORTED;
+			parameters.put(name, value);
+		}
+
+		ReplayShape shape = shapes.get(id);
+		if (shape == null) {
+			throw new IOException("corrupted workload log, unknown query " + id);
+		}
+		if (!supported) {
+			shape.unsupported();
+			return null;
+		}
+		return new Execution(shape, queries.get(id), offsetNanos, firstResult, maxResults,
+				lockMode >= 0 ? LockModeType.values()[lockMode] : null, executionNanos, parameters);
+	}
+
+	private void execute(Execution execution) {
+		boolean select = execution.query.startsWith("select ");
+		boolean transactional = !select
+				|| (execution.lockMode != null && execution.lockMode != LockModeType.NONE);
+		EntityManager entityManager = entityManagerFactory.createEntityManager();
+		try {
+			if (transactional) {
+				entityManager.getTransaction().begin();
+			}
+			Query query = entityManager.createQuery(execution.query);
+			if (execution.firstResult > 0) {
+				query.setFirstResult(execution.firstResult);
+			}
+			if (execution.maxResults > 0) {
+				query.setMaxResults(execution.maxResults);
+			}
+			if (execution.lockMode != null) {
+				query.setLockMode(execution.lockMode);
+			}
+			for (Map.Entry<String, Object> parameter : execution.parameters.entrySet()) {
+				if (isPosition(parameter.getKey())) {
+					query.setParameter(Integer.parseInt(parameter.getKey()), parameter.getValue());
+				} else {
+					query.setParameter(parameter.getKey(), parameter.getValue());
+				}
+			}
+
+			long started = System.nanoTime();
+			if (select) {
+				query.getResultList();
+			} else {
+				query.executeUpdate();
+			}
+			execution.shape.replayed(execution.executionNanos, System.nanoTime() - started);
+		} catch (RuntimeException e) {
+			execution.shape.failed(execution.executionNanos);
+		} finally {
+			if (transactional && entityManager.getTransaction().isActive()) {
+				entityManager.getTransaction().rollback();
+			}
+			entityManager.close();
+		}
+	}
+
+	private static boolean isPosition(String name) {
+		for (int i = 0; i < name.length(); i++) {
+			if (!Character.isDigit(name.charAt(i))) {
+				return false;
+			}
+		}
+		return !name.isEmpty();
+	}
+
+	/**
+	 * <p>
+	 * main.
+	 * </p>
+	 *
+	 * Replay a workload log against a persistence unit of the classpath:
+	 * persistenceUnit file [speed] [concurrency]
+	 *
+	 * @param args
+	 *            an array of {@link java.lang.String} objects.
+	 * @throws java.lang.Exception
+	 *             if any.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.err.println("usage: WorkloadReplayer persistenceUnit file [speed] [concurrency]");
+			System.exit(1);
+		}
+		double speed = args.length > 2 ? Double.parseDouble(args[2]) : 1;
+		int concurrency = args.length > 3 ? Integer.parseInt(args[3]) : 1;
+
+		EntityManagerFactory entityManagerFactory = Persistence.createEntityManagerFactory(args[0]);
+		try {
+			System.out.println(new WorkloadReplayer(entityManagerFactory, new File(args[1])).replay(speed,
+					concurrency));
+		} finally {
+			entityManagerFactory.close();
+		}
+	}
+
+}
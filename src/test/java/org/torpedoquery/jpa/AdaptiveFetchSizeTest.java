@@ -0,0 +1,131 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.query.AdaptiveFetchSize;
+import org.torpedoquery.jpa.internal.query.QueryShape;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class AdaptiveFetchSizeTest {
+
+	private final AdaptiveFetchSize fetchSize = new AdaptiveFetchSize(AdaptiveFetchSize.HIBERNATE_FETCH_SIZE, 50,
+			1000, 0.5);
+
+	@Before
+	public void setUp() {
+		TorpedoMagic.setAdaptiveFetchSize(fetchSize);
+	}
+
+	@After
+	public void tearDown() {
+		TorpedoMagic.setAdaptiveFetchSize(null);
+	}
+
+	private static javax.persistence.Query list(EntityManager entityManager, List<Entity> rows, int maxResults) {
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.getResultList()).thenReturn(rows);
+
+		Entity from = from(Entity.class);
+		where(from.getCode()).eq("code");
+		Query<Entity> select = select(from);
+		if (maxResults > 0) {
+			select.setMaxResults(maxResults);
+		}
+		select.list(entityManager);
+		return jpaQuery;
+	}
+
+	@Test
+	public void test_hintFollowTheObservedRows() {
+		EntityManager entityManager = mock(EntityManager.class);
+		List<Entity> rows = Collections.nCopies(400, new Entity());
+
+		javax.persistence.Query first = list(entityManager, rows, 0);
+		verify(first, never()).setHint(anyString(), anyInt());
+
+		javax.persistence.Query second = list(entityManager, Collections.nCopies(200, new Entity()), 0);
+		verify(second).setHint(AdaptiveFetchSize.HIBERNATE_FETCH_SIZE, 400);
+
+		javax.persistence.Query third = list(entityManager, rows, 0);
+		verify(third).setHint(AdaptiveFetchSize.HIBERNATE_FETCH_SIZE, 300);
+
+		javax.persistence.Query limited = list(entityManager, rows, 100);
+		verify(limited).setHint(AdaptiveFetchSize.HIBERNATE_FETCH_SIZE, 100);
+	}
+
+	@Test
+	public void test_inlinedLiteralsShareTheAverage() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.getResultList()).thenReturn(Collections.nCopies(400, new Entity()));
+
+		Entity from = from(Entity.class);
+		where(from.getCode()).like().any("first");
+		select(from).list(entityManager);
+
+		from = from(Entity.class);
+		where(from.getCode()).like().any("second");
+		select(from).list(entityManager);
+
+		verify(jpaQuery, times(1)).setHint(AdaptiveFetchSize.HIBERNATE_FETCH_SIZE, 400);
+	}
+
+	@Test
+	public void test_boundedFetchSize() {
+		String fingerprint = QueryShape.fingerprint("select entity_0 from Entity entity_0");
+		fetchSize.observe(fingerprint, 10);
+		assertEquals(0, fetchSize.getFetchSize(fingerprint, 0));
+
+		fetchSize.observe(fingerprint, 10000);
+		assertEquals(1000, fetchSize.getFetchSize(fingerprint, 0));
+		assertEquals(0,
+				fetchSize.getFetchSize(QueryShape.fingerprint("select entity_0 from Entity entity_0 where 1 = 0"), 0));
+	}
+
+	@Test
+	public void test_disabledByDefault() {
+		TorpedoMagic.setAdaptiveFetchSize(null);
+		EntityManager entityManager = mock(EntityManager.class);
+		List<Entity> rows = Collections.nCopies(400, new Entity());
+		list(entityManager, rows, 0);
+		javax.persistence.Query second = list(entityManager, rows, 0);
+		verify(second, times(0)).setHint(anyString(), anyInt());
+	}
+
+}
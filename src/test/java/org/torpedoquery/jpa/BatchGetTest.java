@@ -0,0 +1,90 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.batchGet;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.junit.Test;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class BatchGetTest {
+
+	private static Entity entity(String code) {
+		Entity entity = mock(Entity.class);
+		when(entity.getCode()).thenReturn(code);
+		return entity;
+	}
+
+	@Test
+	public void test_resultFollowKeysOrder() {
+		Entity a = entity("a");
+		Entity c = entity("c");
+
+		EntityManager entityManager = mock(EntityManager.class);
+		Query query = mock(Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+		when(query.getResultList()).thenReturn(Arrays.asList(c, a));
+
+		BatchResult<String, Entity> result = batchGet(Entity.class, Entity::getCode, Arrays.asList("a", "b", "c"),
+				entityManager);
+
+		verify(entityManager).createQuery("select entity_0 from Entity entity_0 where entity_0.code in ( :code_1 )");
+		verify(query).setParameter("code_1", Arrays.asList("a", "b", "c"));
+
+		assertEquals(Arrays.asList(a, null, c), result.asList());
+		assertEquals(Arrays.asList("a", "c"), Arrays.asList(result.asMap().keySet().toArray()));
+		assertEquals(Collections.singleton("b"), result.getMissingKeys());
+	}
+
+	@Test
+	public void test_keysAreChunked() {
+		Entity a = entity("a");
+		Entity b = entity("b");
+		Entity c = entity("c");
+
+		EntityManager entityManager = mock(EntityManager.class);
+		Query query = mock(Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+		when(query.getResultList()).thenReturn(Arrays.asList(a, b), Arrays.asList(c));
+
+		BatchResult<String, Entity> result = batchGet(Entity.class, Entity::getCode, Arrays.asList("a", "b", "a", "c"),
+				entityManager, 2);
+
+		verify(entityManager, times(2)).createQuery(
+				"select entity_0 from Entity entity_0 where entity_0.code in ( :code_1 )");
+		verify(query).setParameter("code_1", Arrays.asList("a", "b"));
+		verify(query).setParameter("code_1", Arrays.asList("c"));
+
+		assertEquals(Arrays.asList(a, b, a, c), result.asList());
+		assertSame(c, result.asMap().get("c"));
+		assertNull(result.asMap().get("d"));
+	}
+
+}
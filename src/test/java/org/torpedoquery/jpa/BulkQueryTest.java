@@ -0,0 +1,259 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.delete;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.innerJoin;
+import static org.torpedoquery.jpa.Torpedo.insertInto;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.update;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+
+import org.junit.Test;
+import org.torpedoquery.jpa.test.bo.Entity;
+import org.torpedoquery.jpa.test.bo.Entity2;
+import org.torpedoquery.jpa.test.bo.SubEntity;
+
+public class BulkQueryTest {
+
+	@Test
+	public void test_update() {
+		Entity entity = from(Entity.class);
+		where(entity.getCode()).eq("old").and(entity.isActive()).eq(true);
+
+		BulkQuery query = update(entity).set(entity.getName(), "new").set(entity.getIntegerField(), 2);
+
+		assertEquals(
+				"update Entity entity_0 set entity_0.name = :name_1, entity_0.integerField = :integerField_2 where entity_0.code = :code_3 and entity_0.active = :active_4",
+				query.getQuery());
+		assertEquals("new", query.getParameters().get("name_1"));
+		assertEquals(2, query.getParameters().get("integerField_2"));
+		assertEquals("old", query.getParameters().get("code_3"));
+		assertEquals(true, query.getParameters().get("active_4"));
+	}
+
+	@Test
+	public void test_updateWithProperty() {
+		Entity entity = from(Entity.class);
+
+		BulkQuery query = update(entity).set(entity.getName(), entity.getCode());
+
+		assertEquals("update Entity entity_0 set entity_0.name = entity_0.code", query.getQuery());
+		assertEquals(0, query.getParameters().size());
+	}
+
+	@Test
+	public void test_updateWithSubquery() {
+		SubEntity subEntity = from(SubEntity.class);
+		where(subEntity.getCode()).eq("sub");
+		Query<String> subSelect = select(subEntity.getName());
+
+		Entity entity = from(Entity.class);
+		where(entity.getCode()).eq("old");
+
+		BulkQuery query = update(entity).set(entity.getName(), subSelect);
+
+		assertEquals(
+				"update Entity entity_0 set entity_0.name = ( select subEntity_1.name from SubEntity subEntity_1 where subEntity_1.code = :code_2 ) where entity_0.code = :code_3",
+				query.getQuery());
+		assertEquals("sub", query.getParameters().get("code_2"));
+		assertEquals("old", query.getParameters().get("code_3"));
+	}
+
+	@Test
+	public void test_updateToNull() {
+		Entity entity = from(Entity.class);
+
+		BulkQuery query = update(entity).set(entity.getName(), null);
+
+		assertEquals("update Entity entity_0 set entity_0.name = :name_1", query.getQuery());
+		assertEquals(true, query.getParameters().containsKey("name_1"));
+	}
+
+	@Test
+	public void test_delete() {
+		Entity entity = from(Entity.class);
+		where(entity.getCode()).eq("old");
+
+		BulkQuery query = delete(entity);
+
+		assertEquals("delete from Entity entity_0 where entity_0.code = :code_1", query.getQuery());
+		assertEquals("old", query.getParameters().get("code_1"));
+	}
+
+	@Test
+	public void test_executeUpdate() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.executeUpdate()).thenReturn(3);
+
+		Entity entity = from(Entity.class);
+		where(entity.getCode()).eq("old");
+
+		assertEquals(3, delete(entity).execute(entityManager));
+
+		verify(entityManager).createQuery("delete from Entity entity_0 where entity_0.code = :code_1");
+		verify(jpaQuery).setParameter("code_1", "old");
+	}
+
+	@Test
+	public void test_insertSelect() {
+		Entity entity = from(Entity.class);
+		SubEntity subEntity = innerJoin(entity.getSubEntity());
+		where(entity.getCode()).eq("old");
+		Query<Object[]> select = select(entity.getCode(), subEntity.getName());
+
+		BulkQuery query = insertInto(Entity2.class, Entity2::getCode, Entity2::getVar).select(select);
+
+		assertEquals(
+				"insert into Entity2 (code, var) select entity_0.code, subEntity_1.name from Entity entity_0 inner join entity_0.subEntity subEntity_1 where entity_0.code = :code_2",
+				query.getQuery());
+		assertEquals("old", query.getParameters().get("code_2"));
+	}
+
+	@Test
+	public void test_executeInsertSelect() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.executeUpdate()).thenReturn(5);
+
+		Entity entity = from(Entity.class);
+		where(entity.getCode()).eq("old");
+
+		assertEquals(5, insertInto(Entity2.class, Entity2::getCode).select(select(entity.getCode()))
+				.execute(entityManager));
+
+		verify(entityManager).createQuery(
+				"insert into Entity2 (code) select entity_0.code from Entity entity_0 where entity_0.code = :code_1");
+		verify(jpaQuery).setParameter("code_1", "old");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_insertPropertyWithoutGetterIsRejected() {
+		insertInto(Entity2.class, Entity2::getCode, entity2 -> "constant");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_joinIsRejected() {
+		Entity entity = from(Entity.class);
+		SubEntity subEntity = innerJoin(entity.getSubEntity());
+		where(subEntity.getCode()).eq("old");
+
+		delete(entity).getQuery();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void test_updateWithoutSetIsRejected() {
+		Entity entity = from(Entity.class);
+
+		update(entity).getQuery();
+	}
+
+	@Test
+	public void test_chunkedUpdate() {
+		EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+		EntityManager entityManager = mock(EntityManager.class);
+		EntityTransaction transaction = mock(EntityTransaction.class);
+		javax.persistence.Query firstKeys = mock(javax.persistence.Query.class);
+		javax.persistence.Query nextKeys = mock(javax.persistence.Query.class);
+		javax.persistence.Query mutation = mock(javax.persistence.Query.class);
+
+		when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+		when(entityManager.getTransaction()).thenReturn(transaction);
+		when(entityManager.createQuery(
+				"select entity_0.id from Entity entity_0 where ( entity_0.code = :code_2 ) order by entity_0.id"))
+						.thenReturn(firstKeys);
+		when(entityManager.createQuery(
+				"select entity_0.id from Entity entity_0 where ( entity_0.code = :code_2 ) and entity_0.id > :lastKey order by entity_0.id"))
+						.thenReturn(nextKeys);
+		when(entityManager.createQuery(
+				"update Entity entity_0 set entity_0.name = :name_1 where ( entity_0.code = :code_2 ) and entity_0.id in ( :keys )"))
+						.thenReturn(mutation);
+		when(firstKeys.getResultList()).thenReturn(Arrays.asList("a", "b"));
+		when(nextKeys.getResultList()).thenReturn(Arrays.asList("c"));
+		when(mutation.executeUpdate()).thenReturn(2, 1);
+
+		Entity entity = from(Entity.class);
+		where(entity.getCode()).eq("old");
+
+		final List<ChunkProgress<String>> progresses = new ArrayList<>();
+		ChunkProgress<String> progress = update(entity).set(entity.getName(), "new").inChunks(entity.getId(), 2)
+				.onProgress(new Consumer<ChunkProgress<String>>() {
+					@Override
+					public void accept(ChunkProgress<String> chunkProgress) {
+						progresses.add(chunkProgress);
+					}
+				}).execute(entityManagerFactory);
+
+		assertEquals(2, progress.getChunks());
+		assertEquals(3, progress.getRows());
+		assertEquals("c", progress.getLastKey());
+		assertEquals(2, progresses.size());
+		assertEquals("b", progresses.get(0).getLastKey());
+
+		verify(firstKeys).setParameter("code_2", "old");
+		verify(firstKeys).setMaxResults(2);
+		verify(nextKeys).setParameter("lastKey", "b");
+		verify(mutation).setParameter("keys", Arrays.asList("a", "b"));
+		verify(mutation).setParameter("keys", Arrays.asList("c"));
+		verify(mutation, times(2)).setParameter("name_1", "new");
+		verify(transaction, times(2)).commit();
+		verify(entityManager, times(2)).close();
+	}
+
+	@Test
+	public void test_chunkedDeleteResume() {
+		EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+		EntityManager entityManager = mock(EntityManager.class);
+		EntityTransaction transaction = mock(EntityTransaction.class);
+		javax.persistence.Query keys = mock(javax.persistence.Query.class);
+
+		when(entityManagerFactory.createEntityManager()).thenReturn(entityManager);
+		when(entityManager.getTransaction()).thenReturn(transaction);
+		when(entityManager.createQuery(anyString())).thenReturn(keys);
+		when(keys.getResultList()).thenReturn(new ArrayList<>());
+
+		Entity entity = from(Entity.class);
+
+		ChunkProgress<String> progress = delete(entity).inChunks(entity.getId(), 100).resumeFrom("z")
+				.execute(entityManagerFactory);
+
+		verify(entityManager)
+				.createQuery("select entity_0.id from Entity entity_0 where entity_0.id > :lastKey order by entity_0.id");
+		verify(keys).setParameter("lastKey", "z");
+		assertEquals(0, progress.getChunks());
+		assertEquals("z", progress.getLastKey());
+	}
+
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.coalescing;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class CoalescingLoaderTest {
+
+	private static Entity entity(String code) {
+		Entity entity = mock(Entity.class);
+		when(entity.getCode()).thenReturn(code);
+		return entity;
+	}
+
+	@Test
+	public void test_concurrentLookupsShareOneInQuery() throws Exception {
+		final Entity first = entity("first");
+		final Entity second = entity("second");
+
+		final EntityManager entityManager = mock(EntityManager.class);
+		final EntityManager batchManager = batchManager(entityManager);
+		final Query query = mock(Query.class);
+		when(batchManager.createQuery(anyString())).thenReturn(query);
+		when(query.getResultList()).thenReturn(Arrays.asList(first, second));
+
+		final CoalescingLoader<String, Entity> loader = coalescing(Entity.class, Entity::getCode, 10, TimeUnit.SECONDS, 2);
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Optional<Entity>> firstResult = executor.submit(lookup(loader, "first", entityManager));
+			Future<Optional<Entity>> secondResult = executor.submit(lookup(loader, "second", entityManager));
+
+			assertSame(first, firstResult.get(5, TimeUnit.SECONDS).get());
+			assertSame(second, secondResult.get(5, TimeUnit.SECONDS).get());
+		} finally {
+			executor.shutdown();
+		}
+
+		verify(batchManager, times(1)).createQuery("select entity_0 from Entity entity_0 where entity_0.code in ( :code_1 )");
+		ArgumentCaptor<Collection> keys = ArgumentCaptor.forClass(Collection.class);
+		verify(query).setParameter(eq("code_1"), keys.capture());
+		assertEquals(new HashSet<>(Arrays.asList("first", "second")), new HashSet<>(keys.getValue()));
+		verify(batchManager).close();
+		verify(entityManager, never()).detach(any());
+		verify(entityManager, never()).createQuery(anyString());
+	}
+
+	@Test
+	public void test_missingKeyIsEmpty() {
+		final Entity other = entity("other");
+
+		final EntityManager entityManager = mock(EntityManager.class);
+		final Query query = mock(Query.class);
+		when(batchManager(entityManager).createQuery(anyString())).thenReturn(query);
+		when(query.getResultList()).thenReturn(Arrays.asList(other));
+
+		CoalescingLoader<String, Entity> loader = coalescing(Entity.class, Entity::getCode, 0, TimeUnit.MILLISECONDS, 10);
+
+		assertFalse(loader.get("missing", entityManager).isPresent());
+	}
+
+	private static EntityManager batchManager(EntityManager entityManager) {
+		EntityManagerFactory factory = mock(EntityManagerFactory.class);
+		EntityManager batchManager = mock(EntityManager.class);
+		when(entityManager.getEntityManagerFactory()).thenReturn(factory);
+		when(factory.createEntityManager()).thenReturn(batchManager);
+		return batchManager;
+	}
+
+	private static Callable<Optional<Entity>> lookup(final CoalescingLoader<String, Entity> loader, final String key,
+			final EntityManager entityManager) {
+		return new Callable<Optional<Entity>>() {
+			@Override
+			public Optional<Entity> call() {
+				return loader.get(key, entityManager);
+			}
+		};
+	}
+
+}
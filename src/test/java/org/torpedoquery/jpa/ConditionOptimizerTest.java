@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.torpedoquery.jpa.Torpedo.and;
+import static org.torpedoquery.jpa.Torpedo.condition;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.or;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.core.ConditionOptimizer;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.conditions.SimplifyingConditionOptimizer;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class ConditionOptimizerTest {
+
+	private ConditionOptimizer defaultOptimizer;
+
+	@Before
+	public void setUp() {
+		defaultOptimizer = TorpedoMagic.getConditionOptimizer();
+		TorpedoMagic.setup(new SimplifyingConditionOptimizer());
+	}
+
+	@After
+	public void tearDown() {
+		TorpedoMagic.setup(defaultOptimizer);
+	}
+
+	@Test
+	public void test_orOfEqualsBecomeIn() {
+		Entity from = from(Entity.class);
+		where(from.getCode()).eq("a").or(from.getCode()).eq("b").or(from.getName()).eq("c").or(from.getCode())
+				.eq("d");
+		Query<Entity> select = select(from);
+
+		assertEquals("select entity_0 from Entity entity_0 where entity_0.code in ( :code_1 )  or entity_0.name = :name_2",
+				select.getQuery());
+		Map<String, Object> parameters = select.getParameters();
+		assertEquals(Arrays.asList("a", "b", "d"), parameters.get("code_1"));
+		assertEquals("c", parameters.get("name_2"));
+	}
+
+	@Test
+	public void test_rangesBecomeBetween() {
+		Entity from = from(Entity.class);
+		where(from.getIntegerField()).gte(1).and(from.getIntegerField()).gte(5).and(from.getIntegerField()).lte(10)
+				.and(from.getCode()).eq("a");
+		Query<Entity> select = select(from);
+
+		assertEquals(
+				"select entity_0 from Entity entity_0 where entity_0.integerField between :integerField_1 and :integerField_2 and entity_0.code = :code_3",
+				select.getQuery());
+		assertEquals(5, select.getParameters().get("integerField_1"));
+		assertEquals(10, select.getParameters().get("integerField_2"));
+	}
+
+	@Test
+	public void test_groupsAreFlattenedAndDuplicatesDropped() {
+		Entity from = from(Entity.class);
+		OnGoingLogicalCondition first = condition(from.getCode()).eq("a");
+		OnGoingLogicalCondition second = condition(from.getName()).eq("b");
+		OnGoingLogicalCondition duplicate = condition(from.getCode()).eq("a");
+		where(and(first, and(second, duplicate), condition()));
+		Query<Entity> select = select(from);
+
+		assertEquals(
+				"select entity_0 from Entity entity_0 where ( entity_0.code = :code_1 and entity_0.name = :name_2 )",
+				select.getQuery());
+	}
+
+	@Test
+	public void test_mixedAndOrIsKept() {
+		Entity from = from(Entity.class);
+		where(from.getCode()).eq("a").or(from.getCode()).eq("b").and(from.getName()).eq("c");
+		Query<Entity> select = select(from);
+
+		assertEquals(
+				"select entity_0 from Entity entity_0 where entity_0.code = :code_1 or entity_0.code = :code_2 and entity_0.name = :name_3",
+				select.getQuery());
+	}
+
+	@Test
+	public void test_groupedOrBecomeIn() {
+		Entity from = from(Entity.class);
+		where(from.getName()).eq("c").and(or(condition(from.getCode()).eq("a"), condition(from.getCode()).eq("b")));
+		Query<Entity> select = select(from);
+
+		assertEquals(
+				"select entity_0 from Entity entity_0 where entity_0.name = :name_1 and entity_0.code in ( :code_2 )",
+				select.getQuery());
+	}
+
+}
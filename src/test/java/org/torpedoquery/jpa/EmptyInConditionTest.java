@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.condition;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.groupBy;
+import static org.torpedoquery.jpa.Torpedo.or;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+import static org.torpedoquery.jpa.TorpedoFunction.count;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.jpa.internal.query.QueryStatistics;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class EmptyInConditionTest {
+
+	@Before
+	public void setUp() {
+		QueryStatistics.reset();
+	}
+
+	@Test
+	public void test_emptyInRenderAFalsePredicate() {
+		Entity from = from(Entity.class);
+		where(from.getCode()).in(Collections.<String>emptyList());
+		Query<Entity> select = select(from);
+
+		assertEquals("select entity_0 from Entity entity_0 where 1 = 0", select.getQuery());
+		assertTrue(select.getParameters().isEmpty());
+	}
+
+	@Test
+	public void test_emptyNotInRenderATruePredicate() {
+		Entity from = from(Entity.class);
+		where(from.getCode()).notIn(Collections.<String>emptyList()).and(from.getName()).eq("test");
+		Query<Entity> select = select(from);
+
+		assertEquals("select entity_0 from Entity entity_0 where 1 = 1 and entity_0.name = :name_1", select.getQuery());
+		assertEquals(1, select.getParameters().size());
+	}
+
+	@Test
+	public void test_listDoNotQueryTheDatabase() {
+		EntityManager entityManager = mock(EntityManager.class);
+
+		Entity from = from(Entity.class);
+		where(from.getName()).eq("test").and(from.getCode()).in(Collections.<String>emptyList());
+
+		assertTrue(select(from).list(entityManager).isEmpty());
+		assertFalse(select(from.getCode()).get(entityManager).isPresent());
+		verifyZeroInteractions(entityManager);
+		assertEquals(2, QueryStatistics.getSkippedExecutions());
+	}
+
+	@Test
+	public void test_orWithAnotherConditionStillQuery() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query query = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+
+		Entity from = from(Entity.class);
+		where(from.getCode()).in(Collections.<String>emptyList()).or(from.getName()).eq("test");
+		select(from).list(entityManager);
+
+		verify(entityManager).createQuery("select entity_0 from Entity entity_0 where 1 = 0 or entity_0.name = :name_1");
+		assertEquals(0, QueryStatistics.getSkippedExecutions());
+	}
+
+	@Test
+	public void test_everyOrTermIsEmpty() {
+		EntityManager entityManager = mock(EntityManager.class);
+
+		Entity from = from(Entity.class);
+		OnGoingLogicalCondition first = condition(from.getCode()).in(Collections.<String>emptyList());
+		OnGoingLogicalCondition second = condition(from.getName()).eq("test").and(from.getCode())
+				.in(Collections.<String>emptyList());
+		where(or(first, second));
+
+		assertTrue(select(from).list(entityManager).isEmpty());
+		verifyZeroInteractions(entityManager);
+	}
+
+	@Test
+	public void test_contradictoryRangeDoNotQueryTheDatabase() {
+		EntityManager entityManager = mock(EntityManager.class);
+
+		Entity from = from(Entity.class);
+		where(from.getIntegerField()).gt(5).and(from.getName()).eq("test").and(from.getIntegerField()).lt(3);
+
+		assertTrue(select(from).list(entityManager).isEmpty());
+		verifyZeroInteractions(entityManager);
+	}
+
+	@Test
+	public void test_differentEqualsDoNotQueryTheDatabase() {
+		EntityManager entityManager = mock(EntityManager.class);
+
+		Entity from = from(Entity.class);
+		where(from.getIntegerField()).eq(1).and(from.getIntegerField()).eq(2);
+
+		assertTrue(select(from).list(entityManager).isEmpty());
+		verifyZeroInteractions(entityManager);
+	}
+
+	@Test
+	public void test_stringsDifferingByCaseOrBlanksStillQuery() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query query = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+
+		Entity from = from(Entity.class);
+		where(from.getCode()).eq("a").and(from.getCode()).eq("A").and(from.getName()).eq("b").and(from.getName())
+				.eq("b ");
+		select(from).list(entityManager);
+
+		verify(entityManager).createQuery(anyString());
+		assertEquals(0, QueryStatistics.getSkippedExecutions());
+	}
+
+	@Test
+	public void test_exclusiveBoundsOnTheSameValueDoNotQueryTheDatabase() {
+		Entity from = from(Entity.class);
+		where(from.getIntegerField()).gte(3).and(from.getIntegerField()).lt(3);
+
+		assertTrue(select(from).list(mock(EntityManager.class)).isEmpty());
+	}
+
+	@Test
+	public void test_contradictionInOneOrTermStillQuery() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query query = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+
+		Entity from = from(Entity.class);
+		where(from.getIntegerField()).eq(1).and(from.getIntegerField()).eq(2).or(from.getName()).eq("test");
+		select(from).list(entityManager);
+
+		verify(entityManager).createQuery(anyString());
+		assertEquals(0, QueryStatistics.getSkippedExecutions());
+	}
+
+	@Test
+	public void test_overlappingRangeStillQuery() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query query = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+
+		Entity from = from(Entity.class);
+		where(from.getIntegerField()).gte(3).and(from.getIntegerField()).lte(3).and(from.getCode()).eq("a");
+		select(from).list(entityManager);
+
+		verify(entityManager).createQuery(anyString());
+	}
+
+	@Test
+	public void test_aggregateWithoutGroupByStillQuery() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query query = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+		when(query.getSingleResult()).thenReturn(0L);
+
+		Entity from = from(Entity.class);
+		where(from.getCode()).in(Collections.<String>emptyList());
+
+		assertEquals(Long.valueOf(0), select(count(from)).get(entityManager).get());
+		verify(entityManager).createQuery("select count(entity_0) from Entity entity_0 where 1 = 0");
+	}
+
+	@Test
+	public void test_aggregateWithGroupByIsEmpty() {
+		EntityManager entityManager = mock(EntityManager.class);
+
+		Entity from = from(Entity.class);
+		where(from.getCode()).in(Arrays.<String>asList());
+		groupBy(from.getName());
+
+		assertTrue(select(from.getName(), count(from)).list(entityManager).isEmpty());
+		verifyZeroInteractions(entityManager);
+	}
+
+}
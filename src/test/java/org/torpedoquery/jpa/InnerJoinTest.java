@@ -1,8 +1,10 @@
 package org.torpedoquery.jpa;
 
 import org.junit.Test;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
 import org.torpedoquery.jpa.test.bo.Entity;
 import org.torpedoquery.jpa.test.bo.Entity2;
+import org.torpedoquery.jpa.test.bo.SubEntity;
 
 import static org.torpedoquery.jpa.Torpedo.*;
 import static org.junit.Assert.*;
@@ -49,6 +51,56 @@ public class InnerJoinTest {
 		assertEquals("select entity_0 from Entity entity_0 inner join Entity2 entity2_1 on entity2_1.code = entity_0.code and entity2_1.var = :var_2", query);
 		assertEquals("test",select.getParameters().get("var_2"));
 	}
-	
-	
+
+	@Test
+	public void testSameSingleValuedPathIsJoinedOnce() {
+		Entity from = from(Entity.class);
+		SubEntity first = innerJoin(from.getSubEntity());
+		SubEntity second = innerJoin(from.getSubEntity());
+
+		where(first.getCode()).eq("test");
+		where(second.getName()).eq("name");
+
+		Query<String> select = select(second.getCode());
+		assertEquals("select subEntity_1.code from Entity entity_0 inner join entity_0.subEntity subEntity_1 where subEntity_1.code = :code_2 and subEntity_1.name = :name_3", select.getQuery());
+		assertEquals(2, select.getParameters().size());
+	}
+
+	@Test
+	public void testSameCollectionIsJoinedTwice() {
+		Entity from = from(Entity.class);
+		SubEntity first = innerJoin(from.getSubEntities());
+		SubEntity second = innerJoin(from.getSubEntities());
+
+		where(first.getCode()).eq("first");
+		where(second.getCode()).eq("second");
+
+		assertEquals("select entity_0 from Entity entity_0 inner join entity_0.subEntities subEntity_1 inner join entity_0.subEntities subEntity_2 where subEntity_1.code = :code_3 and subEntity_2.code = :code_4", select(from).getQuery());
+	}
+
+	@Test
+	public void testUnusedInnerJoinIsKeptByDefault() {
+		Entity from = from(Entity.class);
+		innerJoin(from.getSubEntity());
+
+		assertEquals("select entity_0 from Entity entity_0 inner join entity_0.subEntity subEntity_1", select(from).getQuery());
+	}
+
+	@Test
+	public void testUnusedInnerJoinElimination() {
+		TorpedoMagic.setUnusedJoinElimination(true);
+		try {
+			Entity from = from(Entity.class);
+			innerJoin(from.getSubEntities());
+			SubEntity used = innerJoin(from.getSubEntity());
+			leftJoin(from.getSubEntities());
+
+			where(used.getCode()).eq("test");
+
+			assertEquals("select entity_0 from Entity entity_0 inner join entity_0.subEntity subEntity_2 left join entity_0.subEntities subEntity_3 where subEntity_2.code = :code_4", select(from).getQuery());
+		} finally {
+			TorpedoMagic.setUnusedJoinElimination(false);
+		}
+	}
+
 }
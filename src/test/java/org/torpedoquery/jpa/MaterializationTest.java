@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.jpa.internal.conditions.MaterializedSubqueries;
+import org.torpedoquery.jpa.test.bo.Entity;
+import org.torpedoquery.jpa.test.bo.SubEntity;
+
+public class MaterializationTest {
+
+	private static final String SUBQUERY = "select subEntity_0.code from SubEntity subEntity_0";
+
+	private EntityManager entityManager;
+	private javax.persistence.Query subQuery;
+	private javax.persistence.Query outerQuery;
+
+	@Before
+	public void setUp() {
+		MaterializedSubqueries.invalidateAll();
+
+		entityManager = mock(EntityManager.class);
+		subQuery = mock(javax.persistence.Query.class);
+		outerQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(outerQuery);
+		when(entityManager.createQuery(SUBQUERY)).thenReturn(subQuery);
+	}
+
+	private Query<Entity> selectByCodes(Materialization materialization) {
+		SubEntity subEntity = from(SubEntity.class);
+		Query<String> codes = select(subEntity.getCode());
+
+		Entity entity = from(Entity.class);
+		where(entity.getCode()).in(codes, materialization);
+		return select(entity);
+	}
+
+	@Test
+	public void test_smallSubqueryIsBoundAsInList() {
+		when(subQuery.getResultList()).thenReturn(Arrays.asList("a", "b"));
+
+		Query<Entity> select = selectByCodes(Materialization.upTo(2));
+		select.list(entityManager);
+
+		verify(subQuery).setMaxResults(3);
+		verify(entityManager).createQuery("select entity_0 from Entity entity_0 where entity_0.code in ( :code_1 )");
+		verify(outerQuery).setParameter("code_1", Arrays.asList("a", "b"));
+	}
+
+	@Test
+	public void test_largeSubqueryStayInTheQuery() {
+		when(subQuery.getResultList()).thenReturn(Arrays.asList("a", "b", "c"));
+
+		Query<Entity> select = selectByCodes(Materialization.upTo(2));
+		select.list(entityManager);
+
+		verify(entityManager).createQuery(
+				"select entity_0 from Entity entity_0 where entity_0.code in ( select subEntity_1.code from SubEntity subEntity_1 )");
+	}
+
+	@Test
+	public void test_renderedQueryIsNotMaterialized() {
+		Query<Entity> select = selectByCodes(Materialization.upTo(2));
+
+		assertEquals(
+				"select entity_0 from Entity entity_0 where entity_0.code in ( select subEntity_1.code from SubEntity subEntity_1 )",
+				select.getQuery());
+		select.list(entityManager);
+		verify(entityManager, never()).createQuery(SUBQUERY);
+	}
+
+	@Test
+	public void test_cachedValuesAreReused() {
+		when(subQuery.getResultList()).thenReturn(Arrays.asList("a"));
+
+		Materialization materialization = Materialization.upTo(10).cachedFor(1, TimeUnit.MINUTES);
+		selectByCodes(materialization).list(entityManager);
+		selectByCodes(materialization).list(entityManager);
+
+		verify(entityManager, times(1)).createQuery(SUBQUERY);
+		verify(outerQuery, times(2)).setParameter("code_1", Arrays.asList("a"));
+	}
+
+	@Test
+	public void test_cachedValuesAreNotSharedBetweenFactories() {
+		when(subQuery.getResultList()).thenReturn(Arrays.asList("a"));
+		when(entityManager.getEntityManagerFactory()).thenReturn(mock(EntityManagerFactory.class));
+
+		EntityManager otherManager = mock(EntityManager.class);
+		javax.persistence.Query otherSubQuery = mock(javax.persistence.Query.class);
+		when(otherManager.getEntityManagerFactory()).thenReturn(mock(EntityManagerFactory.class));
+		when(otherManager.createQuery(anyString())).thenReturn(outerQuery);
+		when(otherManager.createQuery(SUBQUERY)).thenReturn(otherSubQuery);
+		when(otherSubQuery.getResultList()).thenReturn(Arrays.asList("b"));
+
+		Materialization materialization = Materialization.upTo(10).cachedFor(1, TimeUnit.MINUTES);
+		selectByCodes(materialization).list(entityManager);
+		selectByCodes(materialization).list(otherManager);
+
+		verify(otherManager).createQuery(SUBQUERY);
+		verify(outerQuery).setParameter("code_1", Arrays.asList("b"));
+	}
+
+	@Test
+	public void test_correlatedSubqueryStayInTheQuery() {
+		SubEntity subEntity = from(SubEntity.class);
+		Entity entity = from(Entity.class);
+		where(subEntity.getName()).eq(entity.getName());
+		where(entity.getCode()).in(select(subEntity.getCode()), Materialization.upTo(2));
+		select(entity).list(entityManager);
+
+		verify(entityManager, times(1)).createQuery(anyString());
+		verify(entityManager).createQuery(
+				"select entity_0 from Entity entity_0 where entity_0.code in ( select subEntity_1.code from SubEntity subEntity_1 where subEntity_1.name = entity_0.name )");
+	}
+
+	@Test
+	public void test_emptySubquerySkipTheOuterQuery() {
+		when(subQuery.getResultList()).thenReturn(Collections.emptyList());
+
+		assertTrue(selectByCodes(Materialization.upTo(2)).list(entityManager).isEmpty());
+		verify(entityManager, never()).createQuery("select entity_0 from Entity entity_0 where 1 = 0");
+	}
+
+}
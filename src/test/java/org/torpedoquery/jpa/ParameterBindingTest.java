@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.core.ParameterBinding;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.test.bo.Entity;
+import org.torpedoquery.jpa.test.bo.SubEntity;
+
+public class ParameterBindingTest {
+
+	@Before
+	public void setUp() {
+		TorpedoMagic.setup(ParameterBinding.POSITIONAL);
+	}
+
+	@After
+	public void tearDown() {
+		TorpedoMagic.setup(ParameterBinding.NAMED);
+	}
+
+	@Test
+	public void test_parametersAreNumberedInRenderingOrder() {
+		Entity from = from(Entity.class);
+		where(from.getCode()).eq("code").and(from.getName()).in(Arrays.asList("a", "b"));
+		Query<Entity> select = select(from);
+
+		assertEquals("select entity_0 from Entity entity_0 where entity_0.code = ?1 and entity_0.name in ( ?2 )",
+				select.getQuery());
+		Map<String, Object> parameters = select.getParameters();
+		assertEquals("code", parameters.get("1"));
+		assertEquals(Arrays.asList("a", "b"), parameters.get("2"));
+	}
+
+	@Test
+	public void test_subqueryParametersContinueTheNumbering() {
+		SubEntity subEntity = from(SubEntity.class);
+		where(subEntity.getName()).eq("name");
+		Query<String> codes = select(subEntity.getCode());
+
+		Entity from = from(Entity.class);
+		where(from.getName()).eq("test").and(from.getCode()).in(codes);
+
+		assertEquals(
+				"select entity_0 from Entity entity_0 where entity_0.name = ?1 and entity_0.code in ( select subEntity_1.code from SubEntity subEntity_1 where subEntity_1.name = ?2 )",
+				select(from).getQuery());
+	}
+
+	@Test
+	public void test_parametersAreBoundByPosition() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query query = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+
+		Entity from = from(Entity.class);
+		where(from.getCode()).eq("code").and(from.getIntegerField()).gt(2);
+		select(from).list(entityManager);
+
+		verify(entityManager).createQuery(
+				"select entity_0 from Entity entity_0 where entity_0.code = ?1 and entity_0.integerField > ?2");
+		verify(query).setParameter(1, "code");
+		verify(query).setParameter(2, 2);
+		verify(query, never()).setParameter(anyString(), any());
+	}
+
+}
@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.core.QueryExecution;
+import org.torpedoquery.core.QueryListener;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.metrics.LatencyHistogram;
+import org.torpedoquery.jpa.internal.metrics.QueryMetrics;
+import org.torpedoquery.jpa.internal.metrics.ShapeMetrics;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class QueryListenerTest {
+
+	private final List<QueryExecution> executed = new ArrayList<>();
+	private final List<QueryExecution> skipped = new ArrayList<>();
+	private final List<RuntimeException> failures = new ArrayList<>();
+	private final QueryListener listener = new QueryListener() {
+		@Override
+		public void executed(QueryExecution execution) {
+			executed.add(execution);
+		}
+
+		@Override
+		public void skipped(QueryExecution execution) {
+			skipped.add(execution);
+		}
+
+		@Override
+		public void failed(QueryExecution execution, RuntimeException exception) {
+			failures.add(exception);
+		}
+	};
+
+	@Before
+	public void setUp() {
+		TorpedoMagic.addQueryListener(listener);
+	}
+
+	@After
+	public void tearDown() {
+		TorpedoMagic.removeQueryListener(listener);
+	}
+
+	private static EntityManager entityManager(List<?> rows) {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query query = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(query);
+		when(query.getResultList()).thenReturn(rows);
+		return entityManager;
+	}
+
+	private static Query<Entity> selectByCode(String code) {
+		Entity from = from(Entity.class);
+		where(from.getCode()).eq(code);
+		return select(from);
+	}
+
+	@Test
+	public void test_listNotifyTheExecution() {
+		selectByCode("test").list(entityManager(Arrays.asList(new Entity(), new Entity())));
+
+		assertEquals(1, executed.size());
+		QueryExecution execution = executed.get(0);
+		assertEquals("select entity_0 from Entity entity_0 where entity_0.code = :code_1", execution.getQuery());
+		assertEquals(Collections.singletonMap("code_1", "test"), execution.getParameters());
+		assertEquals(2, execution.getRowCount());
+		assertTrue(execution.getRenderingNanos() > 0);
+		assertTrue(execution.getExecutionNanos() >= 0);
+	}
+
+	@Test
+	public void test_sameShapeHaveSameFingerprint() {
+		selectByCode("first").list(entityManager(Collections.emptyList()));
+		selectByCode("second").list(entityManager(Collections.emptyList()));
+
+		Entity from = from(Entity.class);
+		where(from.getName()).eq("first");
+		select(from).list(entityManager(Collections.emptyList()));
+
+		assertEquals(executed.get(0).getFingerprint(), executed.get(1).getFingerprint());
+		assertFalse(executed.get(0).getFingerprint().equals(executed.get(2).getFingerprint()));
+	}
+
+	@Test
+	public void test_inlinedLiteralsHaveSameFingerprint() {
+		Entity from = from(Entity.class);
+		where(from.getCode()).like().any("first");
+		select(from).list(entityManager(Collections.emptyList()));
+
+		from = from(Entity.class);
+		where(from.getCode()).like().any("second");
+		select(from).list(entityManager(Collections.emptyList()));
+
+		assertFalse(executed.get(0).getQuery().equals(executed.get(1).getQuery()));
+		assertEquals(executed.get(0).getFingerprint(), executed.get(1).getFingerprint());
+	}
+
+	@Test
+	public void test_skippedAndFailedExecutions() {
+		Entity from = from(Entity.class);
+		where(from.getCode()).in(Collections.<String>emptyList());
+		select(from).list(mock(EntityManager.class));
+
+		assertEquals(1, skipped.size());
+		assertEquals("select entity_0 from Entity entity_0 where 1 = 0", skipped.get(0).getQuery());
+
+		EntityManager entityManager = entityManager(Collections.emptyList());
+		PersistenceException exception = new PersistenceException();
+		when(entityManager.createQuery(anyString()).getResultList()).thenThrow(exception);
+		try {
+			selectByCode("test").list(entityManager);
+			fail();
+		} catch (PersistenceException e) {
+			assertSame(exception, failures.get(0));
+		}
+	}
+
+	@Test
+	public void test_failingListenerDontFailTheQuery() {
+		QueryListener failing = new QueryListener() {
+			@Override
+			public void executed(QueryExecution execution) {
+				throw new IllegalStateException();
+			}
+		};
+		TorpedoMagic.removeQueryListener(listener);
+		TorpedoMagic.addQueryListener(failing);
+		TorpedoMagic.addQueryListener(listener);
+		try {
+			List<Entity> rows = selectByCode("test").list(entityManager(Arrays.asList(new Entity())));
+			assertEquals(1, rows.size());
+		} finally {
+			TorpedoMagic.removeQueryListener(failing);
+		}
+
+		assertEquals(1, executed.size());
+		assertTrue(failures.isEmpty());
+	}
+
+	@Test
+	public void test_metricsByShape() {
+		QueryMetrics metrics = new QueryMetrics();
+		TorpedoMagic.addQueryListener(metrics);
+		try {
+			selectByCode("first").list(entityManager(Arrays.asList(new Entity())));
+			selectByCode("second").list(entityManager(Arrays.asList(new Entity(), new Entity(), new Entity())));
+		} finally {
+			TorpedoMagic.removeQueryListener(metrics);
+		}
+
+		assertEquals(1, metrics.getShapes().size());
+		ShapeMetrics shape = metrics.getShape(executed.get(0).getFingerprint());
+		assertEquals(2, shape.getExecution().getCount());
+		assertEquals(4, shape.getRows().getTotal());
+		assertEquals(3, shape.getRows().getMax());
+		assertEquals(2, shape.getRendering().getCount());
+	}
+
+	@Test
+	public void test_histogramPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; i++) {
+			histogram.record(i);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(63, histogram.getPercentile(50));
+		assertEquals(100, histogram.getPercentile(99));
+		assertEquals(50.5, histogram.getMean(), 0.001);
+	}
+
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import java.util.List;
+
+import org.junit.rules.MethodRule;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.metrics.RepeatedQuery;
+import org.torpedoquery.jpa.internal.metrics.RepeatedQueryDetector;
+
+/**
+ *
+ * Fail the tests which execute the same query shape more than the budget,
+ * usually a query in a loop over the result of another query (n+1 selects).
+ *
+ * Only the queries executed by the test thread are counted. The rule is
+ * published in the test jar of torpedoquery, add it with the test-jar type
+ * and the test scope.
+ *
+ * <pre>
+ * {@code @Rule}
+ * public RepeatedQueryRule repeatedQueries = new RepeatedQueryRule(3);
+ * </pre>
+ *
+ * @author xjodoin
+ * @version $Id: $Id
+ */
+public class RepeatedQueryRule implements MethodRule {
+
+	private final RepeatedQueryDetector detector;
+
+	/**
+	 * <p>
+	 * Constructor for RepeatedQueryRule.
+	 * </p>
+	 *
+	 * @param maxExecutions
+	 *            the executions allowed by query shape in a test
+	 */
+	public RepeatedQueryRule(int maxExecutions) {
+		this.detector = new RepeatedQueryDetector(maxExecutions);
+	}
+
+	/** {@inheritDoc} */
+	@Override
+	public Statement apply(final Statement base, FrameworkMethod method, Object target) {
+		return new Statement() {
+			@Override
+			public void evaluate() throws Throwable {
+				TorpedoMagic.addQueryListener(detector);
+				List<RepeatedQuery> repeatedQueries;
+				try (RepeatedQueryDetector.Scope scope = detector.open()) {
+					base.evaluate();
+					repeatedQueries = scope.getRepeatedQueries();
+				} finally {
+					TorpedoMagic.removeQueryListener(detector);
+				}
+
+				if (!repeatedQueries.isEmpty()) {
+					StringBuilder message = new StringBuilder("query budget exceeded");
+					for (RepeatedQuery repeatedQuery : repeatedQueries) {
+						message.append("\n").append(repeatedQuery);
+					}
+					throw new AssertionError(message.toString());
+				}
+			}
+		};
+	}
+
+}
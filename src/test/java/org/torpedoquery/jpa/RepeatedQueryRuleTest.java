@@ -0,0 +1,81 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runners.model.Statement;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class RepeatedQueryRuleTest {
+
+	@Rule
+	public RepeatedQueryRule repeatedQueries = new RepeatedQueryRule(3);
+
+	private static EntityManager entityManager() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.getResultList()).thenReturn(Collections.emptyList());
+		return entityManager;
+	}
+
+	private static void findByCodes(EntityManager entityManager, String... codes) {
+		for (String code : codes) {
+			Entity from = from(Entity.class);
+			where(from.getCode()).eq(code);
+			select(from).list(entityManager);
+		}
+	}
+
+	@Test
+	public void test_withinBudget() {
+		findByCodes(entityManager(), "a", "b", "c");
+	}
+
+	@Test
+	public void test_failOverBudget() throws Throwable {
+		final EntityManager entityManager = entityManager();
+		Statement statement = new RepeatedQueryRule(2).apply(new Statement() {
+			@Override
+			public void evaluate() {
+				findByCodes(entityManager, "a", "b", "c");
+			}
+		}, null, this);
+
+		try {
+			statement.evaluate();
+			fail();
+		} catch (AssertionError e) {
+			assertTrue(e.getMessage(), e.getMessage().startsWith("query budget exceeded\n3 executions with 3"));
+			assertTrue(e.getMessage(), e.getMessage().contains("at " + getClass().getName() + ".findByCodes"));
+		}
+	}
+
+}
@@ -513,6 +513,21 @@ public class TorpedoTest {
 		assertEquals("test", select.getParameters().get("code_1"));
 	}
 
+	/**
+	 * <p>
+	 * testSeveralChainedMethodCalls.
+	 * </p>
+	 */
+	@Test
+	public void testSeveralChainedMethodCalls() {
+		Entity from = from(Entity.class);
+		where(from.getSubEntity().getCode()).eq("test").and(from.getSubEntity().getName()).eq("name");
+		org.torpedoquery.jpa.Query<String> select = select(from.getSubEntity().getName());
+		assertEquals(
+				"select entity_0.subEntity.name from Entity entity_0 where entity_0.subEntity.code = :code_1 and entity_0.subEntity.name = :name_2",
+				select.getQuery());
+	}
+
 	/**
 	 * <p>
 	 * testJoinOnMap.
@@ -17,10 +17,14 @@ package org.torpedoquery.jpa;
 
 import static org.junit.Assert.assertEquals;
 import static org.torpedoquery.jpa.Torpedo.condition;
+import static org.torpedoquery.jpa.Torpedo.exists;
 import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.groupBy;
 import static org.torpedoquery.jpa.Torpedo.innerJoin;
+import static org.torpedoquery.jpa.Torpedo.notExists;
 import static org.torpedoquery.jpa.Torpedo.select;
 import static org.torpedoquery.jpa.Torpedo.where;
+import static org.torpedoquery.jpa.Torpedo.with;
 import static org.torpedoquery.jpa.TorpedoFunction.avg;
 import static org.torpedoquery.jpa.TorpedoFunction.max;
 
@@ -669,4 +673,86 @@ public class WhereClauseTest {
 				select2.getQuery());
 	}
 
+	/**
+	 * <p>test_exists_correlated.</p>
+	 */
+	@Test
+	public void test_exists_correlated() {
+		SubEntity subEntity = from(SubEntity.class);
+		Entity from = from(Entity.class);
+		where(subEntity.getName()).eq("sub").and(subEntity.getCode()).eq(from.getCode());
+		where(exists(select(subEntity)));
+		Query<Entity> select = select(from);
+
+		assertEquals(
+				"select entity_0 from Entity entity_0 where ( exists ( select subEntity_1 from SubEntity subEntity_1 where subEntity_1.name = :name_2 and subEntity_1.code = entity_0.code ) )",
+				select.getQuery());
+		assertEquals("sub", select.getParameters().get("name_2"));
+	}
+
+	/**
+	 * <p>test_notExists_in_logical_condition.</p>
+	 */
+	@Test
+	public void test_notExists_in_logical_condition() {
+		SubEntity subEntity = from(SubEntity.class);
+		Entity from = from(Entity.class);
+		where(subEntity.getCode()).eq(from.getCode());
+		Query<SubEntity> subSelect = select(subEntity);
+
+		where(from.getCode()).eq("test").and(notExists(subSelect));
+		Query<Entity> select = select(from);
+
+		assertEquals(
+				"select entity_0 from Entity entity_0 where entity_0.code = :code_1 and ( not exists ( select subEntity_2 from SubEntity subEntity_2 where subEntity_2.code = entity_0.code ) )",
+				select.getQuery());
+	}
+
+	/**
+	 * <p>test_exists_in_having.</p>
+	 */
+	@Test
+	public void test_exists_in_having() {
+		SubEntity subEntity = from(SubEntity.class);
+		Entity from = from(Entity.class);
+		where(subEntity.getCode()).eq(from.getCode());
+		Query<SubEntity> subSelect = select(subEntity);
+
+		groupBy(from.getCode()).having(exists(subSelect));
+		Query<String> select = select(from.getCode());
+
+		assertEquals(
+				"select entity_0.code from Entity entity_0 group by entity_0.code having ( exists ( select subEntity_1 from SubEntity subEntity_1 where subEntity_1.code = entity_0.code ) )",
+				select.getQuery());
+	}
+
+	/**
+	 * <p>test_exists_in_with.</p>
+	 */
+	@Test
+	public void test_exists_in_with() {
+		Entity subSelect = from(Entity.class);
+		Entity from = from(Entity.class);
+		SubEntity subEntity = innerJoin(from.getSubEntity());
+		where(subSelect.getCode()).eq(subEntity.getCode());
+		Query<Entity> subquery = select(subSelect);
+
+		with(subEntity.getName()).eq("test").and(exists(subquery));
+		Query<Entity> select = select(from);
+
+		assertEquals(
+				"select entity_0 from Entity entity_0 inner join entity_0.subEntity subEntity_1 with subEntity_1.name = :name_2 and ( exists ( select entity_3 from Entity entity_3 where entity_3.code = subEntity_1.code ) )",
+				select.getQuery());
+	}
+
+	/**
+	 * <p>test_exists_on_current_query.</p>
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void test_exists_on_current_query() {
+		Entity from = from(Entity.class);
+		SubEntity subEntity = from(SubEntity.class);
+		where(exists(select(subEntity)));
+	}
+
 }
@@ -0,0 +1,103 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+import org.torpedoquery.jpa.Query;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.TorpedoProxy;
+import org.torpedoquery.jpa.internal.query.DefaultQueryBuilder;
+import org.torpedoquery.jpa.internal.query.QueryShape;
+import org.torpedoquery.jpa.internal.utils.HiddenClassProxyEngine;
+import org.torpedoquery.jpa.internal.utils.TorpedoMethodHandler;
+import org.torpedoquery.jpa.test.bo.Entity;
+import org.torpedoquery.jpa.test.bo.ExtendSubEntity;
+
+public class FlightRecorderEventsTest {
+
+	@Test
+	public void test_recordQueryLifecycle() throws Exception {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.getResultList()).thenReturn(Arrays.asList(new Entity(), new Entity()));
+
+		List<RecordedEvent> events;
+		Query<Entity> select;
+		try (Recording recording = new Recording()) {
+			recording.enable("org.torpedoquery.QueryRendering").withoutThreshold();
+			recording.enable("org.torpedoquery.QueryExecution").withoutThreshold();
+			recording.enable("org.torpedoquery.ProxyGeneration").withoutThreshold();
+			recording.start();
+
+			Entity from = from(Entity.class);
+			where(from.getCode()).eq("test");
+			select = select(from);
+			select.list(entityManager);
+
+			new HiddenClassProxyEngine(TorpedoMagic.getProxyfactoryfactory()).createProxy(
+					new TorpedoMethodHandler(new DefaultQueryBuilder<>(ExtendSubEntity.class)), ExtendSubEntity.class,
+					TorpedoProxy.class);
+
+			recording.stop();
+			Path file = Files.createTempFile("torpedo", ".jfr");
+			recording.dump(file);
+			events = RecordingFile.readAllEvents(file);
+			Files.delete(file);
+		}
+
+		String shape = QueryShape.fingerprint(select.getQuery());
+		List<String> names = new ArrayList<>();
+		for (RecordedEvent event : events) {
+			String name = event.getEventType().getName();
+			names.add(name);
+
+			if (name.equals("org.torpedoquery.QueryExecution")) {
+				assertEquals(shape, event.getString("shape"));
+				assertEquals(select.getQuery().length(), event.getInt("queryLength"));
+				assertEquals(1, event.getInt("parameterCount"));
+				assertEquals(2, event.getInt("rowCount"));
+			} else if (name.equals("org.torpedoquery.QueryRendering")) {
+				assertEquals(shape, event.getString("shape"));
+			}
+		}
+		assertTrue(names.contains("org.torpedoquery.QueryRendering"));
+		assertTrue(names.contains("org.torpedoquery.QueryExecution"));
+		assertTrue(names.contains("org.torpedoquery.ProxyGeneration"));
+	}
+
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.innerJoin;
+import static org.torpedoquery.jpa.Torpedo.lower;
+import static org.torpedoquery.jpa.Torpedo.orderBy;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+import org.torpedoquery.core.QueryExecution;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.metrics.UnindexablePredicate.Reason;
+import org.torpedoquery.jpa.internal.query.QueryShape;
+import org.torpedoquery.jpa.test.bo.Entity;
+import org.torpedoquery.jpa.test.bo.SubEntity;
+
+public class IndexAdvisorTest {
+
+	private static QueryExecution execution(String query, long executionNanos) {
+		return new QueryExecution(QueryShape.fingerprint(query), query, Collections.<String, Object> emptyMap(),
+				0, 0, 0, executionNanos, 1);
+	}
+
+	@Test
+	public void test_equalityThenRangeThenSort() {
+		IndexAdvisor advisor = new IndexAdvisor();
+		advisor.executed(execution("select entity_0 from Entity entity_0 where entity_0.integerField > :integerField_1"
+				+ " and entity_0.code = :code_2 and entity_0.name like 'test%' order by entity_0.active desc", 100));
+		advisor.executed(execution(
+				"select entity_0 from Entity entity_0 inner join entity_0.subEntity subEntity_1 where subEntity_1.code = :code_2",
+				300));
+
+		List<IndexCandidate> candidates = advisor.getCandidates();
+		assertEquals(2, candidates.size());
+		assertEquals("Entity.subEntity", candidates.get(0).getEntity());
+		assertEquals(Arrays.asList("code"), candidates.get(0).getColumns());
+		assertEquals(300, candidates.get(0).getExecutionNanos());
+		assertEquals("Entity", candidates.get(1).getEntity());
+		assertEquals(Arrays.asList("code", "integerField", "active"), candidates.get(1).getColumns());
+	}
+
+	@Test
+	public void test_disjunctionIsNotACompositeIndex() {
+		IndexAdvisor advisor = new IndexAdvisor();
+		advisor.executed(execution(
+				"select entity_0 from Entity entity_0 where entity_0.code = :code_1 or entity_0.name = :name_2", 100));
+		assertTrue(advisor.getCandidates().isEmpty());
+
+		advisor.executed(execution("select entity_0 from Entity entity_0 where ( entity_0.code = :code_1 or "
+				+ "entity_0.name = :name_2 ) and entity_0.active = :active_3 and entity_0.name = 'a or b'", 100));
+		List<IndexCandidate> candidates = advisor.getCandidates();
+		assertEquals(1, candidates.size());
+		assertEquals(Arrays.asList("active", "name"), candidates.get(0).getColumns());
+	}
+
+	@Test
+	public void test_weightByExecutionTime() {
+		IndexAdvisor advisor = new IndexAdvisor();
+		String byCode = "select entity_0 from Entity entity_0 where entity_0.code = :code_1";
+		String byName = "select entity_0 from Entity entity_0 where entity_0.name = :name_1";
+		advisor.executed(execution(byCode, 10));
+		advisor.executed(execution(byCode, 10));
+		advisor.executed(execution(byName, 50));
+
+		List<IndexCandidate> candidates = advisor.getCandidates();
+		assertEquals(Arrays.asList("name"), candidates.get(0).getColumns());
+		assertEquals(Arrays.asList("code"), candidates.get(1).getColumns());
+		assertEquals(2, candidates.get(1).getExecutions());
+		assertEquals(20, candidates.get(1).getExecutionNanos());
+	}
+
+	@Test
+	public void test_flagUnindexablePredicates() {
+		IndexAdvisor advisor = new IndexAdvisor();
+		TorpedoMagic.addQueryListener(advisor);
+		try {
+			EntityManager entityManager = mock(EntityManager.class);
+			javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+			when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+			when(jpaQuery.getResultList()).thenReturn(Collections.emptyList());
+
+			Entity from = from(Entity.class);
+			SubEntity subEntity = innerJoin(from.getSubEntity());
+			where(from.getCode()).like().any("test").and(lower(subEntity.getName())).eq("name");
+			orderBy(from.getName());
+			select(from).list(entityManager);
+		} finally {
+			TorpedoMagic.removeQueryListener(advisor);
+		}
+
+		List<UnindexablePredicate> predicates = advisor.getUnindexablePredicates();
+		assertEquals(2, predicates.size());
+		assertEquals("Entity", predicates.get(0).getEntity());
+		assertEquals("code", predicates.get(0).getColumn());
+		assertEquals(Reason.LEADING_WILDCARD, predicates.get(0).getReason());
+		assertEquals("Entity.subEntity", predicates.get(1).getEntity());
+		assertEquals("name", predicates.get(1).getColumn());
+		assertEquals(Reason.FUNCTION, predicates.get(1).getReason());
+
+		assertEquals(Arrays.asList("name"), advisor.getCandidates().get(0).getColumns());
+	}
+
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.metrics.PlanCacheShape.Cause;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class PlanCacheMonitorTest {
+
+	private final PlanCacheMonitor monitor = new PlanCacheMonitor(10, 100);
+	private EntityManager entityManager;
+
+	@Before
+	public void setUp() {
+		TorpedoMagic.addQueryListener(monitor);
+		entityManager = mock(EntityManager.class);
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.getResultList()).thenReturn(Collections.emptyList());
+	}
+
+	@After
+	public void tearDown() {
+		TorpedoMagic.removeQueryListener(monitor);
+	}
+
+	@Test
+	public void test_inlinedLiteralsPolluteThePlanCache() {
+		for (int i = 0; i < 50; i++) {
+			Entity from = from(Entity.class);
+			where(from.getCode()).like().startsWith("code" + i);
+			select(from).list(entityManager);
+		}
+
+		assertEquals(1, monitor.getShapes().size());
+		List<PlanCacheShape> polluting = monitor.getPollutingShapes();
+		assertEquals(1, polluting.size());
+		PlanCacheShape shape = polluting.get(0);
+		assertEquals("select entity_0 from Entity entity_0 where entity_0.code like ?", shape.getShape());
+		assertEquals(EnumSet.of(Cause.STRING_LITERAL), shape.getCauses());
+		assertTrue(shape.getVariants() > 40 && shape.getVariants() < 60);
+		assertEquals(1, monitor.getAlerts());
+	}
+
+	@Test
+	public void test_inListSizes() {
+		for (int i = 1; i <= 20; i++) {
+			List<String> codes = new ArrayList<>();
+			for (int j = 0; j < i; j++) {
+				codes.add("code" + j);
+			}
+			Entity from = from(Entity.class);
+			where(from.getCode()).in(codes);
+			select(from).list(entityManager);
+		}
+
+		PlanCacheShape shape = monitor.getPollutingShapes().get(0);
+		assertEquals(EnumSet.of(Cause.IN_LIST_SIZE), shape.getCauses());
+	}
+
+	@Test
+	public void test_constantLiteralsAreNotCauses() {
+		for (int i = 1; i <= 20; i++) {
+			List<String> codes = new ArrayList<>();
+			for (int j = 0; j < i; j++) {
+				codes.add("code" + j);
+			}
+			Entity from = from(Entity.class);
+			where(from.getCode()).in(codes).and(from.getName()).like().startsWith("constant");
+			select(from).list(entityManager);
+		}
+
+		PlanCacheShape shape = monitor.getPollutingShapes().get(0);
+		assertEquals(EnumSet.of(Cause.IN_LIST_SIZE), shape.getCauses());
+	}
+
+	@Test
+	public void test_parametersDoNotPollute() {
+		for (int i = 0; i < 50; i++) {
+			Entity from = from(Entity.class);
+			where(from.getCode()).eq("code" + i);
+			select(from).list(entityManager);
+		}
+
+		PlanCacheShape shape = monitor.getShapes().values().iterator().next();
+		assertEquals(1, shape.getVariants());
+		assertFalse(shape.isPolluting());
+		assertTrue(monitor.getPollutingShapes().isEmpty());
+	}
+
+}
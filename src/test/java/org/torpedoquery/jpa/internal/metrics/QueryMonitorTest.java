@@ -0,0 +1,78 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class QueryMonitorTest {
+
+	@Test
+	public void test_topShapesThroughJmx() throws Exception {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.getResultList()).thenReturn(Arrays.asList(new Entity(), new Entity(), new Entity()));
+
+		QueryMonitor monitor = QueryMonitor.register(1);
+		try {
+			for (int i = 0; i < 3; i++) {
+				Entity from = from(Entity.class);
+				where(from.getCode()).eq("code" + i);
+				select(from).list(entityManager);
+			}
+			select(from(Entity.class)).list(entityManager);
+
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(QueryMonitor.OBJECT_NAME);
+			assertEquals(2, server.getAttribute(name, "ShapeCount"));
+			assertTrue((Long) server.getAttribute(name, "CumulativeProxyClassCount") > 0);
+			assertTrue((Integer) server.getAttribute(name, "ClassLoaderCount") > 0);
+
+			CompositeData[] byCount = (CompositeData[]) server.getAttribute(name, "TopShapesByCount");
+			assertEquals(1, byCount.length);
+			assertEquals(3L, byCount[0].get("count"));
+			assertEquals(3.0, (Double) byCount[0].get("averageRows"), 0);
+			assertEquals("select entity_0 from Entity entity_0 where entity_0.code = :code_1", byCount[0].get("query"));
+
+			String snapshot = (String) server.invoke(name, "dumpSnapshot", null, null);
+			assertTrue(snapshot, snapshot.startsWith("shapes=2 "));
+
+			server.invoke(name, "reset", null, null);
+			assertEquals(0, server.getAttribute(name, "ShapeCount"));
+		} finally {
+			monitor.unregister();
+		}
+	}
+
+}
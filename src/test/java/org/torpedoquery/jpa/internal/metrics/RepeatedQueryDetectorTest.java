@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class RepeatedQueryDetectorTest {
+
+	private final RepeatedQueryDetector detector = new RepeatedQueryDetector(2);
+	private EntityManager entityManager;
+
+	@Before
+	public void setUp() {
+		TorpedoMagic.addQueryListener(detector);
+		entityManager = mock(EntityManager.class);
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.getResultList()).thenReturn(Collections.emptyList());
+	}
+
+	@After
+	public void tearDown() {
+		TorpedoMagic.removeQueryListener(detector);
+	}
+
+	private void findByCode(String code) {
+		Entity from = from(Entity.class);
+		where(from.getCode()).eq(code);
+		select(from).list(entityManager);
+	}
+
+	@Test
+	public void test_detectQueryInLoop() {
+		try (RepeatedQueryDetector.Scope scope = detector.open()) {
+			findByCode("a");
+			findByCode("b");
+			assertTrue(scope.getRepeatedQueries().isEmpty());
+			findByCode("c");
+
+			List<RepeatedQuery> repeatedQueries = scope.getRepeatedQueries();
+			assertEquals(1, repeatedQueries.size());
+			RepeatedQuery repeatedQuery = repeatedQueries.get(0);
+			assertEquals(3, repeatedQuery.getExecutions());
+			assertEquals(3, repeatedQuery.getDistinctParameters());
+			assertEquals(getClass().getName(), repeatedQuery.getCaller()[0].getClassName());
+			assertEquals("findByCode", repeatedQuery.getCaller()[0].getMethodName());
+			assertTrue(repeatedQuery.getSuggestion(), repeatedQuery.getSuggestion().contains("code).in(values)"));
+		}
+		assertNull(detector.current());
+	}
+
+	@Test
+	public void test_sameValuesAreReported() {
+		try (RepeatedQueryDetector.Scope scope = detector.open()) {
+			findByCode("a");
+			findByCode("a");
+			findByCode("a");
+
+			RepeatedQuery repeatedQuery = scope.getRepeatedQueries().get(0);
+			assertEquals(1, repeatedQuery.getDistinctParameters());
+			assertTrue(repeatedQuery.getSuggestion().contains("keep its result"));
+		}
+	}
+
+	@Test
+	public void test_nestedScopesCountInEnclosingScope() {
+		try (RepeatedQueryDetector.Scope outer = detector.open()) {
+			findByCode("a");
+			try (RepeatedQueryDetector.Scope inner = detector.open()) {
+				assertSame(inner, detector.current());
+				findByCode("b");
+				findByCode("c");
+				assertTrue(inner.getRepeatedQueries().isEmpty());
+			}
+			assertSame(outer, detector.current());
+			assertEquals(1, outer.getRepeatedQueries().size());
+		}
+	}
+
+	@Test
+	public void test_closingOuterScopeFirstRestoreTheThread() {
+		RepeatedQueryDetector.Scope outer = detector.open();
+		RepeatedQueryDetector.Scope inner = detector.open();
+		outer.close();
+		assertNull(detector.current());
+
+		inner.close();
+		assertNull(detector.current());
+		findByCode("a");
+		findByCode("b");
+		findByCode("c");
+		assertTrue(inner.getRepeatedQueries().isEmpty());
+		assertTrue(outer.getRepeatedQueries().isEmpty());
+	}
+
+	@Test
+	public void test_ignoreExecutionsOutsideScope() {
+		findByCode("a");
+		findByCode("b");
+		findByCode("c");
+		assertNull(detector.current());
+	}
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+
+import org.junit.After;
+import org.junit.Test;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.metrics.SlowQueryLog.ParameterView;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class SlowQueryLogTest {
+
+	private SlowQueryLog slowQueryLog;
+
+	@After
+	public void tearDown() {
+		TorpedoMagic.removeQueryListener(slowQueryLog);
+	}
+
+	private static EntityManager entityManager() {
+		EntityManager entityManager = mock(EntityManager.class);
+		javax.persistence.Query jpaQuery = mock(javax.persistence.Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(jpaQuery);
+		when(jpaQuery.getResultList()).thenReturn(Arrays.asList(new Entity(), new Entity()));
+		return entityManager;
+	}
+
+	private static void list(String code, EntityManager entityManager) {
+		Entity from = from(Entity.class);
+		where(from.getCode()).eq(code);
+		select(from).setFirstResult(5).setMaxResults(10).setLockMode(LockModeType.PESSIMISTIC_READ)
+				.list(entityManager);
+	}
+
+	@Test
+	public void test_bufferTheSlowQueries() throws Exception {
+		slowQueryLog = new SlowQueryLog(0, TimeUnit.MILLISECONDS, 2, ParameterView.HASHED);
+		TorpedoMagic.addQueryListener(slowQueryLog);
+
+		EntityManager entityManager = entityManager();
+		list("first", entityManager);
+		list("second", entityManager);
+		list("first", entityManager);
+
+		List<SlowQuery> slowQueries = slowQueryLog.getSlowQueries();
+		assertEquals(2, slowQueries.size());
+		SlowQuery slowQuery = slowQueries.get(1);
+		assertEquals("select entity_0 from Entity entity_0 where entity_0.code = :code_1", slowQuery.getQuery());
+		assertEquals(5, slowQuery.getFirstResult());
+		assertEquals(10, slowQuery.getMaxResults());
+		assertEquals("PESSIMISTIC_READ", slowQuery.getLockMode());
+		assertEquals(2, slowQuery.getRowCount());
+
+		String first = slowQuery.getParameters().get("code_1");
+		String second = slowQueries.get(0).getParameters().get("code_1");
+		assertTrue(first.startsWith("#"));
+		assertFalse(first.contains("first"));
+		assertFalse(first.equals(second));
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("org.torpedoquery:type=SlowQueryLogTest");
+		server.registerMBean(slowQueryLog, name);
+		try {
+			CompositeData[] data = (CompositeData[]) server.getAttribute(name, "SlowQueries");
+			assertEquals(2, data.length);
+			assertEquals(slowQuery.getFingerprint(), data[1].get("fingerprint"));
+		} finally {
+			server.unregisterMBean(name);
+		}
+	}
+
+	@Test
+	public void test_rotateTheLogFile() throws Exception {
+		File directory = Files.createTempDirectory("torpedo").toFile();
+		File file = new File(directory, "slow.log");
+		slowQueryLog = new SlowQueryLog(0, TimeUnit.MILLISECONDS, 10, ParameterView.REDACTED, file, 100, 1);
+		TorpedoMagic.addQueryListener(slowQueryLog);
+
+		EntityManager entityManager = entityManager();
+		list("secret", entityManager);
+		list("secret", entityManager);
+		list("secret", entityManager);
+
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		assertEquals(1, lines.size());
+		assertTrue(lines.get(0).contains("code_1=<String>"));
+		assertTrue(lines.get(0).contains("first=5 max=10 lock=PESSIMISTIC_READ"));
+		assertFalse(lines.get(0).contains("secret"));
+		assertEquals(1, Files.readAllLines(new File(directory, "slow.log.1").toPath()).size());
+		assertFalse(new File(directory, "slow.log.2").exists());
+		assertEquals(0, slowQueryLog.getWriteErrors());
+
+		slowQueryLog.close();
+		list("secret", entityManager);
+		assertEquals(1, Files.readAllLines(file.toPath(), StandardCharsets.UTF_8).size());
+		assertEquals(0, slowQueryLog.getWriteErrors());
+		slowQueryLog.close();
+
+		for (File log : directory.listFiles()) {
+			log.delete();
+		}
+		directory.delete();
+	}
+
+}
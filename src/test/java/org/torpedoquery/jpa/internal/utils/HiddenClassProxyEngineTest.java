@@ -0,0 +1,125 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Method;
+import java.util.Date;
+
+import javassist.util.proxy.Proxy;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.core.ProxyHandler;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.TorpedoProxy;
+import org.torpedoquery.jpa.internal.query.DefaultQueryBuilder;
+import org.torpedoquery.jpa.test.bo.Entity;
+
+public class HiddenClassProxyEngineTest {
+
+	private HiddenClassProxyEngine engine;
+	private TorpedoMethodHandler methodHandler;
+
+	@Before
+	public void setUp() {
+		Assume.assumeTrue(HiddenClassProxyEngine.isSupported());
+		engine = new HiddenClassProxyEngine(TorpedoMagic.getProxyfactoryfactory());
+		methodHandler = new TorpedoMethodHandler(new DefaultQueryBuilder<Entity>(Entity.class));
+	}
+
+	@Test
+	public void test_proxyIsHiddenClass() throws Exception {
+		Entity proxy = engine.createProxy(methodHandler, Entity.class, TorpedoProxy.class);
+
+		assertTrue((Boolean) Class.class.getMethod("isHidden").invoke(proxy.getClass()));
+		assertSame(proxy.getClass(), engine.createProxy(methodHandler, Entity.class, TorpedoProxy.class).getClass());
+		assertSame(methodHandler, ((TorpedoProxy) proxy).getTorpedoMethodHandler());
+	}
+
+	@Test
+	public void test_recordGetters() {
+		Entity proxy = engine.createProxy(methodHandler, Entity.class, TorpedoProxy.class);
+
+		assertNull(proxy.getCode());
+		assertEquals(0L, proxy.getPrimitiveLong());
+		assertFalse(proxy.isActive());
+		assertNull(proxy.getSubEntity().getCode());
+
+		assertEquals("subEntity.code", methodHandler.getMethods().pollFirst().getFullPath());
+		assertEquals("active", methodHandler.getMethods().pollFirst().getFullPath());
+		assertEquals("primitiveLong", methodHandler.getMethods().pollFirst().getFullPath());
+		assertEquals("code", methodHandler.getMethods().pollFirst().getFullPath());
+		assertTrue(methodHandler.getMethods().isEmpty());
+	}
+
+	@Test
+	public void test_dont_track_finalize() throws Exception {
+		Entity proxy = engine.createProxy(methodHandler, Entity.class, TorpedoProxy.class);
+		Method method = Object.class.getDeclaredMethod("finalize");
+		method.setAccessible(true);
+		method.invoke(proxy);
+		proxy.hashCode();
+
+		assertTrue(methodHandler.getMethods().isEmpty());
+	}
+
+	@Test
+	public void test_serializeProxy() throws Exception {
+		Entity proxy = engine.createProxy(methodHandler, Entity.class, TorpedoProxy.class);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(proxy);
+		}
+		Entity copy;
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			copy = (Entity) in.readObject();
+		}
+
+		TorpedoMethodHandler copyHandler = ((TorpedoProxy) copy).getTorpedoMethodHandler();
+		assertNotNull(copyHandler);
+		copy.getName();
+		assertEquals("name", copyHandler.getMethods().pollFirst().getFullPath());
+	}
+
+	@Test
+	public void test_fallbackWhenHandlerDontRecord() {
+		ProxyHandler handler = (self, method, args) -> null;
+		Entity proxy = engine.createProxy(handler, Entity.class);
+
+		assertTrue(proxy instanceof Proxy);
+	}
+
+	@Test
+	public void test_fallbackWhenModuleIsNotOpen() {
+		Date proxy = engine.createProxy(methodHandler, Date.class, TorpedoProxy.class);
+
+		assertTrue(proxy instanceof Proxy);
+	}
+
+}
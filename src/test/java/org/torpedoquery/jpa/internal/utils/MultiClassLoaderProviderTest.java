@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.utils;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import javassist.util.proxy.ProxyFactory;
+import javassist.util.proxy.ProxyObject;
+
+import org.junit.Test;
+import org.torpedoquery.jpa.internal.TorpedoProxy;
+import org.torpedoquery.jpa.test.bo.Entity;
+import org.torpedoquery.jpa.test.bo.Entity2;
+
+public class MultiClassLoaderProviderTest {
+
+	private static ProxyFactory factory(Class<?> superclass, Class<?>... interfaces) {
+		ProxyFactory factory = new ProxyFactory();
+		factory.setSuperclass(superclass);
+		factory.setInterfaces(interfaces);
+		return factory;
+	}
+
+	@Test
+	public void test_sameLoaderByProxiedClass() {
+		MultiClassLoaderProvider provider = new MultiClassLoaderProvider();
+
+		ClassLoader classLoader = provider.get(factory(Entity.class, TorpedoProxy.class));
+
+		assertSame(classLoader, new MultiClassLoaderProvider().get(factory(Entity.class, TorpedoProxy.class)));
+		assertNotSame(classLoader, provider.get(factory(Entity2.class, TorpedoProxy.class)));
+	}
+
+	@Test
+	public void test_resolveAndCacheMissingClasses() throws ClassNotFoundException {
+		ClassLoader classLoader = new MultiClassLoaderProvider().get(factory(Entity.class, TorpedoProxy.class));
+
+		assertSame(Entity.class, classLoader.loadClass(Entity.class.getName()));
+		assertSame(ProxyObject.class, classLoader.loadClass(ProxyObject.class.getName()));
+		for (int i = 0; i < 2; i++) {
+			try {
+				classLoader.loadClass("org.torpedoquery.jpa.test.bo.Missing");
+				fail();
+			} catch (ClassNotFoundException e) {
+				// expected
+			}
+		}
+	}
+
+}
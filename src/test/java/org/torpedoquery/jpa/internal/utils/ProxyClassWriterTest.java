@@ -0,0 +1,88 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodHandles.Lookup;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.torpedoquery.core.ProxyEngine;
+import org.torpedoquery.core.ProxyHandler;
+import org.torpedoquery.jpa.Query;
+import org.torpedoquery.jpa.internal.TorpedoProxy;
+import org.torpedoquery.jpa.internal.query.DefaultQueryBuilder;
+import org.torpedoquery.jpa.test.bo.Entity;
+import org.torpedoquery.jpa.test.bo.Entity2;
+
+public class ProxyClassWriterTest {
+
+	@Test
+	public void test_writeReachableEntities() throws Exception {
+		File outputDirectory = Files.createTempDirectory("torpedo").toFile();
+
+		new ProxyClassWriter(outputDirectory).add(Entity.class).write();
+
+		assertTrue(new File(outputDirectory, "org/torpedoquery/jpa/test/bo/Entity$$TorpedoProxy.class").isFile());
+		assertTrue(new File(outputDirectory, "org/torpedoquery/jpa/test/bo/Entity$$TorpedoLinkedProxy.class").isFile());
+		assertTrue(new File(outputDirectory, "org/torpedoquery/jpa/test/bo/SubEntity$$TorpedoProxy.class").isFile());
+
+		String reflectConfig = new String(Files.readAllBytes(new File(outputDirectory,
+				ProxyClassWriter.REFLECT_CONFIG).toPath()), StandardCharsets.UTF_8);
+		assertTrue(reflectConfig.contains(
+				"{\"name\":\"org.torpedoquery.jpa.test.bo.Entity$$TorpedoProxy\",\"allDeclaredFields\":true,\"allDeclaredMethods\":true,\"unsafeAllocated\":true}"));
+		assertTrue(reflectConfig.contains(
+				"{\"name\":\"org.torpedoquery.jpa.test.bo.AbstractEntity\",\"allDeclaredMethods\":true,\"allPublicMethods\":true}"));
+	}
+
+	@Test
+	public void test_usePregeneratedClass() throws Throwable {
+		Assume.assumeTrue(HiddenClassProxyEngine.isSupported());
+		ProxyClassGenerator generator = ProxyClassGenerator.of(Entity2.class, TorpedoProxy.class);
+		Lookup lookup = (Lookup) MethodHandles.class.getMethod("privateLookupIn", Class.class, Lookup.class)
+				.invoke(null, Entity2.class, MethodHandles.lookup());
+		Lookup.class.getMethod("defineClass", byte[].class).invoke(lookup,
+				generator.generate(generator.getClassName()));
+
+		ProxyEngine engine = new PregeneratedProxyEngine(new ProxyEngine() {
+			@Override
+			public <T> T createProxy(ProxyHandler handler, Class<?>... classes) {
+				throw new AssertionError("a proxy class was generated");
+			}
+		});
+		TorpedoMethodHandler methodHandler = new TorpedoMethodHandler(new DefaultQueryBuilder<Entity2>(Entity2.class));
+		Entity2 proxy = engine.createProxy(methodHandler, TorpedoProxy.class, Entity2.class);
+		proxy.getCode();
+
+		assertEquals("org.torpedoquery.jpa.test.bo.Entity2$$TorpedoProxy", proxy.getClass().getName());
+		assertEquals("code", methodHandler.getMethods().pollFirst().getFullPath());
+
+		Entity2 entity = from(Entity2.class);
+		where(entity.getCode()).eq("test");
+		Query<Entity2> select = select(entity);
+		assertEquals("select entity2_0 from Entity2 entity2_0 where entity2_0.code = :code_1", select.getQuery());
+	}
+
+}
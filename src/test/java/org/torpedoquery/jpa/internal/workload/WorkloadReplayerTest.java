@@ -0,0 +1,120 @@
+/**
+ * Copyright (C) 2011 Xavier Jodoin (xavier@jodoin.me)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.torpedoquery.jpa.internal.workload;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.torpedoquery.jpa.Torpedo.from;
+import static org.torpedoquery.jpa.Torpedo.select;
+import static org.torpedoquery.jpa.Torpedo.where;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityTransaction;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.torpedoquery.jpa.internal.TorpedoMagic;
+import org.torpedoquery.jpa.internal.query.QueryShape;
+import org.torpedoquery.jpa.test.bo.Entity;
+import org.torpedoquery.jpa.test.bo.SubEntity;
+
+public class WorkloadReplayerTest {
+
+	private File file;
+
+	@Before
+	public void setUp() throws Exception {
+		file = File.createTempFile("torpedo", ".workload");
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void test_captureAndReplay() throws Exception {
+		EntityManager entityManager = mock(EntityManager.class);
+		Query capturedQuery = mock(Query.class);
+		when(entityManager.createQuery(anyString())).thenReturn(capturedQuery);
+		when(capturedQuery.getResultList()).thenReturn(Collections.emptyList());
+
+		WorkloadRecorder recorder = new WorkloadRecorder(file);
+		TorpedoMagic.addQueryListener(recorder);
+		try {
+			for (String code : Arrays.asList("a", "b")) {
+				Entity from = from(Entity.class);
+				where(from.getCode()).eq(code).and(from.getBigDecimalField()).in(Arrays.asList(BigDecimal.ONE));
+				select(from).setMaxResults(10).setLockMode(LockModeType.PESSIMISTIC_WRITE).list(entityManager);
+			}
+			Entity from = from(Entity.class);
+			where(from.getSubEntity()).eq(new SubEntity());
+			select(from).list(entityManager);
+		} finally {
+			TorpedoMagic.removeQueryListener(recorder);
+			recorder.close();
+		}
+
+		EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+		EntityManager target = mock(EntityManager.class);
+		EntityTransaction transaction = mock(EntityTransaction.class);
+		Query query = mock(Query.class);
+		when(entityManagerFactory.createEntityManager()).thenReturn(target);
+		when(target.getTransaction()).thenReturn(transaction);
+		when(transaction.isActive()).thenReturn(true);
+		when(target.createQuery(anyString())).thenReturn(query);
+
+		ReplayReport report = new WorkloadReplayer(entityManagerFactory, file).replay(0, 2);
+
+		String locked = "select entity_0 from Entity entity_0 where entity_0.code = :code_1 and entity_0.bigDecimalField in ( :bigDecimalField_2 )";
+		verify(target, times(2)).createQuery(locked);
+		verify(query).setParameter("code_1", "a");
+		verify(query).setParameter("code_1", "b");
+		verify(query, times(2)).setParameter("bigDecimalField_2", Arrays.asList(BigDecimal.ONE));
+		verify(query, times(2)).setMaxResults(10);
+		verify(query, times(2)).setLockMode(LockModeType.PESSIMISTIC_WRITE);
+		verify(query, times(2)).getResultList();
+		verify(transaction, times(2)).begin();
+		verify(transaction, times(2)).rollback();
+		verify(transaction, never()).commit();
+		verify(target, times(2)).close();
+
+		ReplayShape shape = report.getShape(QueryShape.fingerprint(locked));
+		assertEquals(2, shape.getReplay().getCount());
+		assertEquals(2, shape.getBaseline().getCount());
+		assertEquals(0, shape.getFailed());
+
+		ReplayShape unsupported = report.getShape(QueryShape
+				.fingerprint("select entity_0 from Entity entity_0 where entity_0.subEntity = :subEntity_1"));
+		assertEquals(1, unsupported.getUnsupported());
+		assertEquals(0, unsupported.getReplay().getCount());
+	}
+
+}